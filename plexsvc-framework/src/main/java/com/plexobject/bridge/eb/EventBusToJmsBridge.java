@@ -155,7 +155,8 @@ public class EventBusToJmsBridge implements Lifecycle {
                 }
                 Map<String, Object> params = JMSUtils.getProperties(message);
                 AbstractResponseDispatcher dispatcher = message.getJMSReplyTo() != null ? new JmsResponseDispatcher(
-                        jmsContainer, message.getJMSReplyTo())
+                        jmsContainer, message.getJMSReplyTo(),
+                        message.getJMSCorrelationID())
                         : new AbstractResponseDispatcher() {
                         };
 
@@ -9,14 +9,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.jms.Destination;
 
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
 import org.apache.log4j.Logger;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.plexobject.domain.Constants;
 import com.plexobject.encode.CodecType;
 import com.plexobject.encode.json.JsonObjectCodec;
 import com.plexobject.handler.Handler;
@@ -41,8 +48,11 @@ import com.plexobject.util.IOUtils;
  */
 public class WebToJmsBridge implements RequestHandler, LifecycleAware {
     private static final Logger logger = Logger.getLogger(WebToJmsBridge.class);
+    private static final long TIMER_TICK_MILLIS = 100;
     private final JMSContainer jmsContainer;
     private final ServiceRegistry serviceRegistry;
+    private final boolean asyncReplies;
+    private HashedWheelTimer timer;
     //
     private final Map<RequestMethod, RouteResolver<WebToJmsEntry>> entriesEndpointsByMethod = new ConcurrentHashMap<>();
 
@@ -50,7 +60,8 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
             JMSContainer jmsContainer) {
         this.jmsContainer = jmsContainer;
         this.serviceRegistry = serviceRegistry;
-
+        this.asyncReplies = serviceRegistry.getConfiguration().getBoolean(
+                Constants.WEB_TO_JMS_ASYNC_REPLIES, false);
     }
 
     public void setWebToJmsEntries(Collection<WebToJmsEntry> entries) {
@@ -64,7 +75,7 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
      * 
      * @param e
      */
-    public void add(WebToJmsEntry e) {
+    public synchronized void add(WebToJmsEntry e) {
         if (e.getMethod() == RequestMethod.MESSAGE) {
             addWebsocket(e);
         } else {
@@ -119,6 +130,9 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
     /**
      * This method handles web request and forwards it to the JMS queue/topic.
      * It then listen for the response if the mapping entry is not asynchronous.
+     * When async replies are enabled, the request is parked instead of
+     * blocking the calling thread and its response is sent by the JMS reply
+     * listener or by the timer when the reply doesn't arrive in time.
      */
     @Override
     public void handle(Request request) {
@@ -154,6 +168,8 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
                         (String) request.getContentsAs());
                 request.getResponse().setCodecType(entry.getCodecType());
                 request.getResponse().setContents("");
+            } else if (asyncReplies) {
+                new ParkedRequest(request, entry, params).send(destination);
             } else {
                 Future<Response> respFuture = jmsContainer.sendReceive(
                         destination, params, (String) request.getContentsAs(),
@@ -161,20 +177,106 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
                 respFuture.get(entry.getTimeoutSecs(), TimeUnit.SECONDS);
             }
         } catch (TimeoutException e) {
-            request.getResponse().setCodecType(CodecType.TEXT);
-            request.getResponse()
-                    .setStatusCode(HttpResponse.SC_GATEWAY_TIMEOUT);
-            request.getResponse().setStatusMessage(
-                    "Request timedout " + entry.getTimeoutSecs() + " secs");
-            request.getResponse().setContents(
-                    "Request timedout " + entry.getTimeoutSecs() + " secs");
-            logger.warn("PLEXSVC Timed out request from " + entry.getEndpoint()
-                    + " - " + request.getContents());
+            setTimedout(request, entry);
         } catch (Exception e) {
             logger.error("PLEXSVC Failed to send request", e);
         }
     }
 
+    private static void setTimedout(Request request, WebToJmsEntry entry) {
+        request.getResponse().setCodecType(CodecType.TEXT);
+        request.getResponse().setStatusCode(HttpResponse.SC_GATEWAY_TIMEOUT);
+        request.getResponse().setStatusMessage(
+                "Request timedout " + entry.getTimeoutSecs() + " secs");
+        request.getResponse().setContents(
+                "Request timedout " + entry.getTimeoutSecs() + " secs");
+        logger.warn("PLEXSVC Timed out request from " + entry.getEndpoint()
+                + " - " + request.getContents());
+    }
+
+    /**
+     * This class holds a request whose reply is awaited without a blocked
+     * thread. Either the reply or the timeout completes the request, whichever
+     * happens first.
+     */
+    private class ParkedRequest implements Handler<Response>, TimerTask {
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final Request request;
+        private final WebToJmsEntry entry;
+        private final Map<String, Object> params;
+        private final Handler<Response> replyHandler;
+        private volatile Timeout timeout;
+        private volatile Future<Response> respFuture;
+
+        private ParkedRequest(Request request, WebToJmsEntry entry,
+                Map<String, Object> params) {
+            this.request = request;
+            this.entry = entry;
+            this.params = params;
+            this.replyHandler = sendbackReply(request, entry, params);
+        }
+
+        private void send(Destination destination) throws Exception {
+            timeout = getTimer().newTimeout(this, entry.getTimeoutSecs(),
+                    TimeUnit.SECONDS);
+            try {
+                respFuture = jmsContainer.sendReceive(destination, params,
+                        (String) request.getContentsAs(), this);
+            } catch (Exception e) {
+                timeout.cancel();
+                throw e;
+            }
+        }
+
+        // invoked by JMS reply listener
+        @Override
+        public void handle(Response reply) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+            // request is locked so that invoking thread doesn't send the
+            // response before it's marked as sent
+            synchronized (request) {
+                replyHandler.handle(reply);
+                request.sendResponse();
+            }
+        }
+
+        // invoked by timer
+        @Override
+        public void run(Timeout t) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            Future<Response> f = respFuture;
+            if (f != null) {
+                f.cancel(false);
+            }
+            synchronized (request) {
+                setTimedout(request, entry);
+                request.sendResponse();
+            }
+        }
+    }
+
+    private synchronized HashedWheelTimer getTimer() {
+        if (timer == null) {
+            timer = new HashedWheelTimer(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "plexsvc-web-to-jms-timer");
+                    t.setDaemon(true);
+                    return t;
+                }
+            }, TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return timer;
+    }
+
     WebToJmsEntry getMappingEntry(Request request) {
         RouteResolver<WebToJmsEntry> entryEndpoints = entriesEndpointsByMethod
                 .get(request.getMethod());
@@ -252,6 +354,12 @@ public class WebToJmsBridge implements RequestHandler, LifecycleAware {
     @Override
     public void onStopped() {
         jmsContainer.stop();
+        synchronized (this) {
+            if (timer != null) {
+                timer.stop();
+                timer = null;
+            }
+        }
     }
 
     @Override
@@ -17,6 +17,30 @@ public interface Constants {
     public static final String SSL = "ssl";
     public static final String HTTP_WEBSOCKET_URI = "http.websocketUri";
     public static final String HTTP_SERVICE_TIMEOUT_SECS = "http.serviceTimeoutSecs";
+    public static final String HTTP_TRANSPORT = "http.transport";
+    public static final String HTTP_ACCEPTOR_THREADS = "http.acceptorThreads";
+    public static final String HTTP_WORKER_THREADS = "http.workerThreads";
+    public static final String HTTP_MAX_CONTENT_LENGTH = "http.maxContentLength";
+    public static final String HTTP_IDLE_TIMEOUT_SECS = "http.idleTimeoutSecs";
+    public static final String HTTP_COMPRESSION = "http.compression";
+    public static final String HTTP_COMPRESSION_THRESHOLD = "http.compressionThreshold";
+    public static final String HTTP_COMPRESSION_CACHE_BYTES = "http.compressionCacheBytes";
+    public static final String HTTP_WRITE_BUFFER_HIGH_WATER_MARK = "http.writeBufferHighWaterMark";
+    public static final String HTTP_WRITE_BUFFER_LOW_WATER_MARK = "http.writeBufferLowWaterMark";
+    public static final String WEBSOCKET_SLOW_CONSUMER_POLICY = "websocket.slowConsumerPolicy";
+    public static final String WEBSOCKET_SLOW_CONSUMER_QUEUE_SIZE = "websocket.slowConsumerQueueSize";
+    public static final String CONFLATION_KEY = "conflationKey";
+    public static final String WEBSOCKET_COMPRESSION = "websocket.compression";
+    public static final String WEBSOCKET_COMPRESSION_LEVEL = "websocket.compressionLevel";
+    public static final String WEBSOCKET_COMPRESSION_THRESHOLD = "websocket.compressionThreshold";
+    public static final String WEBSOCKET_SERVER_NO_CONTEXT_TAKEOVER = "websocket.serverNoContextTakeover";
+    public static final String WEBSOCKET_CLIENT_NO_CONTEXT_TAKEOVER = "websocket.clientNoContextTakeover";
+    public static final String HTTP_EXECUTOR_THREADS = "http.executorThreads";
+    public static final String HTTP_EXECUTOR_QUEUE_SIZE = "http.executorQueueSize";
+    public static final String ACCESS_LOG_SAMPLE_PERCENT = "accessLog.samplePercent";
+    public static final String ACCESS_LOG_FORMAT = "accessLog.format";
+    public static final String ACCESS_LOG_BUFFER_SIZE = "accessLog.bufferSize";
+    public static final String VIRTUAL_THREADS = "virtualThreads";
     public static final String JSON = "JSON";
     public static final String DEFAULT_CODEC_TYPE = "service.defaultCodecType";
 
@@ -29,6 +53,16 @@ public interface Constants {
     public static final String JMS_USERNAME = "jms.username";
     public static final String JMS_TRASACTED_SESSION = "jms.trasactedSession";
     public static final String JMS_SEND_HEADERS = "jms.sendHeaders";
+    public static final String JMS_SHARED_REPLY_QUEUE = "jms.sharedReplyQueue";
+    public static final String JMS_REPLY_TIMEOUT_SECS = "jms.replyTimeoutSecs";
+    public static final String JMS_BATCH_SIZE = "jms.batchSize";
+    public static final String JMS_BATCH_DELAY_MICROS = "jms.batchDelayMicros";
+    public static final String JMS_BATCH_RETRIES = "jms.batchRetries";
+    public static final String JMS_RECEIVE_BATCH_SIZE = "jms.receiveBatchSize";
+    public static final String JMS_RECEIVE_BATCH_PARALLEL = "jms.receiveBatchParallel";
+    public static final String JMS_RECEIVE_BATCH_THREADS = "jms.receiveBatchThreads";
+    public static final String JMS_IDLE_RECEIVES_LIMIT = "jms.idleReceivesLimit";
+    public static final String WEB_TO_JMS_ASYNC_REPLIES = "webToJms.asyncReplies";
     public static final String JAXWS_NAMESPACE = "jaxws.namespace";
     public static final int DEFAULT_HTTP_PORT = 8181;
 }
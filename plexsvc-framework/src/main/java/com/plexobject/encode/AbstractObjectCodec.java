@@ -1,5 +1,9 @@
 package com.plexobject.encode;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import org.apache.commons.beanutils.BeanUtilsBean;
@@ -50,6 +54,34 @@ public abstract class AbstractObjectCodec implements ObjectCodec {
                 }
             });
 
+    /**
+     * Default implementation that writes bytes of encoded string, subclasses
+     * can override it to serialize directly into the stream
+     */
+    @Override
+    public <T> void encodeBytes(T obj, OutputStream out) {
+        String text = encode(obj);
+        if (text != null) {
+            try {
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new EncodingException("Failed to write " + obj, e);
+            }
+        }
+    }
+
+    /**
+     * Default implementation that converts bytes into string, subclasses can
+     * override it to decode bytes directly
+     */
+    @Override
+    public <T> T decodeBytes(ByteBuffer buffer, Class<?> type,
+            Map<String, Object> params) {
+        String text = buffer != null ? StandardCharsets.UTF_8.decode(
+                buffer.duplicate()).toString() : null;
+        return decode(text, type, params);
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> T propertyDecode(Map<String, Object> params, Class<?> type) {
         try {
@@ -0,0 +1,44 @@
+package com.plexobject.encode;
+
+import java.io.OutputStream;
+
+/**
+ * This class defers encoding of a payload until the transport provides its
+ * output buffer so that payload can be serialized without intermediate string
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public class EncodablePayload {
+    private final ObjectCodec codec;
+    private final Object contents;
+
+    public EncodablePayload(final ObjectCodec codec, final Object contents) {
+        this.codec = codec;
+        this.contents = contents;
+    }
+
+    public ObjectCodec getCodec() {
+        return codec;
+    }
+
+    public Object getContents() {
+        return contents;
+    }
+
+    public void writeTo(OutputStream out) throws EncodingException {
+        codec.encodeBytes(contents, out);
+    }
+
+    /**
+     * This method only describes the payload so that logging it does not
+     * encode contents again
+     */
+    @Override
+    public String toString() {
+        return "EncodablePayload [codec=" + codec.getClass().getSimpleName()
+                + ", contents="
+                + (contents == null ? null : contents.getClass().getName())
+                + "]";
+    }
+}
@@ -1,5 +1,7 @@
 package com.plexobject.encode;
 
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -20,6 +22,17 @@ public interface ObjectCodec {
      */
     <T> String encode(T obj) throws EncodingException;
 
+    /**
+     * This method serializes given object as UTF-8 bytes into the output
+     * stream without creating intermediate string if underlying encoder
+     * supports it
+     * 
+     * @param obj
+     * @param out
+     * @throws EncodingException
+     */
+    <T> void encodeBytes(T obj, OutputStream out) throws EncodingException;
+
     /**
      * This method deserializes string into an object using underlying encoder
      * 
@@ -32,6 +45,19 @@ public interface ObjectCodec {
     <T> T decode(String text, Class<?> type, Map<String, Object> params)
             throws EncodingException;
 
+    /**
+     * This method deserializes UTF-8 encoded bytes into an object without
+     * converting them into string if underlying encoder supports it
+     * 
+     * @param buffer
+     * @param type
+     * @param params
+     * @return
+     * @throws EncodingException
+     */
+    <T> T decodeBytes(ByteBuffer buffer, Class<?> type,
+            Map<String, Object> params) throws EncodingException;
+
     /**
      * This method sets current code configurer to customize underlying encoder
      * 
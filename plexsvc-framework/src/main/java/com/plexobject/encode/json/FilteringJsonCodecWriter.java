@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.ser.PropertyWriter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.plexobject.encode.EncodingException;
 import com.plexobject.encode.ObjectCodecFilteredWriter;
 import com.plexobject.handler.Request;
 
@@ -73,7 +74,7 @@ public class FilteringJsonCodecWriter extends SimpleBeanPropertyFilter
         try {
             return mapper.writeValueAsString(value);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to parse " + value, e);
+            throw new EncodingException("Failed to write " + value, e);
         }
     }
 
@@ -1,6 +1,8 @@
 package com.plexobject.encode.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -10,6 +12,7 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.plexobject.encode.AbstractObjectCodec;
 import com.plexobject.encode.CodecConfigurer;
 import com.plexobject.encode.CodecType;
@@ -81,6 +84,24 @@ public class JsonObjectCodec extends AbstractObjectCodec {
         }
     }
 
+    @Override
+    public <T> void encodeBytes(T obj, OutputStream out) {
+        if (obj == null) {
+            return;
+        }
+        // filtered writer only produces strings
+        if (obj instanceof CharSequence
+                || getObjectCodecFilteredWriter() != null) {
+            super.encodeBytes(obj, out);
+            return;
+        }
+        try {
+            currentMapper.get().writeValue(out, obj);
+        } catch (IOException e) {
+            throw new EncodingException("Failed to convert " + obj, e);
+        }
+    }
+
     @Override
     public <T> T decode(String text, Class<?> type, Map<String, Object> params) {
         if (text != null && text.length() > 0) {
@@ -92,6 +113,18 @@ public class JsonObjectCodec extends AbstractObjectCodec {
         }
     }
 
+    @Override
+    public <T> T decodeBytes(ByteBuffer buffer, Class<?> type,
+            Map<String, Object> params) {
+        if (buffer != null && buffer.hasRemaining()) {
+            T obj = jsonDecodeBytes(buffer, type);
+            populateProperties(params, obj);
+            return obj;
+        } else {
+            return propertyDecode(params, type);
+        }
+    }
+
     public <T> T decode(String text, final TypeReference<T> type) {
         if (text == null || text.length() == 0) {
             return null;
@@ -125,4 +158,29 @@ public class JsonObjectCodec extends AbstractObjectCodec {
             Thread.currentThread().setContextClassLoader(savedCL);
         }
     }
+
+    @SuppressWarnings("unchecked")
+    private <T> T jsonDecodeBytes(ByteBuffer buffer, Class<?> type) {
+        ClassLoader savedCL = Thread.currentThread().getContextClassLoader();
+        try {
+            Thread.currentThread().setContextClassLoader(
+                    getClass().getClassLoader());
+            // parse bytes in place when possible, otherwise stream them from
+            // direct buffer without copying into string
+            if (buffer.hasArray()) {
+                return (T) currentMapper.get().readValue(buffer.array(),
+                        buffer.arrayOffset() + buffer.position(),
+                        buffer.remaining(), type);
+            } else {
+                return (T) currentMapper.get().readValue(
+                        new ByteBufferBackedInputStream(buffer.duplicate()),
+                        type);
+            }
+        } catch (IOException e) {
+            throw new EncodingException("Failed to decode " + buffer + " to "
+                    + type, e);
+        } finally {
+            Thread.currentThread().setContextClassLoader(savedCL);
+        }
+    }
 }
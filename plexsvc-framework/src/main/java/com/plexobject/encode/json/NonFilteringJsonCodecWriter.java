@@ -18,6 +18,7 @@ import com.fasterxml.jackson.databind.ser.PropertyFilter;
 import com.fasterxml.jackson.databind.ser.PropertyWriter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.plexobject.encode.EncodingException;
 import com.plexobject.encode.ObjectCodecFilteredWriter;
 
 public class NonFilteringJsonCodecWriter extends SimpleBeanPropertyFilter
@@ -84,7 +85,7 @@ public class NonFilteringJsonCodecWriter extends SimpleBeanPropertyFilter
         try {
             return mapper.writeValueAsString(value);
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to write " + value, e);
+            throw new EncodingException("Failed to write " + value, e);
         }
     }
 
@@ -5,6 +5,7 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 
 import com.plexobject.encode.CodecType;
+import com.plexobject.encode.EncodablePayload;
 import com.plexobject.encode.ObjectCodec;
 import com.plexobject.encode.ObjectCodecFactory;
 import com.plexobject.service.Interceptor;
@@ -43,8 +44,7 @@ public abstract class AbstractResponseDispatcher implements ResponseDispatcher {
         // nothing to send
         Object encodedReply = encode(response);
         // execute output interceptors if available
-        if (outgoingInterceptorsLifecycle != null
-                && outgoingInterceptorsLifecycle.hasOutputInterceptors()) {
+        if (hasOutputInterceptors()) {
             BasePayload payload = response;
             payload.setContents(encodedReply);
             for (Interceptor<BasePayload<Object>> interceptor : outgoingInterceptorsLifecycle
@@ -92,9 +92,27 @@ public abstract class AbstractResponseDispatcher implements ResponseDispatcher {
             throw new IllegalArgumentException("Codec not supported for "
                     + response.getCodecType());
         }
+        // output interceptors work on encoded text so payload can only be
+        // serialized directly into transport buffer without them
+        if (isStreamEncodingSupported() && !hasOutputInterceptors()) {
+            return new EncodablePayload(codec, response.getContentsAs());
+        }
         return codec.encode(response.getContentsAs());
     }
 
+    protected boolean hasOutputInterceptors() {
+        return outgoingInterceptorsLifecycle != null
+                && outgoingInterceptorsLifecycle.hasOutputInterceptors();
+    }
+
+    /**
+     * Subclasses that write to transport buffers can return true so that
+     * encode returns EncodablePayload instead of string
+     */
+    protected boolean isStreamEncodingSupported() {
+        return false;
+    }
+
     protected void doSend(Response response, Object encodedReply) {
 
     }
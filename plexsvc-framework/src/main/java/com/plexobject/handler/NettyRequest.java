@@ -22,9 +22,12 @@ public class NettyRequest extends Request {
             initRemoteAddress();
             initRequestId();
 
-            return new NettyRequest(requestId, protocol, method, requestUri,
-                    endpoint, replyEndpoint, properties, headers, contents,
-                    codecType, responseDispatcher, channelHandlerContext);
+            NettyRequest request = new NettyRequest(requestId, protocol,
+                    method, requestUri, endpoint, replyEndpoint, properties,
+                    headers, contents, codecType, responseDispatcher,
+                    channelHandlerContext);
+            request.setRawContents(rawContents);
+            return request;
         }
 
     }
@@ -1,5 +1,7 @@
 package com.plexobject.handler;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -10,6 +12,7 @@ import com.plexobject.domain.Preconditions;
 import com.plexobject.encode.CodecType;
 import com.plexobject.service.Protocol;
 import com.plexobject.service.RequestMethod;
+import com.plexobject.util.LazyMap;
 
 /**
  * This class encapsulates a request object
@@ -24,6 +27,7 @@ public class Request extends BasePayload<Object> {
         protected long requestId;
         protected Protocol protocol;
         protected Object contents;
+        protected ByteBuffer rawContents;
         protected Map<String, Object> properties = new HashMap<>();
         protected Map<String, Object> headers = new HashMap<>();
         protected RequestMethod method;
@@ -74,6 +78,11 @@ public class Request extends BasePayload<Object> {
             return this;
         }
 
+        public Builder setRawContents(ByteBuffer rawContents) {
+            this.rawContents = rawContents;
+            return this;
+        }
+
         public Builder setResponseDispatcher(ResponseDispatcher dispatcher) {
             this.responseDispatcher = dispatcher;
             return this;
@@ -87,12 +96,22 @@ public class Request extends BasePayload<Object> {
         }
 
         public Builder setProperties(Map<String, Object> properties) {
-            this.properties.putAll(properties);
+            // lazy maps are created for each request so they are used as is
+            // instead of copying all of their entries
+            if (properties instanceof LazyMap && this.properties.isEmpty()) {
+                this.properties = properties;
+            } else {
+                this.properties.putAll(properties);
+            }
             return this;
         }
 
         public Builder setHeaders(Map<String, Object> headers) {
-            this.headers.putAll(headers);
+            if (headers instanceof LazyMap && this.headers.isEmpty()) {
+                this.headers = headers;
+            } else {
+                this.headers.putAll(headers);
+            }
             return this;
         }
 
@@ -130,9 +149,11 @@ public class Request extends BasePayload<Object> {
             if (remoteAddress != null) {
                 properties.put(Constants.REMOTE_ADDRESS, remoteAddress);
             }
-            return new Request(requestId, protocol, method, requestUri,
-                    endpoint, replyEndpoint, properties, headers, contents,
-                    codecType, responseDispatcher);
+            Request request = new Request(requestId, protocol, method,
+                    requestUri, endpoint, replyEndpoint, properties, headers,
+                    contents, codecType, responseDispatcher);
+            request.setRawContents(rawContents);
+            return request;
         }
 
     }
@@ -146,11 +167,13 @@ public class Request extends BasePayload<Object> {
     protected String methodName;
     protected String requestUri;
     protected Object lastSentContents;
+    protected transient ByteBuffer rawContents;
+    private transient boolean rawContentsReleased;
 
     public Request(Request other) {
         this(other.requestId, other.protocol, other.method, other.requestUri,
                 other.endpoint, other.replyEndpoint, other.properties,
-                other.headers, other.contents, other.codecType,
+                other.headers, other.getContents(), other.codecType,
                 other.responseDispatcher);
     }
 
@@ -227,6 +250,15 @@ public class Request extends BasePayload<Object> {
         return responseDispatcher;
     }
 
+    /**
+     * @return true if current contents of response have already been sent
+     */
+    @JsonIgnore
+    public synchronized boolean isResponseSent() {
+        return response.getContents() != null
+                && response.getContents() == lastSentContents;
+    }
+
     public synchronized void sendResponse() {
         if (response.getContents() != null) {
             if (response.getContents() == lastSentContents) {
@@ -279,7 +311,67 @@ public class Request extends BasePayload<Object> {
 
     @SuppressWarnings("unchecked")
     public <T> T getContentsAs() {
-        return (T) contents;
+        return (T) getContents();
+    }
+
+    /**
+     * This method returns contents of the request and converts raw contents
+     * into UTF-8 string if they haven't been decoded yet
+     */
+    @Override
+    public Object getContents() {
+        if (contents == null && rawContents != null) {
+            contents = StandardCharsets.UTF_8.decode(rawContents.duplicate())
+                    .toString();
+            rawContents = null;
+        }
+        return contents;
+    }
+
+    @Override
+    public void setContents(Object obj) {
+        rawContents = null;
+        super.setContents(obj);
+    }
+
+    /**
+     * This method returns raw bytes of the request body that haven't been
+     * converted to string so that codecs can decode them directly. The buffer
+     * may only be valid while the request is being dispatched by the
+     * transport, see releaseRawContents.
+     * 
+     * @return raw contents or null
+     */
+    @JsonIgnore
+    public ByteBuffer getRawContents() {
+        return rawContents;
+    }
+
+    public boolean hasRawContents() {
+        return rawContents != null;
+    }
+
+    public void setRawContents(ByteBuffer rawContents) {
+        this.rawContents = rawContents != null && rawContents.hasRemaining() ? rawContents
+                : null;
+    }
+
+    /**
+     * This method is called before underlying buffer of raw contents is
+     * reused by the transport or when the request is handed to another thread.
+     * Unconsumed raw contents are copied into heap buffer so that request can
+     * be accessed asynchronously.
+     */
+    public void releaseRawContents() {
+        if (rawContentsReleased) {
+            return;
+        }
+        rawContentsReleased = true;
+        if (rawContents != null) {
+            ByteBuffer copy = ByteBuffer.allocate(rawContents.remaining());
+            copy.put(rawContents.duplicate()).flip();
+            rawContents = copy;
+        }
     }
 
     public static Request getCurrentRequest() {
@@ -0,0 +1,29 @@
+package com.plexobject.handler;
+
+import java.io.InputStream;
+
+/**
+ * This interface is implemented by request handlers that enable streaming in
+ * their ServiceConfig. Instead of receiving fully aggregated body, the handler
+ * receives each chunk of the body as it arrives and handle method is invoked
+ * after the last chunk so that it can send the response.
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public interface StreamingRequestHandler extends RequestHandler {
+    /**
+     * This method is invoked for each chunk of request body
+     * 
+     * @param request
+     *            - request without contents
+     * @param chunk
+     *            - input stream over the chunk, which is only valid during
+     *            this call
+     * @param last
+     *            - true if this is the last chunk of the body
+     * @throws Exception
+     */
+    void handleChunk(Request request, InputStream chunk, boolean last)
+            throws Exception;
+}
@@ -1,6 +1,5 @@
 package com.plexobject.handler.ws;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -19,8 +18,6 @@ import com.plexobject.http.HttpResponse;
 import com.plexobject.http.ServiceInvocationException;
 import com.plexobject.service.Interceptor;
 import com.plexobject.service.ServiceRegistry;
-import com.plexobject.util.ReflectUtils;
-import com.plexobject.util.ReflectUtils.ParamType;
 import com.plexobject.util.SameThreadExecutorService;
 
 public class WSDelegateHandler implements RequestHandler {
@@ -130,24 +127,10 @@ public class WSDelegateHandler implements RequestHandler {
             // set method name
             request.setMethodName(methodInfo.iMethod.getName());
             //
-            // make sure you use iMethod to decode because implMethod might
-            // have erased parameterized type
             // We can get input parameters either from JSON text, form/query
             // parameters or method simply takes Map so we just pass all
             // request properties
-            if (methodInfo.hasMultipleParamTypes) {
-                for (int i = 0; i < methodInfo.params.length; i++) {
-                    if (methodInfo.params[i].type == ParamType.MAP_PARAM) {
-                        methodInfo.params[i].defaultValue = request
-                                .getPropertiesAndHeaders();
-                    } else if (methodInfo.params[i].type == ParamType.REQUEST_PARAM) {
-                        methodInfo.params[i].defaultValue = request;
-                    }
-                }
-            }
-            //
-            final Object[] args = ReflectUtils.decode(methodInfo.iMethod,
-                    request.getPropertiesAndHeaders(), methodInfo.params,
+            final Object[] args = methodInfo.invoker.decode(request,
                     methodPayLoadInfo.payload, request.getCodec());
             if (args.length > 0) {
                 request.setContents(args[0]); // Generally, first
@@ -208,31 +191,20 @@ public class WSDelegateHandler implements RequestHandler {
         if (serviceRegistry.getSecurityAuthorizer() != null) {
             serviceRegistry.getSecurityAuthorizer().authorize(request, null);
         }
-        try {
-            Object result = methodInfo.implMethod.invoke(delegate, args);
-            if (logger.isDebugEnabled()) {
-                logger.debug("****PLEXSVC Invoking "
-                        + methodInfo.iMethod.getName() + " with "
-                        + Arrays.toString(args) + ", result " + result);
-            }
-            if (request.getResponse().getContents() == null) {
-                Map<String, Object> response = new HashMap<>();
-                if (result != null) {
-                    response.put(responseTag, result);
-                } else {
-                    response.put(responseTag, null);
-                }
-                //
-                request.getResponse().setContents(response);
-            }
-        } catch (InvocationTargetException invocationTargetException) {
-            Exception e = invocationTargetException;
-            if (e.getCause() instanceof Exception) { // TODO can this be while
-                e = (Exception) e.getCause();
+        Object result = methodInfo.invoker.invoke(delegate, args);
+        if (logger.isDebugEnabled()) {
+            logger.debug("****PLEXSVC Invoking " + methodInfo.iMethod.getName()
+                    + " with " + Arrays.toString(args) + ", result " + result);
+        }
+        if (request.getResponse().getContents() == null) {
+            Map<String, Object> response = new HashMap<>();
+            if (result != null) {
+                response.put(responseTag, result);
+            } else {
+                response.put(responseTag, null);
             }
-            throw e;
-        } catch (Exception e) {
-            throw e;
+            //
+            request.getResponse().setContents(response);
         }
     }
 
@@ -0,0 +1,151 @@
+package com.plexobject.handler.ws;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.domain.Pair;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.handler.Request;
+import com.plexobject.util.ReflectUtils;
+import com.plexobject.util.ReflectUtils.Param;
+import com.plexobject.util.ReflectUtils.ParamType;
+
+/**
+ * This class invokes method of a web service. Parameter types are resolved
+ * once when the method is registered and the method is called through a
+ * method handle instead of reflection. Methods that can't be accessed through
+ * a method handle are invoked reflectively.
+ *
+ * @author shahzad bhatti
+ *
+ */
+class WSMethodInvoker {
+    private static final Logger logger = Logger
+            .getLogger(WSMethodInvoker.class);
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(
+            Object.class, Object.class, Object[].class);
+
+    private final Method method;
+    private final MethodHandle handle;
+    @SuppressWarnings("rawtypes")
+    private final Pair<Class, Type>[] types;
+    private final Param[] params;
+    private final boolean requestScopedParams;
+
+    /**
+     * @param iMethod
+     *            method of web service interface, which is used to decode
+     *            parameters as implementation might have erased parameterized
+     *            types
+     * @param implMethod
+     *            method of the implementation that is invoked
+     * @param params
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    WSMethodInvoker(Method iMethod, Method implMethod, Param[] params) {
+        this.method = implMethod;
+        Class<?>[] parameterTypes = iMethod.getParameterTypes();
+        Type[] genericTypes = iMethod.getGenericParameterTypes();
+        this.types = new Pair[parameterTypes.length];
+        this.params = new Param[parameterTypes.length];
+        boolean requestScopedParams = false;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            types[i] = Pair.of((Class) parameterTypes[i], genericTypes[i]);
+            this.params[i] = params != null && i < params.length
+                    && params[i] != null ? params[i] : new Param(
+                    ParamType.JSON_PARAM, null, null);
+            requestScopedParams |= this.params[i].type == ParamType.MAP_PARAM
+                    || this.params[i].type == ParamType.REQUEST_PARAM;
+        }
+        this.requestScopedParams = requestScopedParams;
+        this.handle = toMethodHandle(implMethod);
+    }
+
+    /**
+     * This method decodes arguments of the method from the request and its
+     * payload
+     *
+     * @param request
+     * @param payload
+     * @param codec
+     * @return arguments
+     * @throws Exception
+     */
+    Object[] decode(Request request, String payload, ObjectCodec codec)
+            throws Exception {
+        Map<String, Object> propsAndHeaders = request.getPropertiesAndHeaders();
+        Param[] args = params;
+        if (requestScopedParams) {
+            // params are shared by all requests so request values are passed
+            // through a copy
+            args = params.clone();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].type == ParamType.MAP_PARAM) {
+                    args[i] = new Param(ParamType.MAP_PARAM, args[i].name,
+                            propsAndHeaders);
+                } else if (args[i].type == ParamType.REQUEST_PARAM) {
+                    args[i] = new Param(ParamType.REQUEST_PARAM,
+                            args[i].name, request);
+                }
+            }
+        }
+        return ReflectUtils.decode(types, propsAndHeaders, args, payload,
+                codec);
+    }
+
+    /**
+     * This method invokes the method and rethrows exception thrown by the
+     * method
+     *
+     * @param target
+     * @param args
+     * @return result of the method
+     * @throws Exception
+     */
+    Object invoke(Object target, Object[] args) throws Exception {
+        if (handle == null) {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+
+    boolean isMethodHandle() {
+        return handle != null;
+    }
+
+    private static MethodHandle toMethodHandle(Method m) {
+        try {
+            if (!m.isAccessible()) {
+                m.setAccessible(true);
+            }
+            return MethodHandles.lookup().unreflect(m)
+                    .asSpreader(Object[].class, m.getParameterTypes().length)
+                    .asType(INVOKER_TYPE);
+        } catch (Exception e) {
+            logger.warn("PLEXSVC Invoking " + m.getName()
+                    + " reflectively because its method handle is not accessible: "
+                    + e);
+            return null;
+        }
+    }
+}
@@ -26,6 +26,7 @@ class WSServiceMethod {
     final Param[] params;
     final String methodPath;
     final boolean hasMultipleParamTypes;
+    final WSMethodInvoker invoker;
 
     static class Builder {
         Method iMethod;
@@ -99,6 +100,7 @@ class WSServiceMethod {
         this.params = params;
         this.methodPath = methodPath;
         this.hasMultipleParamTypes = hasMultipleParamTypes;
+        this.invoker = new WSMethodInvoker(iMethod, implMethod, params);
     }
 
     @Override
@@ -0,0 +1,231 @@
+package com.plexobject.http;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+
+/**
+ * This class logs sampled requests received by web containers. Request
+ * threads only add an entry to a bounded ring buffer, which is drained by a
+ * background thread that formats and writes entries to the PLEXSVC.access
+ * logger so that logging adds negligible latency at high throughput. Entries
+ * are dropped when the buffer is full. HTTP requests are logged when their
+ * response is sent so that entries include status and latency. Access log is
+ * disabled unless accessLog.samplePercent is specified. Containers stop the
+ * background thread by calling stop when they are stopped.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class AccessLog {
+    public enum Format {
+        TEXT, JSON
+    }
+
+    private static final Logger logger = Logger.getLogger(AccessLog.class);
+    private static final Logger accessLogger = Logger
+            .getLogger("PLEXSVC.access");
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static class Entry {
+        private final long timestamp = System.currentTimeMillis();
+        private final Protocol protocol;
+        private final RequestMethod method;
+        private final String uri;
+        private final String remoteAddress;
+        private final int contentLength;
+        private final int status;
+        private final long latencyMillis;
+
+        private Entry(Protocol protocol, RequestMethod method, String uri,
+                String remoteAddress, int contentLength, int status,
+                long latencyMillis) {
+            this.protocol = protocol;
+            this.method = method;
+            this.uri = uri;
+            this.remoteAddress = remoteAddress;
+            this.contentLength = contentLength;
+            this.status = status;
+            this.latencyMillis = latencyMillis;
+        }
+    }
+
+    private final double threshold;
+    private final Format format;
+    private final BlockingQueue<Entry> entries;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread writer;
+    private volatile boolean stopped;
+
+    public AccessLog(Configuration config) {
+        this(config.getDouble(Constants.ACCESS_LOG_SAMPLE_PERCENT, 0), Format
+                .valueOf(config.getProperty(Constants.ACCESS_LOG_FORMAT,
+                        Format.TEXT.name()).toUpperCase()), config.getInteger(
+                Constants.ACCESS_LOG_BUFFER_SIZE, 8192));
+    }
+
+    public AccessLog(double samplePercent, Format format, int bufferSize) {
+        this.threshold = samplePercent / 100;
+        this.format = format;
+        this.entries = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+    }
+
+    /**
+     * This method selects requests that are logged, callers should check it
+     * before building arguments of the log method
+     *
+     * @return true if request should be logged
+     */
+    public boolean isSampled() {
+        return threshold >= 1 || threshold > 0
+                && ThreadLocalRandom.current().nextDouble() < threshold;
+    }
+
+    /**
+     * This method adds request without response such as websocket message to
+     * the buffer without blocking
+     *
+     * @param protocol
+     * @param method
+     * @param uri
+     * @param remoteAddress
+     * @param contentLength
+     */
+    public void log(Protocol protocol, RequestMethod method, String uri,
+            Object remoteAddress, int contentLength) {
+        log(protocol, method, uri, remoteAddress, contentLength, 0, -1);
+    }
+
+    /**
+     * This method adds request to the buffer without blocking after its
+     * response is sent
+     *
+     * @param protocol
+     * @param method
+     * @param uri
+     * @param remoteAddress
+     * @param contentLength
+     * @param status
+     * @param latencyMillis
+     */
+    public void log(Protocol protocol, RequestMethod method, String uri,
+            Object remoteAddress, int contentLength, int status,
+            long latencyMillis) {
+        if (stopped) {
+            return;
+        }
+        if (writer == null) {
+            startWriter();
+        }
+        if (!entries.offer(new Entry(protocol, method, uri,
+                remoteAddress != null ? remoteAddress.toString() : null,
+                contentLength, status, latencyMillis))) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * This method allows logging again after the container is restarted
+     */
+    public void start() {
+        stopped = false;
+    }
+
+    /**
+     * This method writes buffered entries and stops the background thread,
+     * requests are not logged until start is called
+     */
+    public synchronized void stop() {
+        stopped = true;
+        Thread t = writer;
+        if (t == null) {
+            return;
+        }
+        writer = null;
+        t.interrupt();
+        try {
+            t.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    private String format(Entry entry, SimpleDateFormat dateFormat) {
+        String time = dateFormat.format(new Date(entry.timestamp));
+        if (format == Format.JSON) {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("time", time);
+            json.put("protocol", entry.protocol);
+            json.put("method", entry.method);
+            json.put("uri", entry.uri);
+            json.put("remoteAddress", entry.remoteAddress);
+            json.put("contentLength", entry.contentLength);
+            if (entry.status > 0) {
+                json.put("status", entry.status);
+                json.put("latencyMillis", entry.latencyMillis);
+            }
+            try {
+                return mapper.writeValueAsString(json);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        String line = time + " " + entry.protocol + " " + entry.method + " "
+                + entry.uri + " " + entry.remoteAddress + " "
+                + entry.contentLength;
+        return entry.status > 0 ? line + " " + entry.status + " "
+                + entry.latencyMillis + "ms" : line;
+    }
+
+    private synchronized void startWriter() {
+        if (writer != null || stopped) {
+            return;
+        }
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                SimpleDateFormat dateFormat = new SimpleDateFormat(
+                        "yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+                while (true) {
+                    try {
+                        write(entries.take(), dateFormat);
+                    } catch (InterruptedException e) {
+                        // entries added before stop are still written
+                        Entry entry;
+                        while ((entry = entries.poll()) != null) {
+                            write(entry, dateFormat);
+                        }
+                        return;
+                    }
+                }
+            }
+        }, "plexsvc-access-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private void write(Entry entry, SimpleDateFormat dateFormat) {
+        try {
+            accessLogger.info(format(entry, dateFormat));
+        } catch (Exception e) {
+            logger.warn("PLEXSVC Failed to write access log", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.plexobject.http;
+
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+
+/**
+ * This interface is implemented by request handlers that can execute the
+ * target service on executor defined by its execution mode. It's used by
+ * containers that can send response after the request is dispatched.
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public interface AsyncRequestHandler extends RequestHandler {
+    /**
+     * This method handles the request, which may complete after this method
+     * returns
+     * 
+     * @param request
+     */
+    void handleAsync(Request request);
+}
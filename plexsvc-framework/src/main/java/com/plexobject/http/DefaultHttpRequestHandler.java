@@ -1,14 +1,18 @@
 package com.plexobject.http;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 
 import com.plexobject.encode.CodecType;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.route.RouteMatch;
 import com.plexobject.route.RouteResolver;
 import com.plexobject.service.RequestMethod;
+import com.plexobject.service.ServiceConfigDesc;
 import com.plexobject.service.ServiceRegistry;
 
 /**
@@ -17,11 +21,14 @@ import com.plexobject.service.ServiceRegistry;
  * @author shahzad bhatti
  *
  */
-public class DefaultHttpRequestHandler implements RequestHandler {
+public class DefaultHttpRequestHandler implements AsyncRequestHandler,
+        StreamingRequestResolver {
     private static final Logger logger = Logger
             .getLogger(DefaultHttpRequestHandler.class);
+    static final String NOT_FOUND = "Not Found";
     private final Map<RequestMethod, RouteResolver<RequestHandler>> requestHandlerPathsByMethod;
     private final ServiceRegistry serviceRegistry;
+    private final AtomicInteger streamingHandlers = new AtomicInteger();
 
     public DefaultHttpRequestHandler(
             final ServiceRegistry serviceRegistry,
@@ -32,27 +39,92 @@ public class DefaultHttpRequestHandler implements RequestHandler {
 
     @Override
     public void handle(Request request) {
+        RequestHandler handler = getHandler(request);
+        if (handler != null) {
+            serviceRegistry.invoke(request, handler);
+        }
+    }
+
+    @Override
+    public void handleAsync(Request request) {
+        RequestHandler handler = getHandler(request);
+        if (handler != null) {
+            serviceRegistry.dispatch(request, handler);
+        }
+    }
+
+    /**
+     * This method is called by the container when a handler is added
+     * 
+     * @param handler
+     * @param config
+     */
+    void onHandlerAdded(RequestHandler handler, ServiceConfigDesc config) {
+        if (isStreaming(handler, config)) {
+            streamingHandlers.incrementAndGet();
+        }
+    }
+
+    /**
+     * This method is called by the container when a handler is removed
+     * 
+     * @param handler
+     * @param config
+     */
+    void onHandlerRemoved(RequestHandler handler, ServiceConfigDesc config) {
+        if (isStreaming(handler, config)) {
+            streamingHandlers.decrementAndGet();
+        }
+    }
+
+    private static boolean isStreaming(RequestHandler handler,
+            ServiceConfigDesc config) {
+        return handler instanceof StreamingRequestHandler && config != null
+                && config.streaming();
+    }
+
+    private RequestHandler getHandler(Request request) {
         RouteResolver<RequestHandler> requestHandlerPaths = requestHandlerPathsByMethod
                 .get(request.getMethod());
         RequestHandler handler = requestHandlerPaths != null ? requestHandlerPaths
                 .get(request.getEndpoint(), request.getProperties()) : null;
         if (handler == null) {
+            // unknown paths are common from scanners so response is constant
+            // and payload of the request is not logged
             request.getResponse().setCodecType(CodecType.TEXT);
             request.getResponse().setStatusCode(HttpResponse.SC_NOT_FOUND);
-            request.getResponse().setStatusMessage(
-                    "Unknown request received payload " + request);
-            request.getResponse().setContents(
-                    "Unknown request received payload " + request);
+            request.getResponse().setStatusMessage(NOT_FOUND);
+            request.getResponse().setContents(NOT_FOUND);
             request.sendResponse();
-            logger.error("PLEXSVC Unknown request '"
-                    + request.getEndpoint()
-                    + ", received payload "
-                    + request
-                    + ", available requestHandlerPaths "
-                    + (requestHandlerPaths != null ? requestHandlerPaths
-                            : requestHandlerPathsByMethod));
-            return;
+            if (logger.isDebugEnabled()) {
+                logger.debug("PLEXSVC Unknown request " + request.getMethod()
+                        + " " + request.getEndpoint());
+            }
+        }
+        return handler;
+    }
+
+    @Override
+    public boolean hasStreamingHandlers() {
+        return streamingHandlers.get() > 0;
+    }
+
+    @Override
+    public StreamingRequestHandler getStreamingHandler(RequestMethod method,
+            String endpoint, RouteMatch match) {
+        if (!hasStreamingHandlers()) {
+            return null;
+        }
+        RouteResolver<RequestHandler> requestHandlerPaths = requestHandlerPathsByMethod
+                .get(method);
+        RequestHandler handler = requestHandlerPaths != null ? requestHandlerPaths
+                .get(endpoint, match) : null;
+        if (handler instanceof StreamingRequestHandler) {
+            ServiceConfigDesc config = serviceRegistry.getServiceConfig(handler);
+            if (config != null && config.streaming()) {
+                return (StreamingRequestHandler) handler;
+            }
         }
-        serviceRegistry.invoke(request, handler);
+        return null;
     }
 }
@@ -23,14 +23,32 @@ import com.plexobject.service.impl.AbstractServiceContainer;
 public class DefaultWebServiceContainer extends AbstractServiceContainer {
     private final Map<RequestMethod, RouteResolver<RequestHandler>> requestHandlerEndpointsByMethod;
     private final Lifecycle server;
+    private final DefaultHttpRequestHandler httpRequestHandler;
 
     public DefaultWebServiceContainer(
             final ServiceRegistry serviceRegistry,
             final Map<RequestMethod, RouteResolver<RequestHandler>> requestHandlerEndpointsByMethod,
             final Lifecycle server) {
+        this(serviceRegistry, requestHandlerEndpointsByMethod, server, null);
+    }
+
+    /**
+     * @param serviceRegistry
+     * @param requestHandlerEndpointsByMethod
+     * @param server
+     * @param httpRequestHandler
+     *            - handler of the server that is notified when handlers are
+     *            added or removed
+     */
+    public DefaultWebServiceContainer(
+            final ServiceRegistry serviceRegistry,
+            final Map<RequestMethod, RouteResolver<RequestHandler>> requestHandlerEndpointsByMethod,
+            final Lifecycle server,
+            final DefaultHttpRequestHandler httpRequestHandler) {
         super(serviceRegistry);
         this.requestHandlerEndpointsByMethod = requestHandlerEndpointsByMethod;
         this.server = server;
+        this.httpRequestHandler = httpRequestHandler;
     }
 
     @Override
@@ -66,6 +84,9 @@ public class DefaultWebServiceContainer extends AbstractServiceContainer {
                 .method());
         //
         requestHandlerEndpoints.put(endpoint, handler);
+        if (httpRequestHandler != null) {
+            httpRequestHandler.onHandlerAdded(handler, config);
+        }
         if (handler instanceof LifecycleAware) {
             ((LifecycleAware) handler).onCreated();
         }
@@ -95,6 +116,9 @@ public class DefaultWebServiceContainer extends AbstractServiceContainer {
         if (requestHandlerEndpoints != null) {
             String endpoint = getEndpoint(handler, config);
             removed = requestHandlerEndpoints.remove(endpoint);
+            if (removed && httpRequestHandler != null) {
+                httpRequestHandler.onHandlerRemoved(handler, config);
+            }
             if (removed && handler instanceof LifecycleAware) {
                 ((LifecycleAware) handler).onDestroyed();
                 logger.info("PLEXSVC Removing service handler " + handler);
@@ -6,6 +6,7 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 
 import com.plexobject.domain.Constants;
+import com.plexobject.encode.EncodingException;
 import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.Response;
 
@@ -70,9 +71,16 @@ public class HttpResponseDispatcher extends AbstractResponseDispatcher {
 
             response.send(encodedReply);
             handledable.setHandled(true);
+        } catch (EncodingException e) {
+            // nothing is written yet so caller can still send an error
+            logger.error("PLEXSVC Failed to encode " + encodedReply + ", "
+                    + this, e);
+            throw e;
         } catch (Exception e) {
             logger.error("PLEXSVC Failed to write " + encodedReply + ", "
                     + this, e);
+            // connection can't be reused after a partial response
+            handledable.setHandled(false);
         }
     }
 
@@ -0,0 +1,32 @@
+package com.plexobject.http;
+
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.route.RouteMatch;
+import com.plexobject.service.RequestMethod;
+
+/**
+ * This interface looks up handler that accepts streaming request body for
+ * given method and endpoint
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public interface StreamingRequestResolver {
+    /**
+     * @return true if any streaming handler is registered so that requests
+     *         don't need to be routed when there is none
+     */
+    boolean hasStreamingHandlers();
+
+    /**
+     * @param method
+     * @param endpoint
+     * @param match
+     *            - receives path parameters of the route, which can be reused
+     *            by the caller
+     * @return streaming handler for the endpoint or null if the request should
+     *         be aggregated
+     */
+    StreamingRequestHandler getStreamingHandler(RequestMethod method,
+            String endpoint, RouteMatch match);
+}
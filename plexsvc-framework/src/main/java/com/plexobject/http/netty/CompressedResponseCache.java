@@ -0,0 +1,151 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+/**
+ * This class keeps compressed bytes of the most recent responses of idempotent
+ * GET requests so that unchanged responses are not compressed again. Instead
+ * of a copy of the uncompressed response, each entry keeps its length and
+ * 128-bit murmur3 digest, which must match before the cached bytes are
+ * reused. A cryptographic digest would cost as much as compressing again. The
+ * cache is bounded by total size of its entries and least recently used
+ * entries are evicted first. This class is shared by all channels.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class CompressedResponseCache {
+    // approximate size of an entry besides its key and compressed bytes
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final HashFunction DIGEST = Hashing.murmur3_128();
+    private static final ThreadLocal<byte[]> chunks = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
+    private static class Entry {
+        private final int length;
+        private final byte[] digest;
+        private final byte[] compressed;
+        private final long size;
+
+        private Entry(String key, int length, byte[] digest, byte[] compressed) {
+            this.length = length;
+            this.digest = digest;
+            this.compressed = compressed;
+            this.size = ENTRY_OVERHEAD + 2L * key.length() + digest.length
+                    + compressed.length;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(
+            16, 0.75f, true);
+    private final long maxBytes;
+    private long totalBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CompressedResponseCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * This method returns compressed bytes of given content if it was
+     * compressed before for the same uri and encoding
+     *
+     * @param key
+     * @param content
+     * @return compressed bytes or null
+     */
+    public byte[] get(String key, ByteBuf content) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.length == content.readableBytes()
+                && Arrays.equals(entry.digest, digest(content))) {
+            hits.incrementAndGet();
+            return entry.compressed;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String key, ByteBuf content, byte[] compressed) {
+        Entry entry = new Entry(key, content.readableBytes(), digest(content),
+                compressed);
+        if (entry.size > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry old = entries.put(key, entry);
+            if (old != null) {
+                totalBytes -= old.size;
+            }
+            totalBytes += entry.size;
+            Iterator<Entry> it = entries.values().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                totalBytes -= it.next().size;
+                it.remove();
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * This method returns approximate number of bytes kept by the cache
+     *
+     * @return total size of entries
+     */
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    private static byte[] digest(ByteBuf content) {
+        Hasher hasher = DIGEST.newHasher();
+        int offset = content.readerIndex();
+        int remaining = content.readableBytes();
+        if (content.hasArray()) {
+            hasher.putBytes(content.array(), content.arrayOffset() + offset,
+                    remaining);
+        } else {
+            // direct buffers are read in chunks
+            byte[] chunk = chunks.get();
+            while (remaining > 0) {
+                int n = Math.min(chunk.length, remaining);
+                content.getBytes(offset, chunk, 0, n);
+                hasher.putBytes(chunk, 0, n);
+                offset += n;
+                remaining -= n;
+            }
+        }
+        return hasher.hash().asBytes();
+    }
+}
@@ -0,0 +1,182 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class compresses http responses using gzip or deflate based on
+ * Accept-Encoding header of the request. Responses smaller than the threshold
+ * are sent as is because compressing them costs more CPU than it saves in
+ * bandwidth. Compressed responses of GET requests are kept in the cache (if
+ * specified) so that the same response is not compressed again. This class
+ * is not sharable and a new instance is created for each channel.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class HttpCompressionHandler extends ChannelDuplexHandler {
+    static final String GZIP = "gzip";
+    static final String DEFLATE = "deflate";
+
+    private static class RequestInfo {
+        private final String encoding;
+        private final String cacheKey;
+
+        private RequestInfo(String encoding, String cacheKey) {
+            this.encoding = encoding;
+            this.cacheKey = cacheKey;
+        }
+    }
+
+    private final int threshold;
+    private final CompressedResponseCache cache;
+    // pipelined requests are responded in the same order
+    private final Queue<RequestInfo> requests = new ArrayDeque<>();
+
+    public HttpCompressionHandler(final int threshold,
+            final CompressedResponseCache cache) {
+        this.threshold = threshold;
+        this.cache = cache;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg)
+            throws Exception {
+        if (msg instanceof HttpRequest) {
+            HttpRequest req = (HttpRequest) msg;
+            String encoding = selectEncoding(req.headers().get(
+                    HttpHeaders.Names.ACCEPT_ENCODING));
+            String cacheKey = cache != null && encoding != null
+                    && req.getMethod() == HttpMethod.GET ? encoding + " "
+                    + req.getUri() : null;
+            requests.add(new RequestInfo(encoding, cacheKey));
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg,
+            ChannelPromise promise) throws Exception {
+        if (msg instanceof HttpResponse
+                && ((HttpResponse) msg).getStatus().code() != 100) {
+            RequestInfo info = requests.poll();
+            if (info != null && info.encoding != null
+                    && msg instanceof FullHttpResponse
+                    && isCompressible((FullHttpResponse) msg)) {
+                msg = compress((FullHttpResponse) msg, info);
+            }
+        }
+        ctx.write(msg, promise);
+    }
+
+    private boolean isCompressible(FullHttpResponse res) {
+        int status = res.getStatus().code();
+        return status >= 200 && status < 300 && status != 204
+                && res.content().readableBytes() >= threshold
+                && !res.headers().contains(HttpHeaders.Names.CONTENT_ENCODING);
+    }
+
+    private FullHttpResponse compress(FullHttpResponse res, RequestInfo info)
+            throws IOException {
+        String cacheKey = res.getStatus().code() == 200 ? info.cacheKey : null;
+        byte[] compressed = cacheKey != null ? cache.get(cacheKey,
+                res.content()) : null;
+        if (compressed == null) {
+            compressed = compress(res.content(), info.encoding);
+            if (cacheKey != null) {
+                cache.put(cacheKey, res.content(), compressed);
+            }
+        }
+        FullHttpResponse compressedRes = new DefaultFullHttpResponse(
+                res.getProtocolVersion(), res.getStatus(),
+                Unpooled.wrappedBuffer(compressed));
+        compressedRes.headers().set(res.headers());
+        compressedRes.headers().set(HttpHeaders.Names.CONTENT_ENCODING,
+                info.encoding);
+        compressedRes.headers().set(HttpHeaders.Names.CONTENT_LENGTH,
+                compressed.length);
+        compressedRes.headers().add(HttpHeaders.Names.VARY,
+                HttpHeaders.Names.ACCEPT_ENCODING);
+        res.release();
+        return compressedRes;
+    }
+
+    static byte[] compress(ByteBuf content, String encoding)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                content.readableBytes() / 4 + 64);
+        DeflaterOutputStream out = GZIP.equals(encoding) ? new GZIPOutputStream(
+                bytes) : new DeflaterOutputStream(bytes);
+        try {
+            content.getBytes(content.readerIndex(), out,
+                    content.readableBytes());
+        } finally {
+            out.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * This method selects gzip or deflate using quality values of
+     * Accept-Encoding header
+     *
+     * @param acceptEncoding
+     * @return encoding or null if response should not be compressed
+     */
+    static String selectEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        float gzipQ = -1.0f;
+        float deflateQ = -1.0f;
+        float starQ = -1.0f;
+        for (String encoding : acceptEncoding.split(",")) {
+            float q = 1.0f;
+            int n = encoding.indexOf('=');
+            if (n != -1) {
+                try {
+                    q = Float.parseFloat(encoding.substring(n + 1).trim());
+                } catch (NumberFormatException e) {
+                    q = 0.0f;
+                }
+            }
+            n = encoding.indexOf(';');
+            String name = (n != -1 ? encoding.substring(0, n) : encoding)
+                    .trim().toLowerCase();
+            if (name.equals(GZIP)) {
+                gzipQ = q;
+            } else if (name.equals(DEFLATE)) {
+                deflateQ = q;
+            } else if (name.equals("*")) {
+                starQ = q;
+            }
+        }
+        if (gzipQ > 0.0f || deflateQ > 0.0f) {
+            return gzipQ >= deflateQ ? GZIP : DEFLATE;
+        }
+        if (starQ > 0.0f) {
+            if (gzipQ == -1.0f) {
+                return GZIP;
+            } else if (deflateQ == -1.0f) {
+                return DEFLATE;
+            }
+        }
+        return null;
+    }
+}
@@ -1,28 +1,46 @@
 package com.plexobject.http.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.util.SelfSignedCertificate;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.concurrent.GlobalEventExecutor;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 
 import com.plexobject.domain.Configuration;
 import com.plexobject.domain.Constants;
+import com.plexobject.http.StreamingRequestResolver;
 import com.plexobject.service.Lifecycle;
 
 /**
@@ -39,35 +57,122 @@ public class NettyHttpServer implements Lifecycle {
             ChannelInitializer<SocketChannel> {
         private final SslContext sslCtx;
         private final ChannelInboundHandlerAdapter handler;
+        private final int maxContentLength;
+        private final int idleTimeoutSecs;
+        private final boolean compression;
+        private final int compressionThreshold;
+        private final CompressedResponseCache compressedResponseCache;
+        private final StreamingRequestResolver streamingResolver;
+        private final ChannelGroup connections;
+        private final int writeBufferHighWaterMark;
+        private final int writeBufferLowWaterMark;
+        private final SlowConsumerPolicy slowConsumerPolicy;
+        private final int slowConsumerQueueSize;
 
         public NettyServerInitializer(final SslContext sslCtx,
-                final ChannelInboundHandlerAdapter handler) {
+                final ChannelInboundHandlerAdapter handler,
+                final Configuration config, final ChannelGroup connections) {
             this.sslCtx = sslCtx;
+            this.connections = connections;
             this.handler = handler;
+            this.maxContentLength = config.getInteger(
+                    Constants.HTTP_MAX_CONTENT_LENGTH, 65536);
+            this.idleTimeoutSecs = config.getInteger(
+                    Constants.HTTP_IDLE_TIMEOUT_SECS, 0);
+            this.compression = config.getBoolean(Constants.HTTP_COMPRESSION);
+            this.compressionThreshold = config.getInteger(
+                    Constants.HTTP_COMPRESSION_THRESHOLD, 1024);
+            int cacheBytes = config.getInteger(
+                    Constants.HTTP_COMPRESSION_CACHE_BYTES, 1024 * 1024);
+            this.compressedResponseCache = compression && cacheBytes > 0 ? new CompressedResponseCache(
+                    cacheBytes) : null;
+            this.writeBufferHighWaterMark = config.getInteger(
+                    Constants.HTTP_WRITE_BUFFER_HIGH_WATER_MARK, 0);
+            this.writeBufferLowWaterMark = config.getInteger(
+                    Constants.HTTP_WRITE_BUFFER_LOW_WATER_MARK, 0);
+            String policy = config
+                    .getProperty(Constants.WEBSOCKET_SLOW_CONSUMER_POLICY);
+            this.slowConsumerPolicy = policy != null ? SlowConsumerPolicy
+                    .valueOf(policy.toUpperCase()) : null;
+            this.slowConsumerQueueSize = config.getInteger(
+                    Constants.WEBSOCKET_SLOW_CONSUMER_QUEUE_SIZE, 1000);
+            this.streamingResolver = handler instanceof NettyWebRequestHandler ? ((NettyWebRequestHandler) handler)
+                    .getStreamingRequestResolver() : null;
         }
 
         @Override
         public void initChannel(SocketChannel ch) {
+            // persistent connections are closed when the server is stopped
+            connections.add(ch);
+            setWaterMarks(ch.config());
             ChannelPipeline p = ch.pipeline();
             if (sslCtx != null) {
                 p.addLast(sslCtx.newHandler(ch.alloc()));
             }
+            if (idleTimeoutSecs > 0) {
+                // closes persistent connections that are not reused
+                p.addLast(new IdleStateHandler(0, 0, idleTimeoutSecs));
+                p.addLast(new ChannelDuplexHandler() {
+                    @Override
+                    public void userEventTriggered(ChannelHandlerContext ctx,
+                            Object evt) throws Exception {
+                        if (evt instanceof IdleStateEvent) {
+                            ctx.close();
+                        } else {
+                            super.userEventTriggered(ctx, evt);
+                        }
+                    }
+                });
+            }
             p.addLast(new HttpServerCodec());
-            p.addLast(new HttpObjectAggregator(65536));
+            if (compression) {
+                p.addLast(new HttpCompressionHandler(compressionThreshold,
+                        compressedResponseCache));
+            }
+            p.addLast(new StreamingHttpObjectAggregator(maxContentLength,
+                    streamingResolver));
+            if (slowConsumerPolicy != null) {
+                p.addLast(new SlowConsumerHandler(slowConsumerPolicy,
+                        slowConsumerQueueSize));
+            }
             p.addLast(handler);
         }
+
+        private void setWaterMarks(ChannelConfig channelConfig) {
+            if (writeBufferHighWaterMark <= 0 && writeBufferLowWaterMark <= 0) {
+                return;
+            }
+            int high = writeBufferHighWaterMark > 0 ? writeBufferHighWaterMark
+                    : channelConfig.getWriteBufferHighWaterMark();
+            int low = writeBufferLowWaterMark > 0 ? writeBufferLowWaterMark
+                    : Math.min(high, channelConfig.getWriteBufferLowWaterMark());
+            // netty rejects high water mark below current low water mark
+            if (high >= channelConfig.getWriteBufferLowWaterMark()) {
+                channelConfig.setWriteBufferHighWaterMark(high);
+                channelConfig.setWriteBufferLowWaterMark(low);
+            } else {
+                channelConfig.setWriteBufferLowWaterMark(low);
+                channelConfig.setWriteBufferHighWaterMark(high);
+            }
+        }
     }
 
-    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-    private final EventLoopGroup workerGroup = new NioEventLoopGroup();
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
 
     private final Configuration config;
+    private final ChannelInboundHandlerAdapter handler;
     private final ServerBootstrap bootstrap;
-    private Channel channel;
+    private final TransportType transportType;
+    private final int acceptors;
+    private final List<Channel> channels = new ArrayList<>();
+    private final ChannelGroup connections = new DefaultChannelGroup(
+            GlobalEventExecutor.INSTANCE);
 
     public NettyHttpServer(Configuration config,
             ChannelInboundHandlerAdapter handler) {
         this.config = config;
+        this.handler = handler;
 
         String certPath = config.getProperty(Constants.SSL_CERT_FILE);
         String keyFilePath = config.getProperty(Constants.SSL_KEY_FILE);
@@ -106,41 +211,111 @@ public class NettyHttpServer implements Lifecycle {
                 throw new RuntimeException(e);
             }
         }
+        transportType = getTransportType(config);
+        int workerThreads = config.getInteger(Constants.HTTP_WORKER_THREADS,
+                0);
         bootstrap = new ServerBootstrap();
         bootstrap.option(ChannelOption.SO_BACKLOG, 1024);
+        if (transportType == TransportType.EPOLL) {
+            // with SO_REUSEPORT, kernel balances incoming connections between
+            // multiple server sockets bound to the same port so we bind one
+            // acceptor per event loop
+            acceptors = Math.max(1, config.getInteger(
+                    Constants.HTTP_ACCEPTOR_THREADS, Runtime.getRuntime()
+                            .availableProcessors()));
+            bossGroup = new EpollEventLoopGroup(acceptors);
+            workerGroup = new EpollEventLoopGroup(workerThreads);
+            bootstrap.channel(EpollServerSocketChannel.class)
+                    .option(EpollChannelOption.SO_REUSEPORT, true)
+                    .childOption(EpollChannelOption.EPOLL_MODE,
+                            EpollMode.EDGE_TRIGGERED);
+        } else {
+            acceptors = 1;
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(workerThreads);
+            bootstrap.channel(NioServerSocketChannel.class);
+        }
         bootstrap.group(bossGroup, workerGroup)
-                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.ALLOCATOR,
+                        PooledByteBufAllocator.DEFAULT)
                 .handler(new LoggingHandler(LogLevel.INFO))
-                .childHandler(new NettyServerInitializer(sslCtx, handler));
+                .childHandler(
+                        new NettyServerInitializer(sslCtx, handler, config,
+                                connections));
+    }
+
+    public TransportType getTransportType() {
+        return transportType;
+    }
+
+    /**
+     * This method returns bytes waiting to be written for each connection
+     * that has pending writes, which can be used to find slow consumers
+     *
+     * @return map of remote address and buffered bytes
+     */
+    public Map<String, Long> getBufferedBytes() {
+        Map<String, Long> result = new HashMap<>();
+        for (Channel ch : connections) {
+            long bytes = SlowConsumerHandler.getBufferedBytes(ch);
+            if (bytes > 0) {
+                result.put(String.valueOf(ch.remoteAddress()), bytes);
+            }
+        }
+        return result;
+    }
+
+    private static TransportType getTransportType(Configuration config) {
+        TransportType type = TransportType.valueOf(config.getProperty(
+                Constants.HTTP_TRANSPORT, TransportType.NIO.name())
+                .toUpperCase());
+        if (type == TransportType.EPOLL && !Epoll.isAvailable()) {
+            logger.warn(
+                    "PLEXSVC Native epoll transport is not available, falling back to NIO",
+                    Epoll.unavailabilityCause());
+            type = TransportType.NIO;
+        }
+        return type;
     }
 
     @Override
     public synchronized void start() {
-        if (channel != null) {
+        if (channels.size() > 0) {
             return;
         }
         int httpPort = config.getInteger(Constants.HTTP_PORT,
                 Constants.DEFAULT_HTTP_PORT);
+        if (handler instanceof NettyWebRequestHandler) {
+            ((NettyWebRequestHandler) handler).start();
+        }
 
         try {
-            logger.info("PLEXSVC Starting web server on " + httpPort);
-            channel = bootstrap.bind(httpPort).sync().channel();
+            logger.info("PLEXSVC Starting web server on " + httpPort
+                    + " using " + transportType + " transport with "
+                    + acceptors + " acceptors");
+            for (int i = 0; i < acceptors; i++) {
+                channels.add(bootstrap.bind(httpPort).sync().channel());
+            }
             // ch.closeFuture().sync(); // Wait until the server socket is
             // closed
         } catch (Exception e) {
+            // release acceptors that were bound so that server can be
+            // started again
+            for (Channel channel : channels) {
+                channel.close().awaitUninterruptibly();
+            }
+            channels.clear();
             throw new RuntimeException(e);
         }
     }
 
     @Override
     public synchronized void stop() {
-        if (channel == null) {
+        if (channels.size() == 0) {
             return;
         }
         try {
-            channel.close().sync();
-
-            channel = null;
+            closeChannels();
             logger.info("PLEXSVC Stopped HTTP server");
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -149,14 +324,12 @@ public class NettyHttpServer implements Lifecycle {
 
     @Override
     public synchronized boolean isRunning() {
-        return channel != null;
+        return channels.size() > 0;
     }
 
-    public void destroy() {
+    public synchronized void destroy() {
         try {
-            if (channel != null) {
-                channel.close().sync();
-            }
+            closeChannels();
             workerGroup.shutdownGracefully();
             bossGroup.shutdownGracefully();
             logger.info("PLEXSVC Destroyed HTTP server");
@@ -164,4 +337,16 @@ public class NettyHttpServer implements Lifecycle {
             throw new RuntimeException(e);
         }
     }
+
+    private void closeChannels() throws InterruptedException {
+        for (Channel channel : channels) {
+            channel.close().sync();
+        }
+        channels.clear();
+        connections.close().awaitUninterruptibly();
+        // stops background thread of the access log
+        if (handler instanceof NettyWebRequestHandler) {
+            ((NettyWebRequestHandler) handler).stop();
+        }
+    }
 }
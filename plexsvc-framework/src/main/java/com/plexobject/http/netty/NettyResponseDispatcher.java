@@ -4,6 +4,9 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.SET_COOKIE;
 import static io.netty.handler.codec.http.HttpResponseStatus.FOUND;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -20,6 +23,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.plexobject.encode.EncodablePayload;
 import com.plexobject.http.Handledable;
 import com.plexobject.http.HttpResponse;
 import com.plexobject.http.HttpResponseDispatcher;
@@ -30,6 +34,36 @@ public class NettyResponseDispatcher extends HttpResponseDispatcher {
         super(handledable, getHttpResponse(request, ctx));
     }
 
+    @Override
+    protected boolean isStreamEncodingSupported() {
+        return true;
+    }
+
+    /**
+     * This method writes encoded payload into a buffer from channel's
+     * allocator, payloads that are not encoded yet are serialized directly
+     * into the buffer
+     */
+    static ByteBuf toByteBuf(ByteBufAllocator alloc, Object encoded) {
+        if (encoded instanceof String) {
+            return ByteBufUtil.writeUtf8(alloc, (String) encoded);
+        } else if (encoded instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) encoded);
+        } else if (encoded instanceof EncodablePayload) {
+            ByteBuf buffer = alloc.ioBuffer();
+            try {
+                ((EncodablePayload) encoded).writeTo(new ByteBufOutputStream(
+                        buffer));
+                return buffer;
+            } catch (RuntimeException e) {
+                buffer.release();
+                throw e;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Unknown encoded payload for response " + encoded);
+    }
+
     private static HttpResponse getHttpResponse(final HttpRequest request,
             final ChannelHandlerContext ctx) {
         final boolean keepAlive = HttpHeaders.isKeepAlive(request);
@@ -82,16 +116,7 @@ public class NettyResponseDispatcher extends HttpResponseDispatcher {
                 if (location != null || errorMessage != null) {
                     return;
                 }
-                ByteBuf buffer = null;
-                if (contents instanceof String) {
-                    buffer = Unpooled.copiedBuffer((String) contents,
-                            CharsetUtil.UTF_8);
-                } else if (contents instanceof byte[]) {
-                    buffer = Unpooled.copiedBuffer((byte[]) contents);
-                } else {
-                    throw new IllegalArgumentException(
-                            "Unknown encoded payload for response " + contents);
-                }
+                ByteBuf buffer = toByteBuf(ctx.alloc(), contents);
                 FullHttpResponse response = new DefaultFullHttpResponse(
                         HTTP_1_1, HttpResponseStatus.valueOf(status), buffer);
                 response.headers().set(CONTENT_LENGTH,
@@ -3,7 +3,9 @@ package com.plexobject.http.netty;
 import io.netty.channel.SimpleChannelInboundHandler;
 
 import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.http.AccessLog;
 import com.plexobject.http.WebContainerProvider;
 import com.plexobject.service.Lifecycle;
 
@@ -14,7 +16,9 @@ public class NettyWebContainerProvider implements WebContainerProvider {
             RequestHandler executor) {
         SimpleChannelInboundHandler<Object> webHandler = new NettyWebRequestHandler(
                 executor, config.getDefaultWebsocketUri(), config.isSsl(),
-                config.getDefaultCodecType());
+                config.getDefaultCodecType(), new AccessLog(config),
+                config.getBoolean(Constants.WEBSOCKET_COMPRESSION) ? new WebsocketCompression(
+                        config) : null);
         return new NettyHttpServer(config, webHandler);
     }
 
@@ -5,16 +5,20 @@ import static io.netty.handler.codec.http.HttpHeaders.Names.HOST;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.CONTINUE;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+import static com.plexobject.http.netty.StreamingHttpObjectAggregator.STREAMING_HANDLER;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.Cookie;
 import io.netty.handler.codec.http.CookieDecoder;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpContent;
@@ -22,21 +26,27 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameEncoder;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
 
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Queue;
+import java.util.TreeMap;
 
 import org.apache.log4j.Logger;
 
@@ -48,9 +58,15 @@ import com.plexobject.handler.NettyRequest;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.Request.Builder;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.http.AccessLog;
+import com.plexobject.http.AsyncRequestHandler;
 import com.plexobject.http.Handledable;
+import com.plexobject.http.HttpResponse;
+import com.plexobject.http.StreamingRequestResolver;
 import com.plexobject.service.Protocol;
 import com.plexobject.service.RequestMethod;
+import com.plexobject.util.LazyMap;
 
 /**
  * This class handles requests over http and websockets using Netty container
@@ -72,16 +88,36 @@ import com.plexobject.service.RequestMethod;
 public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object> {
     private static final Logger logger = Logger
             .getLogger(NettyWebRequestHandler.class);
+    private static final AttributeKey<Request> STREAMING_REQUEST = AttributeKey
+            .valueOf("plexsvc.streamingRequest");
+    private static final AttributeKey<RequestPipeline> PIPELINE = AttributeKey
+            .valueOf("plexsvc.pipeline");
     private final RequestHandler handler;
     private final CodecType codecType;
     private final String wsPath;
     private final boolean ssl;
     private final ObjectCodec codec;
-    private Map<String, WebSocketServerHandshaker> handshakers = new ConcurrentHashMap<>();
+    private final AccessLog accessLog;
+    private final WebsocketCompression compression;
 
     public NettyWebRequestHandler(RequestHandler handler, final String wsPath,
             final boolean ssl, final CodecType codecType) {
+        this(handler, wsPath, ssl, codecType, new AccessLog(0,
+                AccessLog.Format.TEXT, 1));
+    }
+
+    public NettyWebRequestHandler(RequestHandler handler, final String wsPath,
+            final boolean ssl, final CodecType codecType,
+            final AccessLog accessLog) {
+        this(handler, wsPath, ssl, codecType, accessLog, null);
+    }
+
+    public NettyWebRequestHandler(RequestHandler handler, final String wsPath,
+            final boolean ssl, final CodecType codecType,
+            final AccessLog accessLog, final WebsocketCompression compression) {
         this.handler = handler;
+        this.accessLog = accessLog;
+        this.compression = compression;
         this.codecType = codecType;
         this.wsPath = wsPath;
         this.ssl = ssl;
@@ -92,6 +128,10 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
     public void channelRead0(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof FullHttpRequest) {
             handleHttpRequest(ctx, (FullHttpRequest) msg);
+        } else if (msg instanceof HttpRequest) {
+            handleStreamingRequest(ctx, (HttpRequest) msg);
+        } else if (msg instanceof HttpContent) {
+            handleStreamingContent(ctx, (HttpContent) msg);
         } else if (msg instanceof WebSocketFrame) {
             handleWebSocketFrame(ctx, (WebSocketFrame) msg);
         } else {
@@ -110,16 +150,37 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
         String uri = req.getUri();
         if (wsPath != null && wsPath.equals(uri)) {
             // Handshake
-            WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(
-                    getWebSocketLocation(req), null, false);
-            WebSocketServerHandshaker handshaker = wsFactory.newHandshaker(req);
+            PerMessageDeflateHandler deflater = compression != null ? compression
+                    .negotiate(req) : null;
+            WebSocketServerHandshaker handshaker;
+            if (deflater != null) {
+                handshaker = compression
+                        .newHandshaker(getWebSocketLocation(req));
+            } else {
+                WebSocketServerHandshakerFactory wsFactory = new WebSocketServerHandshakerFactory(
+                        getWebSocketLocation(req), null, false);
+                handshaker = wsFactory.newHandshaker(req);
+            }
             if (handshaker == null) {
                 WebSocketServerHandshakerFactory
                         .sendUnsupportedVersionResponse(ctx.channel());
             } else {
-                handshaker.handshake(ctx.channel(), req);
-                handshakers.put(ctx.channel().remoteAddress().toString(),
-                        handshaker);
+                if (deflater != null) {
+                    HttpHeaders headers = new DefaultHttpHeaders();
+                    headers.set(WebsocketCompression.SEC_WEBSOCKET_EXTENSIONS,
+                            deflater.getExtensionHeader());
+                    handshaker.handshake(ctx.channel(), req, headers, ctx
+                            .channel().newPromise());
+                    // compresses frames before they are encoded by wsencoder
+                    ChannelPipeline p = ctx.pipeline();
+                    p.addAfter(p.context(WebSocketFrameEncoder.class).name(),
+                            "wsdeflate", deflater);
+                } else {
+                    handshaker.handshake(ctx.channel(), req);
+                }
+                // per-connection state is kept with the channel
+                ctx.channel().attr(WebsocketSession.SESSION)
+                        .set(new WebsocketSession(ctx.channel(), handshaker));
                 if (logger.isDebugEnabled()) {
                     logger.debug("PLEXSVC handshaking with "
                             + ctx.channel().remoteAddress());
@@ -131,48 +192,189 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
                 return;
             }
 
-            AbstractResponseDispatcher dispatcher = new NettyResponseDispatcher(
-                    new Handledable() {
-                        @Override
-                        public void setHandled(boolean h) {
-                            if (req instanceof LastHttpContent) {
-                                ctx.close();
-                            }
-                        }
-                    }, req, ctx);
-            String textPayload = null;
+            Request handlerReq = buildHttpRequest(ctx, req, req.content());
+            dispatchInOrder(ctx, handlerReq);
+            // request body is released after this method returns
+            handlerReq.releaseRawContents();
+        }
+    }
+
+    private void handleStreamingRequest(final ChannelHandlerContext ctx,
+            final HttpRequest req) {
+        StreamingRequestHandler streamingHandler = ctx.channel()
+                .attr(STREAMING_HANDLER).get();
+        if (!req.getDecoderResult().isSuccess() || streamingHandler == null) {
+            sendHttpResponse(ctx, req, new DefaultFullHttpResponse(HTTP_1_1,
+                    BAD_REQUEST));
+            return;
+        }
+        // aggregator is bypassed for streaming requests so we need to
+        // acknowledge expectation of the client ourselves
+        if (HttpHeaders.is100ContinueExpected(req)) {
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HTTP_1_1, CONTINUE));
+        }
+        Request handlerReq = buildHttpRequest(ctx, req, null);
+        ctx.channel().attr(STREAMING_REQUEST).set(handlerReq);
+        if (logger.isDebugEnabled()) {
+            logger.debug("PLEXSVC HTTP Streaming URI '"
+                    + handlerReq.getEndpoint() + "'");
+        }
+    }
+
+    private void handleStreamingContent(final ChannelHandlerContext ctx,
+            final HttpContent content) {
+        Request handlerReq = ctx.channel().attr(STREAMING_REQUEST).get();
+        StreamingRequestHandler streamingHandler = ctx.channel()
+                .attr(STREAMING_HANDLER).get();
+        if (handlerReq == null || streamingHandler == null) {
+            // request was rejected or failed on a prior chunk
+            return;
+        }
+        boolean last = content instanceof LastHttpContent;
+        if (last) {
+            clearStreamingState(ctx);
+        }
+        try {
+            streamingHandler.handleChunk(handlerReq, new ByteBufInputStream(
+                    content.content()), last);
+        } catch (Exception e) {
+            logger.warn("PLEXSVC Failed to handle chunk for "
+                    + handlerReq.getEndpoint(), e);
+            clearStreamingState(ctx);
+            handlerReq.getResponse().setStatusCode(
+                    HttpResponse.SC_INTERNAL_SERVER_ERROR);
+            handlerReq.getResponse().setContents(e);
+            handlerReq.sendResponse();
+            return;
+        }
+        if (last) {
+            dispatchInOrder(ctx, handlerReq);
+        }
+    }
+
+    /**
+     * This method dispatches http request unless response of a prior request
+     * on the same connection is not sent yet, in which case request is queued
+     * and reading from the connection is suspended so that pipelined requests
+     * are answered in the order they were received.
+     */
+    private void dispatchInOrder(final ChannelHandlerContext ctx,
+            Request handlerReq) {
+        RequestPipeline pipeline = ctx.channel().attr(PIPELINE).get();
+        if (pipeline == null) {
+            pipeline = new RequestPipeline();
+            ctx.channel().attr(PIPELINE).set(pipeline);
+        }
+        if (pipeline.inFlight) {
+            // queued request outlives the buffer of the request body
+            handlerReq.releaseRawContents();
+            pipeline.pending.add(handlerReq);
+            ctx.channel().config().setAutoRead(false);
+            return;
+        }
+        pipeline.inFlight = true;
+        dispatch(handlerReq);
+    }
 
-            if (req instanceof HttpContent) {
-                HttpContent content = (HttpContent) req;
-                textPayload = content.content().toString(CharsetUtil.UTF_8);
+    /**
+     * This method is called when response of current http request is written,
+     * which may happen on a thread of the executor of the handler
+     */
+    private void onResponseSent(final ChannelHandlerContext ctx) {
+        if (ctx.executor().inEventLoop()) {
+            RequestPipeline pipeline = ctx.channel().attr(PIPELINE).get();
+            if (pipeline != null && pipeline.pending.isEmpty()) {
+                pipeline.inFlight = false;
+                return;
             }
-            RequestMethod method = RequestMethod
-                    .valueOf(req.getMethod().name());
-            int n = uri.indexOf("?");
-            if (n != -1) {
-                uri = uri.substring(0, n);
+        }
+        // next request is dispatched after the response is written and
+        // outside the stack of the handler that sent it
+        ctx.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                dispatchNext(ctx);
             }
-            Map<String, Object> headers = getHeaders(req);
-            Map<String, Object> params = getParams(req);
-            Request handlerReq = buildRequest(ctx, uri, dispatcher,
-                    textPayload, Protocol.HTTP, method, headers, params);
+        });
+    }
+
+    private void dispatchNext(final ChannelHandlerContext ctx) {
+        RequestPipeline pipeline = ctx.channel().attr(PIPELINE).get();
+        if (pipeline == null) {
+            return;
+        }
+        Request next = pipeline.pending.poll();
+        if (next == null) {
+            pipeline.inFlight = false;
+            ctx.channel().config().setAutoRead(true);
+            return;
+        }
+        if (!ctx.channel().isActive()) {
+            pipeline.pending.clear();
+            return;
+        }
+        dispatch(next);
+    }
 
-            logger.info("PLEXSVC HTTP Received URI '" + uri + "', wsPath '" + wsPath);
+    private void dispatch(Request handlerReq) {
+        // handlers that may block are executed off the event loop
+        if (handler instanceof AsyncRequestHandler) {
+            ((AsyncRequestHandler) handler).handleAsync(handlerReq);
+        } else {
             handler.handle(handlerReq);
         }
     }
 
+    private static void clearStreamingState(final ChannelHandlerContext ctx) {
+        ctx.channel().attr(STREAMING_REQUEST).remove();
+        ctx.channel().attr(STREAMING_HANDLER).remove();
+    }
+
+    private Request buildHttpRequest(final ChannelHandlerContext ctx,
+            final HttpRequest req, final ByteBuf content) {
+        // streaming requests are not logged as their length is not known
+        HttpExchange exchange = new HttpExchange(ctx, content != null
+                && accessLog.isSampled(), content != null ? content
+                .readableBytes() : 0);
+        AbstractResponseDispatcher dispatcher = new NettyResponseDispatcher(
+                exchange, req, ctx);
+        RequestMethod method = RequestMethod.valueOf(req.getMethod().name());
+        String uri = req.getUri();
+        int n = uri.indexOf("?");
+        if (n != -1) {
+            uri = uri.substring(0, n);
+        }
+        Map<String, Object> headers = getHeaders(req);
+        Map<String, Object> params = getParams(req);
+        // body is passed as bytes so that codec can decode it without
+        // converting it into string
+        String textPayload = null;
+        ByteBuffer rawContents = null;
+        if (content != null) {
+            if (content.isReadable()) {
+                rawContents = content.nioBuffer();
+            } else {
+                textPayload = "";
+            }
+        }
+        exchange.request = buildRequest(ctx, uri, dispatcher, textPayload,
+                rawContents, Protocol.HTTP, method, headers, params, 0);
+        return exchange.request;
+    }
+
     private Request buildRequest(final ChannelHandlerContext ctx, String uri,
             AbstractResponseDispatcher dispatcher, String textPayload,
-            Protocol protocol, RequestMethod method,
-            Map<String, Object> headers, Map<String, Object> params) {
+            ByteBuffer rawContents, Protocol protocol, RequestMethod method,
+            Map<String, Object> headers, Map<String, Object> params,
+            long requestId) {
         SocketAddress remoteAddr = ctx.channel() != null ? ctx.channel()
                 .remoteAddress() : null;
         Builder handlerReqBuilder = NettyRequest.builder()
                 .setChannelHandlerContext(ctx).setEndpoint(uri)
                 .setProtocol(protocol).setMethod(method).setProperties(params)
                 .setHeaders(headers).setCodecType(codecType)
-                .setContents(textPayload).setResponseDispatcher(dispatcher);
+                .setContents(textPayload).setRawContents(rawContents)
+                .setRequestId(requestId).setResponseDispatcher(dispatcher);
 
         if (remoteAddr != null) {
             handlerReqBuilder.setRemoteAddress(remoteAddr.toString());
@@ -181,6 +383,79 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
         return handlerReq;
     }
 
+    /**
+     * This class is notified after response of a http request is sent or
+     * failed, it logs the request if it's sampled and dispatches next
+     * pipelined request of the connection.
+     */
+    private class HttpExchange implements Handledable {
+        private final ChannelHandlerContext ctx;
+        private final boolean sampled;
+        private final int contentLength;
+        private final long started = System.currentTimeMillis();
+        private Request request;
+        private boolean sent;
+
+        private HttpExchange(ChannelHandlerContext ctx, boolean sampled,
+                int contentLength) {
+            this.ctx = ctx;
+            this.sampled = sampled;
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public synchronized void setHandled(boolean h) {
+            // response dispatcher closes connections that are not kept alive
+            // after the response is written, connection is closed here
+            // only if the response failed so that queued requests are
+            // dropped instead of waiting for it
+            if (!h) {
+                ctx.close();
+            }
+            if (sent) {
+                return;
+            }
+            sent = true;
+            if (sampled && request != null) {
+                accessLog.log(Protocol.HTTP, request.getMethod(),
+                        request.getEndpoint(), ctx.channel().remoteAddress(),
+                        contentLength, request.getResponse().getStatusCode(),
+                        System.currentTimeMillis() - started);
+            }
+            onResponseSent(ctx);
+        }
+    }
+
+    /**
+     * This method stops background thread of the access log when the server
+     * is stopped
+     */
+    public void stop() {
+        accessLog.stop();
+    }
+
+    /**
+     * This method resumes access log when the server is started again
+     */
+    public void start() {
+        accessLog.start();
+    }
+
+    /**
+     * This class keeps http requests of a connection that are received while
+     * response of a prior request is not sent yet, it's only accessed from
+     * event loop of the connection.
+     */
+    private static class RequestPipeline {
+        private final Queue<Request> pending = new ArrayDeque<>();
+        private boolean inFlight;
+    }
+
+    public StreamingRequestResolver getStreamingRequestResolver() {
+        return handler instanceof StreamingRequestResolver ? (StreamingRequestResolver) handler
+                : null;
+    }
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
         ctx.flush();
@@ -191,38 +466,85 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
         ctx.fireChannelActive();
     }
 
-    public static Map<String, Object> getParams(HttpRequest request) {
-        Map<String, Object> params = new HashMap<>();
-        QueryStringDecoder decoder = new QueryStringDecoder(request.getUri());
-        for (Map.Entry<String, List<String>> e : decoder.parameters()
-                .entrySet()) {
-            params.put(e.getKey(), e.getValue().get(0));
-        }
+    /**
+     * This method returns query parameters of the request, which are decoded
+     * when they are accessed
+     */
+    public static Map<String, Object> getParams(final HttpRequest request) {
+        return new LazyMap<Object>() {
+            private Map<String, List<String>> parameters;
+
+            @Override
+            protected Object lookup(String key) {
+                List<String> values = getParameters().get(key);
+                return values != null ? values.get(0) : null;
+            }
 
-        // params.put(Constants.HOST, request.getRemoteHost());
-        return params;
+            @Override
+            protected void load(Map<String, Object> map) {
+                for (Map.Entry<String, List<String>> e : getParameters()
+                        .entrySet()) {
+                    map.put(e.getKey(), e.getValue().get(0));
+                }
+            }
 
+            private Map<String, List<String>> getParameters() {
+                if (parameters == null) {
+                    parameters = request.getUri().indexOf('?') == -1 ? Collections
+                            .<String, List<String>> emptyMap()
+                            : new QueryStringDecoder(request.getUri())
+                                    .parameters();
+                }
+                return parameters;
+            }
+        };
     }
 
-    public static Map<String, Object> getHeaders(HttpRequest request) {
-        Map<String, Object> result = new HashMap<>();
-        String cookieString = request.headers().get(COOKIE);
-        if (cookieString != null) {
-            Set<Cookie> cookies = CookieDecoder.decode(cookieString);
-            if (!cookies.isEmpty()) {
-                // Reset the cookies if necessary.
-                for (Cookie cookie : cookies) {
-                    result.put(cookie.getName(), cookie.getValue());
-                    // response.headers().add(SET_COOKIE,
-                    // ServerCookieEncoder.encode(cookie));
+    /**
+     * This method returns headers and cookies of the request, which are read
+     * from netty headers when they are accessed so that headers that are not
+     * used by the handler are not copied. Names are case-insensitive like
+     * netty headers, before and after the map is materialized.
+     */
+    public static Map<String, Object> getHeaders(final HttpRequest request) {
+        return new LazyMap<Object>() {
+            private Map<String, String> cookies;
+
+            @Override
+            protected Map<String, Object> newMap() {
+                return new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            }
+
+            @Override
+            protected Object lookup(String key) {
+                String value = request.headers().get(key);
+                return value != null ? value : getCookies().get(key);
+            }
+
+            @Override
+            protected void load(Map<String, Object> map) {
+                map.putAll(getCookies());
+                for (String name : request.headers().names()) {
+                    map.put(name, request.headers().get(name));
                 }
             }
-        }
-        for (String name : request.headers().names()) {
-            String value = request.headers().get(name);
-            result.put(name, value);
-        }
-        return result;
+
+            private Map<String, String> getCookies() {
+                if (cookies == null) {
+                    String cookieString = request.headers().get(COOKIE);
+                    if (cookieString == null) {
+                        cookies = Collections.emptyMap();
+                    } else {
+                        cookies = new HashMap<>();
+                        for (Cookie cookie : CookieDecoder
+                                .decode(cookieString)) {
+                            cookies.put(cookie.getName(), cookie.getValue());
+                        }
+                    }
+                }
+                return cookies;
+            }
+        };
     }
 
     @Override
@@ -234,21 +556,14 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
         ctx.close();
     }
 
-    @Override
-    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        super.channelInactive(ctx);
-        handshakers.remove(ctx.channel().remoteAddress().toString());
-    }
-
     private void handleWebSocketFrame(ChannelHandlerContext ctx,
             WebSocketFrame frame) {
 
         // Check for closing frame
         if (frame instanceof CloseWebSocketFrame) {
-            WebSocketServerHandshaker handshaker = handshakers.get(ctx
-                    .channel().remoteAddress().toString());
-            if (handshaker != null) {
-                handshaker.close(ctx.channel(),
+            WebsocketSession session = WebsocketSession.get(ctx.channel());
+            if (session != null) {
+                session.getHandshaker().close(ctx.channel(),
                         (CloseWebSocketFrame) frame.retain());
             }
             return;
@@ -258,14 +573,16 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
                     new PongWebSocketFrame(frame.content().retain()));
             return;
         }
+        if (frame instanceof BinaryWebSocketFrame) {
+            handleBinaryWebSocketFrame(ctx, (BinaryWebSocketFrame) frame);
+            return;
+        }
         if (!(frame instanceof TextWebSocketFrame)) {
             throw new UnsupportedOperationException(String.format(
                     "%s frame types not supported", frame.getClass().getName()));
         }
 
         String jsonMsg = ((TextWebSocketFrame) frame).text();
-        logger.info("PLEXSVC Websocket handler "
-                + ctx.channel().remoteAddress() + " received " + jsonMsg);
 
         Map<String, Object> params = new HashMap<>();
         Map<String, Object> headers = new HashMap<>();
@@ -286,10 +603,45 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
                 ctx.channel());
 
         Request handlerReq = buildRequest(ctx, endpoint, dispatcher,
-                textPayload, Protocol.WEBSOCKET, RequestMethod.MESSAGE,
-                headers, params);
+                textPayload, null, Protocol.WEBSOCKET, RequestMethod.MESSAGE,
+                headers, params, 0);
+        if (accessLog.isSampled()) {
+            accessLog.log(Protocol.WEBSOCKET, RequestMethod.MESSAGE, endpoint,
+                    ctx.channel().remoteAddress(), jsonMsg.length());
+        }
 
-        handler.handle(handlerReq);
+        dispatch(handlerReq);
+    }
+
+    private void handleBinaryWebSocketFrame(ChannelHandlerContext ctx,
+            BinaryWebSocketFrame frame) {
+        ByteBuf content = frame.content();
+        int length = content.readableBytes();
+        WebsocketBinaryFrames.Header header = WebsocketBinaryFrames
+                .readHeader(content);
+        if (header == null) {
+            logger.error("PLEXSVC Malformed binary message of " + length
+                    + " bytes from " + ctx.channel().remoteAddress());
+            return;
+        }
+        AbstractResponseDispatcher dispatcher = new NettyWebsocketResponseDispatcher(
+                ctx.channel(), header);
+        // payload is passed to codec of the service without envelope
+        ByteBuffer rawContents = content.isReadable() ? content.nioBuffer()
+                : null;
+        Request handlerReq = buildRequest(ctx, header.getEndpoint(),
+                dispatcher, rawContents == null ? "" : null, rawContents,
+                Protocol.WEBSOCKET, RequestMethod.MESSAGE,
+                new HashMap<String, Object>(), new HashMap<String, Object>(),
+                header.getCorrelationId());
+        if (accessLog.isSampled()) {
+            accessLog.log(Protocol.WEBSOCKET, RequestMethod.MESSAGE,
+                    header.getEndpoint(), ctx.channel().remoteAddress(),
+                    length);
+        }
+        dispatch(handlerReq);
+        // frame is released after this method returns
+        handlerReq.releaseRawContents();
     }
 
     private String getWebSocketLocation(FullHttpRequest req) {
@@ -302,7 +654,7 @@ public class NettyWebRequestHandler extends SimpleChannelInboundHandler<Object>
     }
 
     private static void sendHttpResponse(ChannelHandlerContext ctx,
-            FullHttpRequest req, FullHttpResponse res) {
+            HttpRequest req, FullHttpResponse res) {
         // Generate an error page if response getStatus code is not OK (200).
         if (res.getStatus().code() != 200) {
             ByteBuf buf = Unpooled.copiedBuffer(res.getStatus().toString(),
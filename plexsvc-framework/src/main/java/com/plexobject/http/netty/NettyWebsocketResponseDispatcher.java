@@ -1,12 +1,13 @@
 package com.plexobject.http.netty;
 
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 
 import org.apache.log4j.Logger;
 
+import com.plexobject.domain.Constants;
+import com.plexobject.encode.EncodablePayload;
+import com.plexobject.encode.ObjectCodec;
 import com.plexobject.encode.ObjectCodecFactory;
 import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.Response;
@@ -17,17 +18,49 @@ public class NettyWebsocketResponseDispatcher extends
             .getLogger(NettyWebsocketResponseDispatcher.class);
     private final Channel channel;
     private final String id;
+    private final WebsocketBinaryFrames.Header binaryHeader;
 
     public NettyWebsocketResponseDispatcher(final Channel channel) {
+        this(channel, null);
+    }
+
+    /**
+     * This constructor is used for requests received as binary frames, whose
+     * responses only contain encoded payload after header with endpoint and
+     * correlation id of the request
+     *
+     * @param channel
+     * @param binaryHeader
+     *            header of binary request or null for text requests
+     */
+    public NettyWebsocketResponseDispatcher(final Channel channel,
+            final WebsocketBinaryFrames.Header binaryHeader) {
         this.channel = channel;
         this.id = channel.remoteAddress().toString();
+        this.binaryHeader = binaryHeader;
+    }
+
+    public Channel getChannel() {
+        return channel;
     }
 
     @Override
-    protected String encode(Response response) {
+    protected boolean isStreamEncodingSupported() {
+        return binaryHeader != null;
+    }
+
+    @Override
+    protected Object encode(Response response) {
+        if (binaryHeader != null) {
+            return super.encode(response);
+        }
         // encode entire response object instead of just payload
-        String textJson = ObjectCodecFactory.getInstance()
-                .getObjectCodec(response.getCodecType()).encode(response);
+        ObjectCodec codec = ObjectCodecFactory.getInstance().getObjectCodec(
+                response.getCodecType());
+        if (!hasOutputInterceptors() && !logger.isDebugEnabled()) {
+            return new EncodablePayload(codec, response);
+        }
+        String textJson = codec.encode(response);
         if (logger.isDebugEnabled()) {
             logger.debug("PLEXSVC Sending to " + id + ":" + textJson);
         }
@@ -38,18 +71,21 @@ public class NettyWebsocketResponseDispatcher extends
     protected void doSend(Response response, Object encodedPayload) {
         try {
             if (channel.isOpen()) {
-                if (encodedPayload instanceof String) {
-                    channel.write(new TextWebSocketFrame(
-                            (String) encodedPayload));
-                } else if (encodedPayload instanceof byte[]) {
-                    channel.write(new BinaryWebSocketFrame(Unpooled
-                            .copiedBuffer((byte[]) encodedPayload)));
-                } else {
-                    throw new IllegalArgumentException(
-                            "Unknown encoded payload for response "
-                                    + encodedPayload);
+                ByteBuf buffer = NettyResponseDispatcher.toByteBuf(
+                        channel.alloc(), encodedPayload);
+                boolean binary = encodedPayload instanceof byte[];
+                if (binaryHeader != null) {
+                    buffer = WebsocketBinaryFrames.encode(channel.alloc(),
+                            new WebsocketBinaryFrames.Header(binaryHeader
+                                    .getEndpoint(), binaryHeader
+                                    .getCorrelationId(), response
+                                    .getStatusCode()), buffer);
+                    binary = true;
                 }
-                channel.flush();
+                // messages with same key can be conflated for slow consumers
+                Object key = response.getProperty(Constants.CONFLATION_KEY);
+                channel.writeAndFlush(SlowConsumerHandler.newFrame(buffer,
+                        binary, key));
             } else {
                 throw new IllegalStateException(
                         "channel is closed, cannot send " + encodedPayload);
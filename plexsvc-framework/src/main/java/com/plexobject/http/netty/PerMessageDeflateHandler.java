@@ -0,0 +1,264 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class implements permessage-deflate extension (RFC 7692) for a
+ * websocket connection. Outgoing text and binary messages larger than the
+ * threshold are compressed and marked with RSV1 bit, smaller messages are sent
+ * as is because compressing them costs more CPU than it saves in bandwidth.
+ * Incoming messages with RSV1 bit are inflated before they are passed to the
+ * request handler. Unless no_context_takeover is negotiated, the compression
+ * window is kept across messages so that repeated field names and values of
+ * streamed messages are sent as back-references. This class is not sharable
+ * and a new instance is created for each channel.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class PerMessageDeflateHandler extends ChannelDuplexHandler {
+    static final int RSV1 = 0x4;
+    private static final byte[] TAIL = new byte[] { 0, 0, (byte) 0xff,
+            (byte) 0xff };
+    private static final int STATUS_INVALID_DATA = 1007;
+    private static final int STATUS_MESSAGE_TOO_BIG = 1009;
+
+    private final int threshold;
+    private final int maxMessageSize;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+    private final String extensionHeader;
+    private final Deflater deflater;
+    private final Inflater inflater = new Inflater(true);
+    private final byte[] chunk = new byte[8192];
+    private boolean inflating;
+    private boolean ended;
+    private int inflatedBytes;
+
+    public PerMessageDeflateHandler(final int level, final int threshold,
+            final int maxMessageSize, final boolean serverNoContextTakeover,
+            final boolean clientNoContextTakeover,
+            final String extensionHeader) {
+        this.threshold = threshold;
+        this.maxMessageSize = maxMessageSize;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+        this.extensionHeader = extensionHeader;
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * This method returns value of Sec-WebSocket-Extensions header that is
+     * sent in the handshake response
+     *
+     * @return extension header
+     */
+    public String getExtensionHeader() {
+        return extensionHeader;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg,
+            ChannelPromise promise) throws Exception {
+        if (!ended && isCompressible(msg)) {
+            WebSocketFrame frame = (WebSocketFrame) msg;
+            ByteBuf compressed;
+            try {
+                compressed = deflate(ctx, frame.content());
+            } finally {
+                frame.release();
+            }
+            if (frame instanceof TextWebSocketFrame) {
+                ctx.write(new TextWebSocketFrame(true, RSV1, compressed),
+                        promise);
+            } else {
+                ctx.write(new BinaryWebSocketFrame(true, RSV1, compressed),
+                        promise);
+            }
+        } else {
+            ctx.write(msg, promise);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg)
+            throws Exception {
+        if (ended || !(msg instanceof WebSocketFrame)
+                || msg instanceof CloseWebSocketFrame) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        WebSocketFrame frame = (WebSocketFrame) msg;
+        boolean continuation = frame instanceof ContinuationWebSocketFrame;
+        if (!continuation) {
+            inflating = (frame.rsv() & RSV1) != 0;
+            inflatedBytes = 0;
+        }
+        if (!inflating || !(continuation || frame instanceof TextWebSocketFrame
+                || frame instanceof BinaryWebSocketFrame)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+        ByteBuf inflated;
+        try {
+            inflated = inflate(ctx, frame.content(), frame.isFinalFragment());
+        } catch (DataFormatException e) {
+            close(ctx, STATUS_INVALID_DATA, "invalid compressed data");
+            return;
+        } finally {
+            frame.release();
+        }
+        if (inflated == null) {
+            close(ctx, STATUS_MESSAGE_TOO_BIG, "message exceeds "
+                    + maxMessageSize + " bytes");
+            return;
+        }
+        int rsv = frame.rsv() & ~RSV1;
+        boolean fin = frame.isFinalFragment();
+        if (continuation) {
+            ctx.fireChannelRead(new ContinuationWebSocketFrame(fin, rsv,
+                    inflated));
+        } else if (frame instanceof TextWebSocketFrame) {
+            ctx.fireChannelRead(new TextWebSocketFrame(fin, rsv, inflated));
+        } else {
+            ctx.fireChannelRead(new BinaryWebSocketFrame(fin, rsv, inflated));
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        end();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        end();
+    }
+
+    private boolean isCompressible(Object msg) {
+        if (!(msg instanceof TextWebSocketFrame)
+                && !(msg instanceof BinaryWebSocketFrame)) {
+            return false;
+        }
+        WebSocketFrame frame = (WebSocketFrame) msg;
+        return frame.isFinalFragment() && frame.rsv() == 0
+                && frame.content().readableBytes() >= threshold;
+    }
+
+    private ByteBuf deflate(ChannelHandlerContext ctx, ByteBuf content) {
+        byte[] input;
+        int offset;
+        int length = content.readableBytes();
+        if (content.hasArray()) {
+            input = content.array();
+            offset = content.arrayOffset() + content.readerIndex();
+        } else {
+            input = new byte[length];
+            content.getBytes(content.readerIndex(), input);
+            offset = 0;
+        }
+        deflater.setInput(input, offset, length);
+        ByteBuf out = ctx.alloc().heapBuffer(length / 2 + 64);
+        while (true) {
+            out.ensureWritable(Math.max(64, length / 4));
+            int writable = out.writableBytes();
+            int n = deflater.deflate(out.array(),
+                    out.arrayOffset() + out.writerIndex(), writable,
+                    Deflater.SYNC_FLUSH);
+            out.writerIndex(out.writerIndex() + n);
+            // flush is complete when deflater doesn't fill the buffer
+            if (n < writable) {
+                break;
+            }
+        }
+        // sync flush ends with empty stored block that is implied by receiver
+        if (out.readableBytes() >= TAIL.length) {
+            out.writerIndex(out.writerIndex() - TAIL.length);
+        }
+        if (serverNoContextTakeover) {
+            deflater.reset();
+        }
+        return out;
+    }
+
+    private ByteBuf inflate(ChannelHandlerContext ctx, ByteBuf content,
+            boolean finalFragment) throws DataFormatException {
+        ByteBuf out = ctx.alloc().heapBuffer(content.readableBytes() * 2 + 64);
+        try {
+            if (!inflate(content, out)
+                    || (finalFragment && !inflate(
+                            Unpooled.wrappedBuffer(TAIL), out))) {
+                out.release();
+                return null;
+            }
+        } catch (DataFormatException e) {
+            out.release();
+            throw e;
+        }
+        if (finalFragment
+                && (clientNoContextTakeover || inflater.finished())) {
+            inflater.reset();
+        }
+        return out;
+    }
+
+    private boolean inflate(ByteBuf content, ByteBuf out)
+            throws DataFormatException {
+        int length = content.readableBytes();
+        byte[] input;
+        int offset;
+        if (content.hasArray()) {
+            input = content.array();
+            offset = content.arrayOffset() + content.readerIndex();
+        } else {
+            input = new byte[length];
+            content.getBytes(content.readerIndex(), input);
+            offset = 0;
+        }
+        inflater.setInput(input, offset, length);
+        while (true) {
+            int n = inflater.inflate(chunk);
+            if (n > 0) {
+                inflatedBytes += n;
+                if (inflatedBytes > maxMessageSize) {
+                    return false;
+                }
+                out.writeBytes(chunk, 0, n);
+            } else if (inflater.needsInput() || inflater.finished()
+                    || inflater.needsDictionary()) {
+                return true;
+            }
+        }
+    }
+
+    private void close(ChannelHandlerContext ctx, int status, String reason) {
+        ctx.channel().writeAndFlush(new CloseWebSocketFrame(status, reason))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+
+    private void end() {
+        ended = true;
+        deflater.end();
+        inflater.end();
+    }
+
+    @Override
+    public String toString() {
+        return "PerMessageDeflateHandler [" + extensionHeader + "]";
+    }
+}
@@ -0,0 +1,276 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class applies slow consumer policy to websocket messages that are
+ * written while channel is not writable so that a slow subscriber cannot
+ * buffer unbounded data in the heap. Messages are held by this handler
+ * instead of outbound buffer of the channel until the channel becomes
+ * writable again. Other messages such as http responses and control frames
+ * are passed through.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class SlowConsumerHandler extends ChannelDuplexHandler {
+    private static final Logger logger = Logger
+            .getLogger(SlowConsumerHandler.class);
+    private static final IllegalStateException SLOW_CONSUMER = new IllegalStateException(
+            "message dropped for slow consumer");
+    static {
+        SLOW_CONSUMER.setStackTrace(new StackTraceElement[0]);
+    }
+
+    private interface Keyed {
+        Object getKey();
+    }
+
+    private static class KeyedTextWebSocketFrame extends TextWebSocketFrame
+            implements Keyed {
+        private final Object key;
+
+        private KeyedTextWebSocketFrame(ByteBuf content, Object key) {
+            super(content);
+            this.key = key;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+    }
+
+    private static class KeyedBinaryWebSocketFrame extends
+            BinaryWebSocketFrame implements Keyed {
+        private final Object key;
+
+        private KeyedBinaryWebSocketFrame(ByteBuf content, Object key) {
+            super(content);
+            this.key = key;
+        }
+
+        @Override
+        public Object getKey() {
+            return key;
+        }
+    }
+
+    private static class PendingWrite {
+        private final WebSocketFrame frame;
+        private final ChannelPromise promise;
+
+        private PendingWrite(WebSocketFrame frame, ChannelPromise promise) {
+            this.frame = frame;
+            this.promise = promise;
+        }
+    }
+
+    private final SlowConsumerPolicy policy;
+    private final int maxQueuedMessages;
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+    private final Map<Object, PendingWrite> conflated = new LinkedHashMap<>();
+    private volatile long queuedBytes;
+    private volatile int queuedMessages;
+    private volatile long droppedMessages;
+
+    public SlowConsumerHandler(SlowConsumerPolicy policy, int maxQueuedMessages) {
+        this.policy = policy;
+        this.maxQueuedMessages = Math.max(1, maxQueuedMessages);
+    }
+
+    /**
+     * This method creates websocket frame that is conflated with other frames
+     * of the same key when CONFLATE policy is used
+     *
+     * @param content
+     * @param binary
+     * @param key
+     *            conflation key, frames without key are never conflated and
+     *            are queued in order with other frames
+     * @return frame
+     */
+    public static WebSocketFrame newFrame(ByteBuf content, boolean binary,
+            Object key) {
+        if (key == null) {
+            return binary ? new BinaryWebSocketFrame(content)
+                    : new TextWebSocketFrame(content);
+        }
+        return binary ? new KeyedBinaryWebSocketFrame(content, key)
+                : new KeyedTextWebSocketFrame(content, key);
+    }
+
+    /**
+     * This method returns number of bytes waiting to be written to the given
+     * channel including messages held by slow consumer policy
+     *
+     * @param channel
+     * @return buffered bytes
+     */
+    public static long getBufferedBytes(Channel channel) {
+        ChannelOutboundBuffer outbound = channel.unsafe().outboundBuffer();
+        long bytes = outbound != null ? outbound.totalPendingWriteBytes() : 0;
+        SlowConsumerHandler handler = channel.pipeline().get(
+                SlowConsumerHandler.class);
+        if (handler != null) {
+            bytes += handler.queuedBytes;
+        }
+        return bytes;
+    }
+
+    public SlowConsumerPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public int getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg,
+            ChannelPromise promise) throws Exception {
+        if (!(msg instanceof TextWebSocketFrame || msg instanceof BinaryWebSocketFrame)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        if (queuedMessages == 0 && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+        WebSocketFrame frame = (WebSocketFrame) msg;
+        switch (policy) {
+        case DISCONNECT:
+            drop(new PendingWrite(frame, promise));
+            if (ctx.channel().isActive()) {
+                logger.warn("PLEXSVC Disconnecting slow consumer "
+                        + ctx.channel().remoteAddress() + " with "
+                        + getBufferedBytes(ctx.channel()) + " buffered bytes");
+                ctx.close();
+            }
+            return;
+        case DROP_OLDEST:
+            if (queue.size() >= maxQueuedMessages) {
+                drop(remove(queue.poll()));
+            }
+            queue.add(new PendingWrite(frame, promise));
+            break;
+        case CONFLATE:
+            PendingWrite write = new PendingWrite(frame, promise);
+            // frames without key are kept by their own identity so they are
+            // sent in order with keyed frames and only dropped when oldest
+            Object key = frame instanceof Keyed ? ((Keyed) frame).getKey()
+                    : write;
+            PendingWrite old = conflated.put(key, write);
+            if (old != null) {
+                drop(remove(old));
+            } else if (conflated.size() > maxQueuedMessages) {
+                Iterator<PendingWrite> it = conflated.values().iterator();
+                PendingWrite eldest = it.next();
+                it.remove();
+                drop(remove(eldest));
+            }
+            break;
+        }
+        queuedMessages = queue.size() + conflated.size();
+        queuedBytes += frame.content().readableBytes();
+        // preserves order of messages that were queued earlier
+        if (ctx.channel().isWritable()) {
+            drain(ctx);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx)
+            throws Exception {
+        if (ctx.channel().isWritable() && queuedMessages > 0) {
+            drain(ctx);
+            ctx.flush();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        discard();
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        discard();
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        while (ctx.channel().isWritable()) {
+            PendingWrite next = poll();
+            if (next == null) {
+                break;
+            }
+            ctx.write(next.frame, next.promise);
+        }
+    }
+
+    private PendingWrite poll() {
+        PendingWrite next = queue.poll();
+        if (next == null && !conflated.isEmpty()) {
+            Iterator<PendingWrite> it = conflated.values().iterator();
+            next = it.next();
+            it.remove();
+        }
+        return next != null ? remove(next) : null;
+    }
+
+    private PendingWrite remove(PendingWrite write) {
+        queuedMessages = queue.size() + conflated.size();
+        queuedBytes -= write.frame.content().readableBytes();
+        return write;
+    }
+
+    private void discard() {
+        PendingWrite next;
+        while ((next = poll()) != null) {
+            release(next);
+        }
+    }
+
+    private void drop(PendingWrite write) {
+        droppedMessages++;
+        release(write);
+        if (logger.isDebugEnabled()) {
+            logger.debug("PLEXSVC Dropped message for slow consumer, total "
+                    + droppedMessages);
+        }
+    }
+
+    private static void release(PendingWrite write) {
+        ReferenceCountUtil.release(write.frame);
+        // void promise would report failure as exception of the channel
+        if (write.promise != write.promise.channel().voidPromise()) {
+            write.promise.tryFailure(SLOW_CONSUMER);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.plexobject.http.netty;
+
+/**
+ * This enum defines how messages to a websocket subscriber are handled when
+ * its channel is not writable because outbound buffer has exceeded the high
+ * water mark. DROP_OLDEST queues messages up to a limit and discards the
+ * oldest messages, CONFLATE only keeps the latest message for each
+ * conflation key and queues messages without key like DROP_OLDEST, and
+ * DISCONNECT closes the connection.
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public enum SlowConsumerPolicy {
+    DROP_OLDEST, CONFLATE, DISCONNECT
+}
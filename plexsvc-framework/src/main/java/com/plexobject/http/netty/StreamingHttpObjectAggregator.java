@@ -0,0 +1,76 @@
+package com.plexobject.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.http.StreamingRequestResolver;
+import com.plexobject.route.RouteMatch;
+import com.plexobject.service.RequestMethod;
+
+/**
+ * This class aggregates http requests except those that are routed to
+ * streaming handlers, whose request head and body chunks are passed through to
+ * the next handler as they arrive so that memory stays bounded regardless of
+ * size of the body. This class is not sharable and a new instance is created
+ * for each channel.
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public class StreamingHttpObjectAggregator extends HttpObjectAggregator {
+    static final AttributeKey<StreamingRequestHandler> STREAMING_HANDLER = AttributeKey
+            .valueOf("plexsvc.streamingHandler");
+
+    private final StreamingRequestResolver resolver;
+    private final RouteMatch match = new RouteMatch();
+    private boolean streaming;
+
+    public StreamingHttpObjectAggregator(final int maxContentLength,
+            final StreamingRequestResolver resolver) {
+        super(maxContentLength);
+        this.resolver = resolver;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg)
+            throws Exception {
+        if (msg instanceof HttpRequest) {
+            StreamingRequestHandler handler = getStreamingHandler((HttpRequest) msg);
+            streaming = handler != null;
+            if (streaming) {
+                ctx.channel().attr(STREAMING_HANDLER).set(handler);
+            }
+        }
+        if (streaming) {
+            if (msg instanceof LastHttpContent) {
+                streaming = false;
+            }
+            ctx.fireChannelRead(msg);
+        } else {
+            super.channelRead(ctx, msg);
+        }
+    }
+
+    private StreamingRequestHandler getStreamingHandler(HttpRequest req) {
+        if (resolver == null || !resolver.hasStreamingHandlers()) {
+            return null;
+        }
+        RequestMethod method = null;
+        try {
+            method = RequestMethod.valueOf(req.getMethod().name());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String uri = req.getUri();
+        int n = uri.indexOf("?");
+        if (n != -1) {
+            uri = uri.substring(0, n);
+        }
+        match.clear();
+        return resolver.getStreamingHandler(method, uri, match);
+    }
+}
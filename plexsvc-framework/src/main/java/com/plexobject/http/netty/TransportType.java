@@ -0,0 +1,13 @@
+package com.plexobject.http.netty;
+
+/**
+ * This enum defines socket transport used by the netty web server. EPOLL uses
+ * native edge-triggered epoll on Linux and falls back to NIO when native
+ * transport is not available.
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public enum TransportType {
+    NIO, EPOLL
+}
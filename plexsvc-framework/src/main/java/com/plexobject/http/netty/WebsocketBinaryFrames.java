@@ -0,0 +1,96 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+/**
+ * This class defines compact framing of binary websocket messages, which
+ * avoids the json envelope of text messages so that payload is decoded only
+ * once by the codec of the service. Requests and responses use the same
+ * layout in network byte order:
+ *
+ * <pre>
+ * short  length of endpoint
+ * byte[] endpoint in UTF-8
+ * long   correlation id, which is returned in the response
+ * short  status code of the response, 0 for requests
+ * byte[] payload encoded by the codec of the service
+ * </pre>
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketBinaryFrames {
+    public static class Header {
+        private final String endpoint;
+        private final long correlationId;
+        private final int status;
+
+        public Header(String endpoint, long correlationId, int status) {
+            this.endpoint = endpoint;
+            this.correlationId = correlationId;
+            this.status = status;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getCorrelationId() {
+            return correlationId;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private WebsocketBinaryFrames() {
+    }
+
+    /**
+     * This method reads header of the message and leaves reader index of the
+     * buffer at the payload
+     *
+     * @param buffer
+     * @return header or null if message is malformed
+     */
+    public static Header readHeader(ByteBuf buffer) {
+        if (buffer.readableBytes() < 2) {
+            return null;
+        }
+        int length = buffer.readUnsignedShort();
+        if (length == 0 || buffer.readableBytes() < length + 10) {
+            return null;
+        }
+        String endpoint = buffer.toString(buffer.readerIndex(), length,
+                CharsetUtil.UTF_8);
+        buffer.skipBytes(length);
+        long correlationId = buffer.readLong();
+        int status = buffer.readUnsignedShort();
+        return new Header(endpoint, correlationId, status);
+    }
+
+    /**
+     * This method prepends header to the payload without copying the payload
+     *
+     * @param alloc
+     * @param header
+     * @param payload
+     *            buffer that is released with the returned buffer
+     * @return message
+     */
+    public static ByteBuf encode(ByteBufAllocator alloc, Header header,
+            ByteBuf payload) {
+        ByteBuf buffer = alloc.ioBuffer(header.endpoint.length() + 12);
+        buffer.writeShort(0);
+        int length = ByteBufUtil.writeUtf8(buffer, header.endpoint);
+        buffer.setShort(0, length);
+        buffer.writeLong(header.correlationId);
+        buffer.writeShort(header.status);
+        return Unpooled.wrappedBuffer(buffer, payload);
+    }
+}
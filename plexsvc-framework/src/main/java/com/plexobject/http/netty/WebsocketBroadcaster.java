@@ -0,0 +1,211 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.EncodablePayload;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.Response;
+import com.plexobject.handler.ResponseDispatcher;
+
+/**
+ * This class pushes same message to a group of websocket subscribers. The
+ * message is encoded once into a single buffer and each subscriber receives
+ * a duplicate of that buffer. Writes are grouped by event loop of the
+ * channels so that each event loop receives a single task that writes to and
+ * flushes all of its channels. Channels are removed from the group when they
+ * are closed.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketBroadcaster {
+    private static final Logger logger = Logger
+            .getLogger(WebsocketBroadcaster.class);
+    private final ChannelGroup channels;
+
+    public WebsocketBroadcaster(String name) {
+        this.channels = new DefaultChannelGroup(name,
+                GlobalEventExecutor.INSTANCE);
+    }
+
+    /**
+     * This method adds websocket channel of the request
+     *
+     * @param request
+     * @return false if request was not received over websocket
+     */
+    public boolean add(Request request) {
+        Channel channel = getChannel(request);
+        return channel != null && channels.add(channel);
+    }
+
+    public boolean add(Channel channel) {
+        return channels.add(channel);
+    }
+
+    public boolean remove(Request request) {
+        Channel channel = getChannel(request);
+        return channel != null && channels.remove(channel);
+    }
+
+    public boolean remove(Channel channel) {
+        return channels.remove(channel);
+    }
+
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * This method encodes payload in the same format as response of websocket
+     * requests and sends it to all channels
+     *
+     * @param payload
+     * @param codecType
+     * @return number of channels the message was sent to
+     */
+    public int broadcast(Object payload, CodecType codecType) {
+        return broadcast(payload, codecType, null);
+    }
+
+    /**
+     * This method broadcasts payload with a conflation key so that slow
+     * consumers using CONFLATE policy only receive latest message of the key
+     *
+     * @param payload
+     * @param codecType
+     * @param conflationKey
+     * @return number of channels the message was sent to
+     */
+    public int broadcast(Object payload, CodecType codecType,
+            Object conflationKey) {
+        if (channels.isEmpty()) {
+            return 0;
+        }
+        Response response = new Response(null, new HashMap<String, Object>(),
+                new HashMap<String, Object>(), payload, codecType);
+        ObjectCodec codec = ObjectCodecFactory.getInstance().getObjectCodec(
+                codecType);
+        ByteBuf buffer = NettyResponseDispatcher.toByteBuf(
+                ByteBufAllocator.DEFAULT, new EncodablePayload(codec, response));
+        return broadcast(channels, buffer, false, conflationKey);
+    }
+
+    /**
+     * This method sends encoded buffer to all channels of the group and
+     * releases the buffer
+     *
+     * @param group
+     * @param buffer
+     * @param binary
+     *            true to send binary frames instead of text frames
+     * @return number of channels the message was sent to
+     */
+    public static int broadcast(ChannelGroup group, ByteBuf buffer,
+            boolean binary) {
+        return broadcast(group, buffer, binary, null);
+    }
+
+    /**
+     * This method sends encoded buffer with a conflation key to all channels
+     * of the group and releases the buffer
+     *
+     * @param group
+     * @param buffer
+     * @param binary
+     * @param conflationKey
+     * @return number of channels the message was sent to
+     */
+    public static int broadcast(ChannelGroup group, ByteBuf buffer,
+            boolean binary, Object conflationKey) {
+        try {
+            Map<EventLoop, List<Channel>> channelsByLoop = new HashMap<>();
+            int count = 0;
+            for (Channel channel : group) {
+                if (!channel.isActive()) {
+                    continue;
+                }
+                List<Channel> loopChannels = channelsByLoop.get(channel
+                        .eventLoop());
+                if (loopChannels == null) {
+                    loopChannels = new ArrayList<>();
+                    channelsByLoop.put(channel.eventLoop(), loopChannels);
+                }
+                loopChannels.add(channel);
+                count++;
+            }
+            for (Map.Entry<EventLoop, List<Channel>> e : channelsByLoop
+                    .entrySet()) {
+                // retain before handing off so that buffer outlives release
+                // below, each write releases its own reference
+                buffer.retain(e.getValue().size());
+                e.getKey().execute(
+                        new BroadcastTask(e.getValue(), buffer, binary,
+                                conflationKey));
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("PLEXSVC Broadcasting " + buffer.readableBytes()
+                        + " bytes to " + count + " channels of "
+                        + group.name() + " using " + channelsByLoop.size()
+                        + " event loops");
+            }
+            return count;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static Channel getChannel(Request request) {
+        ResponseDispatcher dispatcher = request.getResponseDispatcher();
+        return dispatcher instanceof NettyWebsocketResponseDispatcher ? ((NettyWebsocketResponseDispatcher) dispatcher)
+                .getChannel() : null;
+    }
+
+    private static class BroadcastTask implements Runnable {
+        private final List<Channel> channels;
+        private final ByteBuf buffer;
+        private final boolean binary;
+        private final Object conflationKey;
+
+        private BroadcastTask(List<Channel> channels, ByteBuf buffer,
+                boolean binary, Object conflationKey) {
+            this.channels = channels;
+            this.buffer = buffer;
+            this.binary = binary;
+            this.conflationKey = conflationKey;
+        }
+
+        @Override
+        public void run() {
+            for (Channel channel : channels) {
+                if (channel.isActive()) {
+                    WebSocketFrame frame = SlowConsumerHandler.newFrame(
+                            buffer.duplicate(), binary, conflationKey);
+                    channel.write(frame, channel.voidPromise());
+                } else {
+                    buffer.release();
+                }
+            }
+            for (Channel channel : channels) {
+                channel.flush();
+            }
+        }
+    }
+}
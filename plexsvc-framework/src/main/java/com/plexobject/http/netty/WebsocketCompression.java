@@ -0,0 +1,148 @@
+package com.plexobject.http.netty;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker13;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+
+/**
+ * This class negotiates permessage-deflate extension (RFC 7692) with websocket
+ * clients that offer it in Sec-WebSocket-Extensions header of the handshake.
+ * Only the default window of 15 bits is supported for the server because
+ * deflater of the JDK doesn't allow a smaller window, so offers that require
+ * a smaller server window are declined and the connection is not compressed.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketCompression {
+    static final String SEC_WEBSOCKET_EXTENSIONS = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+    static final String SERVER_NO_CONTEXT_TAKEOVER = "server_no_context_takeover";
+    static final String CLIENT_NO_CONTEXT_TAKEOVER = "client_no_context_takeover";
+    static final String SERVER_MAX_WINDOW_BITS = "server_max_window_bits";
+    static final String CLIENT_MAX_WINDOW_BITS = "client_max_window_bits";
+    private static final String WEBSOCKET_VERSION = "13";
+    private static final int MAX_WINDOW_BITS = 15;
+
+    private final int level;
+    private final int threshold;
+    private final int maxMessageSize;
+    private final boolean serverNoContextTakeover;
+    private final boolean clientNoContextTakeover;
+
+    public WebsocketCompression(Configuration config) {
+        this(config.getInteger(Constants.WEBSOCKET_COMPRESSION_LEVEL, 6),
+                config.getInteger(Constants.WEBSOCKET_COMPRESSION_THRESHOLD,
+                        256), config.getInteger(
+                        Constants.HTTP_MAX_CONTENT_LENGTH, 65536),
+                config.getBoolean(
+                        Constants.WEBSOCKET_SERVER_NO_CONTEXT_TAKEOVER),
+                config.getBoolean(
+                        Constants.WEBSOCKET_CLIENT_NO_CONTEXT_TAKEOVER));
+    }
+
+    public WebsocketCompression(int level, int threshold, int maxMessageSize,
+            boolean serverNoContextTakeover, boolean clientNoContextTakeover) {
+        this.level = level;
+        this.threshold = threshold;
+        this.maxMessageSize = maxMessageSize;
+        this.serverNoContextTakeover = serverNoContextTakeover;
+        this.clientNoContextTakeover = clientNoContextTakeover;
+    }
+
+    /**
+     * This method selects first acceptable permessage-deflate offer of the
+     * handshake request
+     *
+     * @param req
+     * @return handler for the channel or null if client didn't offer
+     *         compression or none of its offers can be accepted
+     */
+    public PerMessageDeflateHandler negotiate(HttpRequest req) {
+        if (!WEBSOCKET_VERSION.equals(req.headers().get(
+                HttpHeaders.Names.SEC_WEBSOCKET_VERSION))) {
+            return null;
+        }
+        String header = req.headers().get(SEC_WEBSOCKET_EXTENSIONS);
+        if (header == null) {
+            return null;
+        }
+        for (String offer : header.split(",")) {
+            PerMessageDeflateHandler handler = accept(offer);
+            if (handler != null) {
+                return handler;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method creates handshaker that allows extensions and decodes
+     * frames without validating text payload, which is validated by codec
+     * after the message is inflated
+     *
+     * @param location
+     * @return handshaker
+     */
+    public WebSocketServerHandshaker newHandshaker(String location) {
+        return new WebSocketServerHandshaker13(location, null, true,
+                maxMessageSize) {
+            @Override
+            protected WebSocketFrameDecoder newWebsocketDecoder() {
+                return new WebsocketExtensionFrameDecoder(
+                        maxFramePayloadLength());
+            }
+        };
+    }
+
+    private PerMessageDeflateHandler accept(String offer) {
+        String[] params = offer.split(";");
+        if (!PERMESSAGE_DEFLATE.equalsIgnoreCase(params[0].trim())) {
+            return null;
+        }
+        boolean serverNoContext = serverNoContextTakeover;
+        boolean clientNoContext = clientNoContextTakeover;
+        boolean serverWindowBits = false;
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            String value = null;
+            int eq = param.indexOf('=');
+            if (eq > 0) {
+                value = param.substring(eq + 1).trim().replace("\"", "");
+                param = param.substring(0, eq).trim();
+            }
+            if (SERVER_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(param)) {
+                serverNoContext = true;
+            } else if (CLIENT_NO_CONTEXT_TAKEOVER.equalsIgnoreCase(param)) {
+                clientNoContext = true;
+            } else if (SERVER_MAX_WINDOW_BITS.equalsIgnoreCase(param)) {
+                if (!String.valueOf(MAX_WINDOW_BITS).equals(value)) {
+                    return null;
+                }
+                serverWindowBits = true;
+            } else if (CLIENT_MAX_WINDOW_BITS.equalsIgnoreCase(param)) {
+                // inflater accepts any window so client window isn't limited
+            } else {
+                return null;
+            }
+        }
+        StringBuilder response = new StringBuilder(PERMESSAGE_DEFLATE);
+        if (serverNoContext) {
+            response.append("; ").append(SERVER_NO_CONTEXT_TAKEOVER);
+        }
+        if (clientNoContext) {
+            response.append("; ").append(CLIENT_NO_CONTEXT_TAKEOVER);
+        }
+        if (serverWindowBits) {
+            response.append("; ").append(SERVER_MAX_WINDOW_BITS).append('=')
+                    .append(MAX_WINDOW_BITS);
+        }
+        return new PerMessageDeflateHandler(level, threshold, maxMessageSize,
+                serverNoContext, clientNoContext, response.toString());
+    }
+}
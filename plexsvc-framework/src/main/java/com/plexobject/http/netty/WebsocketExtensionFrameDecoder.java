@@ -0,0 +1,159 @@
+package com.plexobject.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameDecoder;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class decodes RFC 6455 frames sent by websocket clients when an
+ * extension such as permessage-deflate is negotiated. Unlike the frame decoder
+ * of netty 4.0, it doesn't validate UTF-8 of text frames because payload of
+ * compressed text frames is only valid after the extension inflates it.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketExtensionFrameDecoder extends ByteToMessageDecoder
+        implements WebSocketFrameDecoder {
+    private static final Logger logger = Logger
+            .getLogger(WebsocketExtensionFrameDecoder.class);
+    private static final int OPCODE_CONTINUATION = 0x0;
+    private static final int OPCODE_TEXT = 0x1;
+    private static final int OPCODE_BINARY = 0x2;
+    private static final int OPCODE_CLOSE = 0x8;
+    private static final int OPCODE_PING = 0x9;
+    private static final int OPCODE_PONG = 0xA;
+    private static final int STATUS_PROTOCOL_ERROR = 1002;
+    private static final int STATUS_MESSAGE_TOO_BIG = 1009;
+
+    private final int maxFramePayloadLength;
+    private boolean fragmented;
+    private boolean closed;
+
+    public WebsocketExtensionFrameDecoder(int maxFramePayloadLength) {
+        this.maxFramePayloadLength = maxFramePayloadLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in,
+            List<Object> out) throws Exception {
+        if (closed) {
+            in.skipBytes(in.readableBytes());
+            return;
+        }
+        if (in.readableBytes() < 2) {
+            return;
+        }
+        int start = in.readerIndex();
+        int b0 = in.getUnsignedByte(start);
+        int b1 = in.getUnsignedByte(start + 1);
+        boolean finalFragment = (b0 & 0x80) != 0;
+        int rsv = (b0 & 0x70) >> 4;
+        int opcode = b0 & 0x0F;
+        long length = b1 & 0x7F;
+        int headerLength = 2;
+        if (length == 126) {
+            if (in.readableBytes() < 4) {
+                return;
+            }
+            length = in.getUnsignedShort(start + 2);
+            headerLength = 4;
+        } else if (length == 127) {
+            if (in.readableBytes() < 10) {
+                return;
+            }
+            length = in.getLong(start + 2);
+            headerLength = 10;
+        }
+        if ((b1 & 0x80) == 0) {
+            close(ctx, STATUS_PROTOCOL_ERROR, "unmasked client frame");
+            return;
+        }
+        if (opcode >= OPCODE_CLOSE
+                && (!finalFragment || rsv != 0 || length > 125)) {
+            close(ctx, STATUS_PROTOCOL_ERROR, "invalid control frame");
+            return;
+        }
+        if (length < 0 || length > maxFramePayloadLength) {
+            close(ctx, STATUS_MESSAGE_TOO_BIG, "frame of " + length
+                    + " bytes exceeds " + maxFramePayloadLength);
+            return;
+        }
+        if (in.readableBytes() < headerLength + 4 + length) {
+            return;
+        }
+        int mask = in.getInt(start + headerLength);
+        in.skipBytes(headerLength + 4);
+        ByteBuf payload = ctx.alloc().buffer((int) length);
+        in.readBytes(payload, (int) length);
+        unmask(payload, mask);
+
+        switch (opcode) {
+        case OPCODE_CONTINUATION:
+        case OPCODE_TEXT:
+        case OPCODE_BINARY:
+            if (fragmented == (opcode != OPCODE_CONTINUATION)) {
+                payload.release();
+                close(ctx, STATUS_PROTOCOL_ERROR, "unexpected fragment");
+                return;
+            }
+            fragmented = !finalFragment;
+            if (opcode == OPCODE_TEXT) {
+                out.add(new TextWebSocketFrame(finalFragment, rsv, payload));
+            } else if (opcode == OPCODE_BINARY) {
+                out.add(new BinaryWebSocketFrame(finalFragment, rsv, payload));
+            } else {
+                out.add(new ContinuationWebSocketFrame(finalFragment, rsv,
+                        payload));
+            }
+            break;
+        case OPCODE_CLOSE:
+            closed = true;
+            out.add(new CloseWebSocketFrame(true, 0, payload));
+            break;
+        case OPCODE_PING:
+            out.add(new PingWebSocketFrame(payload));
+            break;
+        case OPCODE_PONG:
+            out.add(new PongWebSocketFrame(payload));
+            break;
+        default:
+            payload.release();
+            close(ctx, STATUS_PROTOCOL_ERROR, "unknown opcode " + opcode);
+        }
+    }
+
+    private static void unmask(ByteBuf payload, int mask) {
+        int i = payload.readerIndex();
+        int end = payload.writerIndex();
+        for (; i + 4 <= end; i += 4) {
+            payload.setInt(i, payload.getInt(i) ^ mask);
+        }
+        for (int shift = 24; i < end; i++, shift -= 8) {
+            payload.setByte(i, payload.getByte(i) ^ (mask >> shift));
+        }
+    }
+
+    private void close(ChannelHandlerContext ctx, int status, String reason) {
+        closed = true;
+        if (logger.isDebugEnabled()) {
+            logger.debug("PLEXSVC Closing websocket "
+                    + ctx.channel().remoteAddress() + ": " + reason);
+        }
+        // encoder is after this decoder so close frame is written from tail
+        ctx.channel().writeAndFlush(new CloseWebSocketFrame(status, reason))
+                .addListener(ChannelFutureListener.CLOSE);
+    }
+}
@@ -0,0 +1,125 @@
+package com.plexobject.http.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.util.AttributeKey;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.ResponseDispatcher;
+
+/**
+ * This class stores state of a websocket connection such as its handshaker,
+ * subscriptions and application attributes. The session is attached to the
+ * channel when handshake completes and is discarded with the channel so that
+ * per-connection state doesn't need a global map.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketSession {
+    static final AttributeKey<WebsocketSession> SESSION = AttributeKey
+            .valueOf("plexsvc.websocketSession");
+
+    private final Channel channel;
+    private final WebSocketServerHandshaker handshaker;
+    private final long createdAt = System.currentTimeMillis();
+    private final Set<String> subscriptions = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final ConcurrentMap<String, Object> attributes = new ConcurrentHashMap<>();
+
+    WebsocketSession(Channel channel, WebSocketServerHandshaker handshaker) {
+        this.channel = channel;
+        this.handshaker = handshaker;
+    }
+
+    /**
+     * This method returns session of the websocket channel
+     *
+     * @param channel
+     * @return session or null if channel hasn't completed websocket handshake
+     */
+    public static WebsocketSession get(Channel channel) {
+        return channel.attr(SESSION).get();
+    }
+
+    /**
+     * This method returns session of the connection that received the
+     * request
+     *
+     * @param request
+     * @return session or null if request wasn't received over websocket
+     */
+    public static WebsocketSession get(Request request) {
+        ResponseDispatcher dispatcher = request.getResponseDispatcher();
+        if (dispatcher instanceof NettyWebsocketResponseDispatcher) {
+            return get(((NettyWebsocketResponseDispatcher) dispatcher)
+                    .getChannel());
+        }
+        if (request instanceof NettyRequest) {
+            ChannelHandlerContext ctx = ((NettyRequest) request)
+                    .getChannelHandlerContext();
+            return ctx != null ? get(ctx.channel()) : null;
+        }
+        return null;
+    }
+
+    public Channel getChannel() {
+        return channel;
+    }
+
+    WebSocketServerHandshaker getHandshaker() {
+        return handshaker;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * This method adds subscription to the session
+     *
+     * @param topic
+     * @return false if session was already subscribed to the topic
+     */
+    public boolean subscribe(String topic) {
+        return subscriptions.add(topic);
+    }
+
+    public boolean unsubscribe(String topic) {
+        return subscriptions.remove(topic);
+    }
+
+    public boolean isSubscribed(String topic) {
+        return subscriptions.contains(topic);
+    }
+
+    public Set<String> getSubscriptions() {
+        return Collections.unmodifiableSet(subscriptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String name) {
+        return (T) attributes.get(name);
+    }
+
+    public void setAttribute(String name, Object value) {
+        if (value == null) {
+            attributes.remove(name);
+        } else {
+            attributes.put(name, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WebsocketSession [channel=" + channel + ", subscriptions="
+                + subscriptions + "]";
+    }
+}
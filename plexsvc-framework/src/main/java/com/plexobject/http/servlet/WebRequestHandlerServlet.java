@@ -21,6 +21,7 @@ import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
 import com.plexobject.handler.ServletRequest;
+import com.plexobject.http.AccessLog;
 import com.plexobject.http.Handledable;
 import com.plexobject.http.WebContainerProvider;
 import com.plexobject.security.SecurityAuthorizer;
@@ -47,6 +48,7 @@ public class WebRequestHandlerServlet extends HttpServlet implements Lifecycle {
     private ServiceRegistry serviceRegistry;
     private RequestHandler defaultExecutor;
     private CodecType codecType;
+    private AccessLog accessLog;
 
     public void init(ServletConfig servletConfig) throws ServletException {
         super.init(servletConfig);
@@ -54,6 +56,7 @@ public class WebRequestHandlerServlet extends HttpServlet implements Lifecycle {
                 .getInitParameter(Constants.PLEXSERVICE_CONFIG_RESOURCE_PATH);
         try {
             config = new Configuration(plexserviceConfigResourcePath);
+            accessLog = new AccessLog(config);
             String plexserviceCallbackClass = config
                     .getProperty(Constants.PLEXSERVICE_AWARE_CLASS);
             String plexserviceSecurityAuthorizerClass = config
@@ -132,6 +135,9 @@ public class WebRequestHandlerServlet extends HttpServlet implements Lifecycle {
 
     @Override
     public void destroy() {
+        if (accessLog != null) {
+            accessLog.stop();
+        }
         super.destroy();
     }
 
@@ -180,8 +186,15 @@ public class WebRequestHandlerServlet extends HttpServlet implements Lifecycle {
                 .setCodecType(codecType).setContents(textPayload)
                 .setResponseDispatcher(dispatcher).build();
 
-        logger.info("PLEXSVC HTTP Received URI " + uri);
+        long started = accessLog.isSampled() ? System.currentTimeMillis() : 0;
         defaultExecutor.handle(handlerReq);
+        // response is sent by the time handler returns
+        if (started > 0) {
+            accessLog.log(Protocol.HTTP, method, uri, req.getRemoteAddr(),
+                    req.getContentLength(), handlerReq.getResponse()
+                            .getStatusCode(), System.currentTimeMillis()
+                            - started);
+        }
     }
 
     private static Map<String, Object> getParams(HttpServletRequest request) {
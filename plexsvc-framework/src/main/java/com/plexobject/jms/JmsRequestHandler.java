@@ -16,10 +16,13 @@ import javax.naming.NamingException;
 
 import org.apache.log4j.Logger;
 
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
 import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.JMSRequest;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.http.HttpResponse;
 import com.plexobject.jms.impl.JMSUtils;
 import com.plexobject.service.Protocol;
 import com.plexobject.service.RequestMethod;
@@ -28,7 +31,9 @@ import com.plexobject.service.ServiceRegistry;
 
 /**
  * This class implements MessageListener for handling requests over JMS and then
- * forwards them to underlying services.
+ * forwards them to underlying services. When messages are received in batches,
+ * server errors of the service are thrown to the receiver so that the batch
+ * is rolled back and redelivered.
  * 
  * @author shahzad bhatti
  *
@@ -41,6 +46,7 @@ class JmsRequestHandler implements MessageListener, ExceptionListener {
     private final JMSContainer jmsContainer;
     private final Destination destination;
     private final RequestHandler handler;
+    private final boolean batchReceive;
     private Closeable consumer;
     private int errors;
 
@@ -51,6 +57,8 @@ class JmsRequestHandler implements MessageListener, ExceptionListener {
         this.jmsContainer = jmsContainer;
         this.handler = handler;
         this.destination = destination;
+        this.batchReceive = serviceRegistry.getConfiguration().getInteger(
+                Constants.JMS_RECEIVE_BATCH_SIZE, 1) > 1;
         registerListener();
         jmsContainer.addExceptionListener(this);
     }
@@ -74,7 +82,8 @@ class JmsRequestHandler implements MessageListener, ExceptionListener {
             Map<String, Object> params = JMSUtils.getProperties(message);
 
             AbstractResponseDispatcher dispatcher = new JmsResponseDispatcher(
-                    jmsContainer, message.getJMSReplyTo());
+                    jmsContainer, message.getJMSReplyTo(),
+                    message.getJMSCorrelationID());
 
             Request request = JMSRequest
                     .builder()
@@ -97,8 +106,30 @@ class JmsRequestHandler implements MessageListener, ExceptionListener {
             errors = 0;
             // service registry will invoke handler and send back reply
             serviceRegistry.invoke(request, handler);
+            if (batchReceive) {
+                rethrowServerError(request);
+            }
         } catch (JMSException e) {
             logger.error("PLEXSVC Failed to handle request", e);
+            if (batchReceive) {
+                throw new IllegalStateException("Failed to handle message for "
+                        + config.endpoint(), e);
+            }
+        }
+    }
+
+    /**
+     * Service registry sends errors of the service as reply instead of
+     * throwing them. Client errors would fail again when redelivered so only
+     * server errors are thrown to roll back the batch.
+     */
+    private static void rethrowServerError(Request request) {
+        Object contents = request.getResponse().getContents();
+        int status = request.getResponse().getStatusCode();
+        if (contents instanceof Throwable
+                && status >= HttpResponse.SC_INTERNAL_SERVER_ERROR) {
+            throw new IllegalStateException("Failed to handle message for "
+                    + request.getEndpoint(), (Throwable) contents);
         }
     }
 
@@ -124,8 +155,14 @@ class JmsRequestHandler implements MessageListener, ExceptionListener {
 
     private void registerListener() throws JMSException, NamingException {
         ServiceConfigDesc desc = serviceRegistry.getServiceConfig(handler);
+        Configuration config = serviceRegistry.getConfiguration();
+        // maximum concurrency may also be defined for the destination
         MessageListenerConfig MessageListenerConfig = new MessageListenerConfig(
-                desc.concurrency(), true, Session.AUTO_ACKNOWLEDGE, 0);
+                desc.concurrency(), desc.concurrency(), true,
+                Session.AUTO_ACKNOWLEDGE, 0, config.getInteger(
+                        Constants.JMS_RECEIVE_BATCH_SIZE, 1),
+                config.getBoolean(Constants.JMS_RECEIVE_BATCH_PARALLEL, false),
+                serviceRegistry.getInvocationPlan(handler).getMetrics());
         consumer = jmsContainer.setMessageListener(destination, this,
                 MessageListenerConfig);
         logger.info("PLEXSVC registering " + handler.getClass().getSimpleName()
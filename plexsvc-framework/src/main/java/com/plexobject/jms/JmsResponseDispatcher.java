@@ -1,11 +1,15 @@
 package com.plexobject.jms;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.jms.Destination;
 
 import org.apache.log4j.Logger;
 
 import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.Response;
+import com.plexobject.jms.impl.JMSUtils;
 
 /**
  * This class sends reply back over JMS
@@ -19,18 +23,36 @@ public class JmsResponseDispatcher extends AbstractResponseDispatcher {
 
     private final JMSContainer messageListenerContainer;
     private final Destination replyTo;
+    private final String correlationId;
 
     public JmsResponseDispatcher(JMSContainer messageListenerContainer,
             Destination replyTo) {
+        this(messageListenerContainer, replyTo, null);
+    }
+
+    /**
+     * @param messageListenerContainer
+     * @param replyTo
+     * @param correlationId
+     *            - correlation-id of the request, which is copied to the reply
+     *            so that requester can match it on a shared reply queue
+     */
+    public JmsResponseDispatcher(JMSContainer messageListenerContainer,
+            Destination replyTo, String correlationId) {
         this.messageListenerContainer = messageListenerContainer;
         this.replyTo = replyTo;
+        this.correlationId = correlationId;
     }
 
     @Override
     protected void doSend(Response reply, Object encodedPayload) {
         try {
-            messageListenerContainer.send(replyTo, reply.getProperties(),
-                    encodedPayload);
+            Map<String, Object> headers = reply.getProperties();
+            if (correlationId != null) {
+                headers = new HashMap<>(headers);
+                headers.put(JMSUtils.JMS_CORRELATION_ID, correlationId);
+            }
+            messageListenerContainer.send(replyTo, headers, encodedPayload);
             if (logger.isDebugEnabled()) {
                 logger.debug("PLEXSVC Sending reply " + encodedPayload + " to " + replyTo);
             }
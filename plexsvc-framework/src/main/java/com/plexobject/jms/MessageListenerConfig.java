@@ -2,11 +2,17 @@ package com.plexobject.jms;
 
 import javax.jms.Session;
 
+import com.plexobject.metrics.ServiceMetrics;
+
 public class MessageListenerConfig {
     private final int concurrency;
+    private final int maxConcurrency;
     private final boolean sessionTransacted;
     private final int sessionAcknowledgeMode;
     private final int receiveTimeout;
+    private final int batchSize;
+    private final boolean batchParallel;
+    private final ServiceMetrics metrics;
 
     public MessageListenerConfig() {
         this(1, true, Session.AUTO_ACKNOWLEDGE, 0);
@@ -14,16 +20,69 @@ public class MessageListenerConfig {
 
     public MessageListenerConfig(int concurrency, boolean sessionTransacted,
             int sessionAcknowledgeMode, int receiveTimeout) {
+        this(concurrency, sessionTransacted, sessionAcknowledgeMode,
+                receiveTimeout, 1, false);
+    }
+
+    /**
+     * @param concurrency
+     *            - number of receiving threads
+     * @param sessionTransacted
+     *            - when receiving in batches, batch is committed if true or
+     *            acknowledged otherwise
+     * @param sessionAcknowledgeMode
+     * @param receiveTimeout
+     * @param batchSize
+     *            - maximum number of available messages that are received
+     *            before they are committed or acknowledged together
+     * @param batchParallel
+     *            - if true, messages of a batch are processed in parallel
+     */
+    public MessageListenerConfig(int concurrency, boolean sessionTransacted,
+            int sessionAcknowledgeMode, int receiveTimeout, int batchSize,
+            boolean batchParallel) {
+        this(concurrency, concurrency, sessionTransacted,
+                sessionAcknowledgeMode, receiveTimeout, batchSize,
+                batchParallel, null);
+    }
+
+    /**
+     * @param concurrency
+     *            - minimum number of receiving threads
+     * @param maxConcurrency
+     *            - maximum number of receiving threads, which are added when
+     *            all receiving threads are busy and removed when they remain
+     *            idle
+     * @param sessionTransacted
+     * @param sessionAcknowledgeMode
+     * @param receiveTimeout
+     * @param batchSize
+     * @param batchParallel
+     * @param metrics
+     *            - optional metrics that record number of receiving threads
+     */
+    public MessageListenerConfig(int concurrency, int maxConcurrency,
+            boolean sessionTransacted, int sessionAcknowledgeMode,
+            int receiveTimeout, int batchSize, boolean batchParallel,
+            ServiceMetrics metrics) {
         this.concurrency = concurrency;
+        this.maxConcurrency = Math.max(concurrency, maxConcurrency);
+        this.metrics = metrics;
         this.sessionTransacted = sessionTransacted;
         this.sessionAcknowledgeMode = sessionAcknowledgeMode;
         this.receiveTimeout = receiveTimeout;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchParallel = batchParallel;
     }
 
     public int getConcurrency() {
         return concurrency;
     }
 
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
     public boolean isSessionTransacted() {
         return sessionTransacted;
     }
@@ -36,4 +95,16 @@ public class MessageListenerConfig {
         return receiveTimeout;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isBatchParallel() {
+        return batchParallel;
+    }
+
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
 }
@@ -10,12 +10,15 @@ import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.BytesMessage;
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
-import javax.jms.DeliveryMode;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
@@ -46,9 +49,20 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
     private Connection connection;
     private final ThreadLocal<Session> currentSession = new ThreadLocal<>();
     private final ThreadLocal<Map<String, MessageProducer>> currentProducers = new ThreadLocal<>();
+    // session of the transacted batch whose message is processed by the thread
+    private final ThreadLocal<Session> currentBatchSession = new ThreadLocal<>();
     private final List<MessageReceiverThread> receivers = new ArrayList<>();
     private final ExecutorService executorService = Executors
             .newCachedThreadPool();
+    private final boolean sharedReplyQueue;
+    private final long replyTimeoutMillis;
+    private final int batchSize;
+    private final long batchDelayMicros;
+    private final int idleReceivesLimit;
+    private final int receiveBatchThreads;
+    private JMSReplyQueue replyQueue;
+    private JMSBatchSender batchSender;
+    private ExecutorService batchExecutor;
 
     public DefaultJMSContainer(Configuration config) {
         this(config, new DestinationResolverImpl(config));
@@ -57,6 +71,18 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
     public DefaultJMSContainer(Configuration config,
             DestinationResolver destinationResolver) {
         super(config, destinationResolver);
+        this.sharedReplyQueue = config.getBoolean(
+                Constants.JMS_SHARED_REPLY_QUEUE, true);
+        this.replyTimeoutMillis = TimeUnit.SECONDS.toMillis(Math.max(1,
+                config.getInteger(Constants.JMS_REPLY_TIMEOUT_SECS, 60)));
+        this.batchSize = config.getInteger(Constants.JMS_BATCH_SIZE, 0);
+        this.batchDelayMicros = config.getInteger(
+                Constants.JMS_BATCH_DELAY_MICROS, 1000);
+        this.idleReceivesLimit = config.getInteger(
+                Constants.JMS_IDLE_RECEIVES_LIMIT, 5);
+        this.receiveBatchThreads = Math.max(1, config.getInteger(
+                Constants.JMS_RECEIVE_BATCH_THREADS, Runtime.getRuntime()
+                        .availableProcessors()));
         createConnection();
     }
 
@@ -129,6 +155,18 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
             } catch (InterruptedException e) {
                 Thread.interrupted();
             }
+            if (replyQueue != null) {
+                replyQueue.close();
+                replyQueue = null;
+            }
+            if (batchSender != null) {
+                batchSender.close();
+                batchSender = null;
+            }
+            if (batchExecutor != null) {
+                batchExecutor.shutdown();
+                batchExecutor = null;
+            }
             try {
                 connection.stop();
             } catch (JMSException e) {
@@ -178,31 +216,23 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
                 }
             };
         } else {
-            final List<MessageReceiverThread> threads = new ArrayList<>();
-            synchronized (receivers) {
-                for (int i = 0; i < messageListenerConfig.getConcurrency(); i++) {
-                    final MessageReceiverThread t = new MessageReceiverThread(
-                            destination + "-" + (i + 1), destination, l, null,
-                            this, messageListenerConfig.getReceiveTimeout(),
-                            this);
-                    threads.add(t);
-                    executorService.submit(t);
-                }
-            }
+            int maxConcurrency = Math.max(
+                    messageListenerConfig.getMaxConcurrency(),
+                    config.getInteger(
+                            "jms." + JMSUtils.getDestName(destination)
+                                    + ".maxConcurrency", 0));
+            ReceiverGroup group = new ReceiverGroup(destination, l,
+                    messageListenerConfig, maxConcurrency, idleReceivesLimit,
+                    this);
             // MessageReceiverThread will be added in callback
-            return new Closeable() {
-                @Override
-                public void close() throws IOException {
-                    for (MessageReceiverThread t : threads) {
-                        try {
-                            t.stop();
-                        } catch (Exception e) {
-                            logger.error("PLEXSVC Failed to close message-receiver thread for "
-                                    + destination);
-                        }
-                    }
-                }
-            };
+            group.start();
+            return group;
+        }
+    }
+
+    void submit(MessageReceiverThread t) {
+        synchronized (receivers) {
+            executorService.submit(t);
         }
     }
 
@@ -227,16 +257,7 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
             }
             if (producer == null) {
                 producer = currentJmsSession().createProducer(destination);
-                int ttl = 0;
-                int deliveryMode = DeliveryMode.NON_PERSISTENT;
-                ttl = config.getInteger("jms." + destName + ".ttl", 0);
-                if (config.getBoolean("jms." + destName + ".persistent")) {
-                    deliveryMode = DeliveryMode.PERSISTENT;
-                }
-                if (ttl > 0) {
-                    producer.setTimeToLive(ttl);
-                }
-                producer.setDeliveryMode(deliveryMode);
+                JMSUtils.configureProducer(config, producer, destName);
             }
             if (producers != null) {
                 producers.put(destName, producer);
@@ -262,17 +283,86 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
 
         JMSUtils.setHeaders(headers, m);
 
-        Future<Response> promise = JMSUtils.configureReplier(
+        Future<Response> promise = sharedReplyQueue ? getReplyQueue()
+                .register(m, handler) : JMSUtils.configureReplier(
                 currentJmsSession(), m, handler, this);
         if (logger.isDebugEnabled()) {
             logger.debug("PLEXSVC Sending JMS message to " + destination
                     + ", payload " + encodedPayload
                     + ", and waiting for reply...");
         }
-        createProducer(destination).send(m);
+        try {
+            createProducer(destination).send(m);
+        } catch (JMSException | RuntimeException e) {
+            promise.cancel(true);
+            throw e;
+        }
         return promise;
     }
 
+    /**
+     * This method returns queue that receives replies of all requests sent by
+     * this container
+     * 
+     * @return
+     * @throws JMSException
+     */
+    synchronized JMSReplyQueue getReplyQueue() throws JMSException {
+        if (replyQueue == null) {
+            replyQueue = new JMSReplyQueue(connection, replyTimeoutMillis);
+        }
+        return replyQueue;
+    }
+
+    /**
+     * This method returns sender that commits messages in batches or null if
+     * batching is not enabled
+     * 
+     * @return
+     * @throws JMSException
+     */
+    synchronized JMSBatchSender getBatchSender() throws JMSException {
+        if (batchSize <= 1) {
+            return null;
+        }
+        if (batchSender == null) {
+            batchSender = new JMSBatchSender(config, connection, batchSize,
+                    batchDelayMicros);
+        }
+        return batchSender;
+    }
+
+    /**
+     * This method returns executor that is shared by all receivers of this
+     * container for processing messages of a batch in parallel, its threads
+     * are bounded by jms.receiveBatchThreads instead of batch size
+     * 
+     * @return
+     */
+    synchronized ExecutorService getBatchExecutor() {
+        if (batchExecutor == null) {
+            logger.info("PLEXSVC Creating JMS batch executor with "
+                    + receiveBatchThreads + " threads");
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    receiveBatchThreads, receiveBatchThreads, 60,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread t = new Thread(r, "plexsvc-jms-batch-"
+                                    + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            batchExecutor = executor;
+        }
+        return batchExecutor;
+    }
+
     // @Override
     // public void send(final String destName, final Map<String, Object>
     // headers,
@@ -286,6 +376,11 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
             final Map<String, Object> headers, final Object encodedPayload)
             throws JMSException, NamingException {
         // log.info("PLEXSVC Sending " + payload + " to " + destination);
+        Session batchSession = currentBatchSession.get();
+        if (batchSession != null) {
+            sendInBatch(batchSession, destination, headers, encodedPayload);
+            return;
+        }
         Message m = null;
         if (encodedPayload instanceof String) {
             m = createTextMessage((String) encodedPayload);
@@ -300,6 +395,16 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
         }
         JMSUtils.setHeaders(headers, m);
 
+        // replies are sent to temporary queues right away
+        if (batchSize > 1 && !(destination instanceof TemporaryQueue)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("PLEXSVC Queueing JMS message to " + destination
+                        + ", payload " + encodedPayload + ", headers "
+                        + headers);
+            }
+            getBatchSender().send(destination, m);
+            return;
+        }
         MessageProducer msgProducer = createProducer(destination);
         if (logger.isDebugEnabled()) {
             logger.debug("PLEXSVC Sending JMS message to " + destination
@@ -315,6 +420,64 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
         }
     }
 
+    /**
+     * This method sends message on session of the batch that is being
+     * processed so that it's committed or rolled back with the batch
+     */
+    private void sendInBatch(final Session batchSession,
+            final Destination destination, final Map<String, Object> headers,
+            final Object encodedPayload) throws JMSException {
+        if (!headers.containsKey(Constants.REMOTE_ADDRESS)) {
+            headers.put(Constants.REMOTE_ADDRESS, HostUtils.getLocalHost());
+        }
+        // messages of a batch may be processed in parallel while a session
+        // can only be used by one thread at a time
+        synchronized (batchSession) {
+            Message m = null;
+            if (encodedPayload instanceof String) {
+                m = batchSession.createTextMessage((String) encodedPayload);
+            } else if (encodedPayload instanceof byte[]) {
+                BytesMessage bm = batchSession.createBytesMessage();
+                bm.writeBytes((byte[]) encodedPayload);
+                m = bm;
+            } else {
+                throw new IllegalArgumentException(
+                        "Unknown encoded payload for response "
+                                + encodedPayload);
+            }
+            JMSUtils.setHeaders(headers, m);
+            if (logger.isDebugEnabled()) {
+                logger.debug("PLEXSVC Sending JMS message to " + destination
+                        + " in batch, payload " + encodedPayload
+                        + ", headers " + headers);
+            }
+            MessageProducer producer = batchSession.createProducer(destination);
+            try {
+                JMSUtils.configureProducer(config, producer,
+                        JMSUtils.getDestName(destination));
+                producer.send(m);
+            } finally {
+                producer.close();
+            }
+        }
+    }
+
+    /**
+     * This method binds session of a transacted batch to current thread while
+     * it processes a message of the batch, so that replies and other messages
+     * sent by the thread are committed or rolled back with the batch
+     * 
+     * @param session
+     *            - session of the batch or null after the message is processed
+     */
+    void setCurrentBatchSession(Session session) {
+        if (session == null) {
+            currentBatchSession.remove();
+        } else {
+            currentBatchSession.set(session);
+        }
+    }
+
     @Override
     public Destination getDestination(String destName) throws JMSException,
             NamingException {
@@ -344,6 +507,20 @@ public class DefaultJMSContainer extends BaseJMSContainer implements
         return currentJmsSession().createConsumer(destination);
     }
 
+    /**
+     * This method creates a session that is not shared with other threads,
+     * e.g. for receiving messages in batches
+     * 
+     * @param transacted
+     * @param acknowledgeMode
+     * @return
+     * @throws JMSException
+     */
+    Session createSession(boolean transacted, int acknowledgeMode)
+            throws JMSException {
+        return connection.createSession(transacted, acknowledgeMode);
+    }
+
     public TemporaryQueue createTemporaryQueue() throws JMSException,
             NamingException {
         return currentJmsSession().createTemporaryQueue();
@@ -0,0 +1,255 @@
+package com.plexobject.jms.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+
+/**
+ * This class sends messages of a container in batches on a dedicated
+ * transacted session. Messages are queued by the callers and a sender thread
+ * accumulates them until the batch has batch-size messages or batch-delay has
+ * elapsed since first message of the batch, and then sends them with a single
+ * commit. A batch that is rolled back is sent again up to jms.batchRetries
+ * times with exponential backoff before its messages are counted as failed.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class JMSBatchSender implements Runnable {
+    private static final Logger logger = Logger.getLogger(JMSBatchSender.class);
+    private static final long POLL_MILLIS = 100;
+    private static final long RETRY_DELAY_MILLIS = 100;
+
+    private static class PendingMessage {
+        private final Destination destination;
+        private final Message message;
+
+        private PendingMessage(Destination destination, Message message) {
+            this.destination = destination;
+            this.message = message;
+        }
+    }
+
+    private final Configuration config;
+    private final int batchSize;
+    private final long batchDelayNanos;
+    private final int maxRetries;
+    private final Session session;
+    private final BlockingQueue<PendingMessage> pendingMessages;
+    private final Map<String, MessageProducer> producers = new HashMap<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong commitCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final ExecutorService executor;
+    private volatile boolean closed;
+
+    public JMSBatchSender(Configuration config, Connection connection,
+            int batchSize, long batchDelayMicros) throws JMSException {
+        if (batchSize <= 1) {
+            throw new IllegalArgumentException("batch-size " + batchSize
+                    + " must be greater than 1");
+        }
+        this.config = config;
+        this.batchSize = batchSize;
+        this.batchDelayNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(0,
+                batchDelayMicros));
+        this.maxRetries = Math.max(0,
+                config.getInteger(Constants.JMS_BATCH_RETRIES, 3));
+        // bounded so that producers are slowed down when broker can't keep up
+        this.pendingMessages = new LinkedBlockingQueue<>(Math.max(1024,
+                batchSize * 16));
+        this.session = connection.createSession(true, Session.SESSION_TRANSACTED);
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "plexsvc-jms-batch-sender");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.submit(this);
+        logger.info("PLEXSVC Created batch sender with batch-size "
+                + batchSize + ", batch-delay " + batchDelayMicros
+                + " micro-seconds");
+    }
+
+    /**
+     * This method queues message for sending, which may block if sender has
+     * fallen behind
+     *
+     * @param destination
+     * @param message
+     * @throws JMSException
+     * @throws IllegalStateException
+     *             if sender is closed before message is queued
+     */
+    public void send(Destination destination, Message message)
+            throws JMSException {
+        PendingMessage pending = new PendingMessage(destination, message);
+        boolean queued = false;
+        try {
+            while (!closed && !queued) {
+                queued = pendingMessages.offer(pending, POLL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("Interrupted while queueing message for "
+                    + destination);
+        }
+        // sender thread exits once queue of a closed sender is drained, so
+        // message is only sent if the thread has already taken it
+        if (closed && (!queued || pendingMessages.remove(pending))) {
+            throw new IllegalStateException("Batch sender is closed");
+        }
+    }
+
+    @Override
+    public void run() {
+        final List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (!closed || !pendingMessages.isEmpty()) {
+            try {
+                PendingMessage first = pendingMessages.poll(POLL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchDelayNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? pendingMessages
+                            .poll(remaining, TimeUnit.NANOSECONDS)
+                            : pendingMessages.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+            }
+            if (batch.size() > 0) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        try {
+            session.close();
+        } catch (Exception e) {
+            logger.warn("PLEXSVC Failed to close batch session: " + e);
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        long delay = RETRY_DELAY_MILLIS;
+        for (int attempt = 0;; attempt++) {
+            try {
+                send(batch);
+                return;
+            } catch (Exception e) {
+                try {
+                    session.rollback();
+                } catch (JMSException ex) {
+                    logger.warn("PLEXSVC Failed to rollback batch: " + ex);
+                }
+                if (attempt >= maxRetries) {
+                    failedCount.addAndGet(batch.size());
+                    logger.error("PLEXSVC Failed to send batch of "
+                            + batch.size() + " messages after "
+                            + (attempt + 1) + " attempts", e);
+                    return;
+                }
+                logger.warn("PLEXSVC Retrying batch of " + batch.size()
+                        + " messages in " + delay + " millis: " + e);
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.interrupted();
+            }
+            delay *= 2;
+        }
+    }
+
+    private void send(List<PendingMessage> batch) throws JMSException {
+        for (PendingMessage pending : batch) {
+            getProducer(pending.destination).send(pending.message);
+        }
+        session.commit();
+        sentCount.addAndGet(batch.size());
+        commitCount.incrementAndGet();
+        if (logger.isDebugEnabled()) {
+            logger.debug("PLEXSVC Committed batch of " + batch.size()
+                    + " messages");
+        }
+    }
+
+    private MessageProducer getProducer(Destination destination)
+            throws JMSException {
+        String destName = JMSUtils.getDestName(destination);
+        MessageProducer producer = producers.get(destName);
+        if (producer == null) {
+            producer = session.createProducer(destination);
+            JMSUtils.configureProducer(config, producer, destName);
+            producers.put(destName, producer);
+        }
+        return producer;
+    }
+
+    long getSentCount() {
+        return sentCount.get();
+    }
+
+    long getCommitCount() {
+        return commitCount.get();
+    }
+
+    long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * This method sends queued messages and closes the batch session
+     */
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warn("PLEXSVC Dropping " + pendingMessages.size()
+                        + " messages of batch sender");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.interrupted();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JMSBatchSender [batchSize=" + batchSize + ", sent="
+                + sentCount + ", commits=" + commitCount + ", failed="
+                + failedCount + "]";
+    }
+}
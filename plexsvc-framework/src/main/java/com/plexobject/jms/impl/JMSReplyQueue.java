@@ -0,0 +1,215 @@
+package com.plexobject.jms.impl;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.domain.Promise;
+import com.plexobject.handler.Handler;
+import com.plexobject.handler.Response;
+
+/**
+ * This class receives replies of all synchronous requests of a container on a
+ * single temporary queue. Each request gets a unique correlation-id and
+ * replies are matched to pending requests by correlation-id of the reply.
+ * Requests that are not answered or waited for within reply timeout are swept
+ * periodically. All replies are received by onMessage on the single session
+ * thread of the queue, so reply handlers run one at a time and should not
+ * block.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class JMSReplyQueue implements MessageListener {
+    private static final Logger logger = Logger.getLogger(JMSReplyQueue.class);
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private static class PendingReply {
+        private final Promise<Response> promise;
+        private final Handler<Response> handler;
+        private final long expiresAt;
+
+        private PendingReply(Promise<Response> promise,
+                Handler<Response> handler, long expiresAt) {
+            this.promise = promise;
+            this.handler = handler;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, PendingReply> pendingReplies = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final String idPrefix;
+    private final long replyTimeoutMillis;
+    private final Session session;
+    private final TemporaryQueue queue;
+    private final MessageConsumer consumer;
+    private final ScheduledExecutorService sweeper;
+
+    public JMSReplyQueue(Connection connection, long replyTimeoutMillis)
+            throws JMSException {
+        this.replyTimeoutMillis = replyTimeoutMillis;
+        this.session = connection.createSession(false,
+                Session.AUTO_ACKNOWLEDGE);
+        this.queue = session.createTemporaryQueue();
+        this.idPrefix = Long.toString(System.nanoTime(), 36) + "-"
+                + Integer.toString(System.identityHashCode(this), 36) + "-";
+        this.consumer = session.createConsumer(queue);
+        consumer.setMessageListener(this);
+        this.sweeper = Executors
+                .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "plexsvc-jms-reply-sweeper");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        sweeper.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                sweep(System.currentTimeMillis());
+            }
+        }, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        logger.info("PLEXSVC Created reply queue " + queue);
+    }
+
+    /**
+     * This method sets reply-to and correlation-id of the request and returns
+     * future for its reply
+     *
+     * @param reqMsg
+     * @param handler
+     *            - invoked with reply before the future is completed
+     * @return future of reply
+     * @throws JMSException
+     */
+    public Future<Response> register(Message reqMsg, Handler<Response> handler)
+            throws JMSException {
+        final String correlationId = idPrefix + nextId.incrementAndGet();
+        reqMsg.setJMSReplyTo(queue);
+        reqMsg.setJMSCorrelationID(correlationId);
+        final Promise<Response> promise = new Promise<>();
+        final Handler<Promise<Response>> disposer = new Handler<Promise<Response>>() {
+            @Override
+            public void handle(Promise<Response> request) {
+                pendingReplies.remove(correlationId);
+            }
+        };
+        promise.setCancelHandler(disposer);
+        promise.setTimedoutHandler(disposer);
+        pendingReplies.put(correlationId, new PendingReply(promise, handler,
+                System.currentTimeMillis() + replyTimeoutMillis));
+        return promise;
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        PendingReply pending = null;
+        try {
+            String correlationId = message.getJMSCorrelationID();
+            pending = correlationId != null ? pendingReplies
+                    .remove(correlationId) : null;
+            if (pending == null) {
+                logger.warn("PLEXSVC Dropping reply without pending request, correlation-id "
+                        + correlationId);
+                return;
+            }
+            Response response = JMSUtils.toResponse(message);
+            pending.handler.handle(response);
+            pending.promise.complete(response);
+        } catch (Exception e) {
+            logger.error("PLEXSVC Failed to forward reply " + message, e);
+            if (pending != null) {
+                pending.promise.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * This method fails requests whose reply didn't arrive before they
+     * expired
+     *
+     * @param now
+     * @return number of expired requests
+     */
+    int sweep(long now) {
+        int expired = 0;
+        for (Iterator<Map.Entry<String, PendingReply>> it = pendingReplies
+                .entrySet().iterator(); it.hasNext();) {
+            PendingReply pending = it.next().getValue();
+            if (pending.expiresAt <= now) {
+                it.remove();
+                expired++;
+                complete(pending, new TimeoutException("No reply within "
+                        + replyTimeoutMillis + " milli-seconds"));
+            }
+        }
+        if (expired > 0 && logger.isDebugEnabled()) {
+            logger.debug("PLEXSVC Expired " + expired + " pending replies on "
+                    + queue);
+        }
+        return expired;
+    }
+
+    int getPendingCount() {
+        return pendingReplies.size();
+    }
+
+    TemporaryQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * This method deletes the reply queue and fails pending requests
+     */
+    public void close() {
+        sweeper.shutdownNow();
+        for (Iterator<PendingReply> it = pendingReplies.values().iterator(); it
+                .hasNext();) {
+            PendingReply pending = it.next();
+            it.remove();
+            complete(pending, new IllegalStateException("Reply queue "
+                    + queue + " is closed"));
+        }
+        try {
+            consumer.close();
+            queue.delete();
+            session.close();
+        } catch (Exception e) {
+            logger.warn("PLEXSVC Failed to close reply queue " + queue + ": "
+                    + e);
+        }
+    }
+
+    private static void complete(PendingReply pending, Exception e) {
+        try {
+            pending.promise.completeExceptionally(e);
+        } catch (IllegalStateException ex) {
+            // already completed
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JMSReplyQueue [queue=" + queue + ", pending="
+                + pendingReplies.size() + "]";
+    }
+}
@@ -9,10 +9,12 @@ import java.util.concurrent.Future;
 
 import javax.jms.BytesMessage;
 import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
 import javax.jms.Queue;
 import javax.jms.Session;
 import javax.jms.TemporaryQueue;
@@ -42,7 +44,7 @@ public class JMSUtils {
     public static final String JMS_CONTEXT_FACTORY = "JMSContextFactory";
     private static final String JMS_DESTINATION = "JMSDestination";
     private static final String JMS_REPLY_TO = "JMSReplyTo";
-    private static final String JMS_CORRELATION_ID = "JMSCorrelationID";
+    public static final String JMS_CORRELATION_ID = "JMSCorrelationID";
     private static final String JMS_TIMESTAMP = "JMSTimestamp";
     private static final String JMS_MESSAGE_ID = "JMSMessageID";
 
@@ -53,7 +55,10 @@ public class JMSUtils {
         for (Map.Entry<String, Object> e : headers.entrySet()) {
             String name = e.getKey();
             Object value = e.getValue();
-            if (value instanceof Integer) {
+            if (JMS_CORRELATION_ID.equals(name)) {
+                reqMsg.setJMSCorrelationID(value != null ? value.toString()
+                        : null);
+            } else if (value instanceof Integer) {
                 reqMsg.setIntProperty(name, (Integer) value);
             } else if (value instanceof Long) {
                 reqMsg.setLongProperty(name, (Long) value);
@@ -91,6 +96,28 @@ public class JMSUtils {
         }
     }
 
+    /**
+     * This method sets delivery mode and time-to-live of the producer based
+     * on configuration of its destination
+     * 
+     * @param config
+     * @param producer
+     * @param destName
+     * @throws JMSException
+     */
+    static void configureProducer(Configuration config,
+            MessageProducer producer, String destName) throws JMSException {
+        int deliveryMode = DeliveryMode.NON_PERSISTENT;
+        int ttl = config.getInteger("jms." + destName + ".ttl", 0);
+        if (config.getBoolean("jms." + destName + ".persistent")) {
+            deliveryMode = DeliveryMode.PERSISTENT;
+        }
+        if (ttl > 0) {
+            producer.setTimeToLive(ttl);
+        }
+        producer.setDeliveryMode(deliveryMode);
+    }
+
     public static ConnectionFactory getConnectionFactory(Configuration config)
             throws NamingException {
         final String contextFactory = config.getProperty(JMS_CONTEXT_FACTORY);
@@ -151,6 +178,45 @@ public class JMSUtils {
         return params;
     }
 
+    /**
+     * This method converts reply message into response
+     * 
+     * @param message
+     * @return
+     * @throws JMSException
+     */
+    public static Response toResponse(Message message) throws JMSException {
+        String textPayload = null;
+        if (message instanceof TextMessage) {
+            TextMessage txtMessage = (TextMessage) message;
+            textPayload = txtMessage.getText();
+        } else if (message instanceof BytesMessage) {
+            BytesMessage bMessage = (BytesMessage) message;
+            byte data[] = new byte[(int) bMessage.getBodyLength()];
+            bMessage.readBytes(data);
+            textPayload = new String(data);
+        } else {
+            throw new IllegalArgumentException("Unknown message " + message);
+        }
+
+        final Map<String, Object> params = getProperties(message);
+        // TODO 6/26/15 setting request to null, verify
+        return new Response(null, params, params, textPayload, null);
+    }
+
+    /**
+     * This method creates temporary queue for reply of the request, which is
+     * deleted after the reply is received. Containers that send many requests
+     * should use JMSReplyQueue instead.
+     * 
+     * @param session
+     * @param reqMsg
+     * @param reqHandler
+     * @param listenerContainer
+     * @return
+     * @throws JMSException
+     * @throws NamingException
+     */
     public static Future<Response> configureReplier(final Session session,
             final Message reqMsg, final Handler<Response> reqHandler,
             final MessageListenerContainer listenerContainer)
@@ -179,25 +245,7 @@ public class JMSUtils {
             @Override
             public void onMessage(Message message) {
                 try {
-                    String textPayload = null;
-                    if (message instanceof TextMessage) {
-                        TextMessage txtMessage = (TextMessage) message;
-                        textPayload = txtMessage.getText();
-                    } else if (message instanceof BytesMessage) {
-                        BytesMessage bMessage = (BytesMessage) message;
-                        byte data[] = new byte[(int) bMessage.getBodyLength()];
-                        bMessage.readBytes(data);
-                        textPayload = new String(data);
-                    } else {
-                        throw new IllegalArgumentException("Unknown message "
-                                + message);
-                    }
-
-                    final Map<String, Object> params = JMSUtils
-                            .getProperties(message);
-                    // TODO 6/26/15 setting request to null, verify
-                    final Response response = new Response(null, params,
-                            params, textPayload, null);
+                    final Response response = toResponse(message);
                     reqHandler.handle(response);
                     promise.complete(response);
                 } catch (Exception e) {
@@ -206,7 +254,6 @@ public class JMSUtils {
                     promise.completeExceptionally(e);
                 } finally {
                     try {
-                        Thread.sleep(100);
                         closeable.close();
                     } catch (Exception ex) {
                         logger.warn("PLEXSVC Failed to close", ex);
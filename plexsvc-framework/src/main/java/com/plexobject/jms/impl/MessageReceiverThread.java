@@ -1,19 +1,33 @@
 package com.plexobject.jms.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import javax.jms.Destination;
 import javax.jms.ExceptionListener;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
+import javax.jms.Session;
 import javax.naming.NamingException;
 
 import org.apache.log4j.Logger;
 
 import com.plexobject.domain.Preconditions;
+import com.plexobject.jms.MessageListenerConfig;
 
 /**
- * This class listens for incoming JMS messages in a separate thread
+ * This class listens for incoming JMS messages in a separate thread. When
+ * batch size of listener is greater than 1, it receives available messages up
+ * to batch size on its own session and commits or acknowledges them together
+ * after they are processed. A batch that fails is rolled back or recovered so
+ * that its messages are redelivered. Messages sent while processing a
+ * transacted batch, e.g. replies, are sent on its session so that they are
+ * committed or rolled back with the batch.
  * 
  * @author shahzad bhatti
  *
@@ -21,6 +35,7 @@ import com.plexobject.domain.Preconditions;
 public class MessageReceiverThread implements Runnable {
     private static final Logger logger = Logger
             .getLogger(MessageReceiverThread.class);
+    private static final int IDLE_RECEIVE_TIMEOUT_MILLIS = 1000;
 
     interface Callback {
         void onStarted(MessageReceiverThread t);
@@ -35,6 +50,13 @@ public class MessageReceiverThread implements Runnable {
     private final Callback callback;
     private final DefaultJMSContainer jmsContainer;
     private final long timeout;
+    private final ReceiverGroup group;
+    private int idleReceives;
+    private final int batchSize;
+    private final boolean batchParallel;
+    private final boolean batchTransacted;
+    private Session batchSession;
+    private ExecutorService batchExecutor;
     private volatile boolean stop;
     private volatile boolean running;
     private volatile Thread runnerThread;
@@ -43,6 +65,25 @@ public class MessageReceiverThread implements Runnable {
             MessageListener messageListener,
             ExceptionListener exceptionListener, Callback callback,
             long timeout, DefaultJMSContainer jmsContainer) {
+        this(threadName, destination, messageListener, exceptionListener,
+                callback, new MessageListenerConfig(1, false,
+                        Session.AUTO_ACKNOWLEDGE, (int) timeout), jmsContainer);
+    }
+
+    public MessageReceiverThread(String threadName, Destination destination,
+            MessageListener messageListener,
+            ExceptionListener exceptionListener, Callback callback,
+            MessageListenerConfig listenerConfig,
+            DefaultJMSContainer jmsContainer) {
+        this(threadName, destination, messageListener, exceptionListener,
+                callback, listenerConfig, jmsContainer, null);
+    }
+
+    MessageReceiverThread(String threadName, Destination destination,
+            MessageListener messageListener,
+            ExceptionListener exceptionListener, Callback callback,
+            MessageListenerConfig listenerConfig,
+            DefaultJMSContainer jmsContainer, ReceiverGroup group) {
         Preconditions.checkEmpty(threadName, "threadName is not specified");
         Preconditions.requireNotNull(destination,
                 "destination is not specified");
@@ -56,7 +97,14 @@ public class MessageReceiverThread implements Runnable {
         this.messageListener = messageListener;
         this.exceptionListener = exceptionListener;
         this.callback = callback;
-        this.timeout = timeout;
+        this.group = group;
+        // idle receivers of a scalable group are detected by receive timeout
+        this.timeout = group != null && group.isScalable()
+                && listenerConfig.getReceiveTimeout() <= 0 ? IDLE_RECEIVE_TIMEOUT_MILLIS
+                : listenerConfig.getReceiveTimeout();
+        this.batchSize = listenerConfig.getBatchSize();
+        this.batchParallel = listenerConfig.isBatchParallel();
+        this.batchTransacted = listenerConfig.isSessionTransacted();
         this.jmsContainer = jmsContainer;
     }
 
@@ -83,6 +131,7 @@ public class MessageReceiverThread implements Runnable {
     @Override
     public void run() {
         MessageConsumer consumer = null;
+        boolean retired = false;
         try {
             consumer = waitForStartAndCreateConsumer();
             while (!stop) {
@@ -90,12 +139,33 @@ public class MessageReceiverThread implements Runnable {
                     Message msg = timeout > 0 ? consumer.receive(timeout)
                             : consumer.receive();
                     if (msg != null) {
-                        messageListener.onMessage(msg);
+                        idleReceives = 0;
+                        if (group != null) {
+                            group.onBusy();
+                        }
+                        try {
+                            if (batchSize > 1) {
+                                receiveBatch(consumer, msg);
+                            } else {
+                                messageListener.onMessage(msg);
+                            }
+                        } finally {
+                            if (group != null) {
+                                group.onIdle();
+                            }
+                        }
                     } else {
                         if (logger.isDebugEnabled()) {
                             logger.debug("PLEXSVC Waiting for JMS message on "
                                     + destination);
                         }
+                        if (group != null
+                                && ++idleReceives >= group
+                                        .getIdleReceivesLimit()
+                                && group.retire()) {
+                            retired = true;
+                            break;
+                        }
                     }
                 } catch (JMSException e) {
                     if (e.getCause() instanceof InterruptedException) {
@@ -133,7 +203,84 @@ public class MessageReceiverThread implements Runnable {
         } finally {
             logger.info("PLEXSVC Exiting for destination " + destination
                     + ", closing consumer");
-            afterRun(consumer);
+            afterRun(consumer, retired);
+        }
+    }
+
+    private void receiveBatch(MessageConsumer consumer, Message first)
+            throws JMSException {
+        final List<Message> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        while (batch.size() < batchSize) {
+            Message msg = consumer.receiveNoWait();
+            if (msg == null) {
+                break;
+            }
+            batch.add(msg);
+        }
+        if (process(batch)) {
+            if (batchTransacted) {
+                batchSession.commit();
+            } else {
+                // acknowledges all messages consumed by the session
+                batch.get(batch.size() - 1).acknowledge();
+            }
+        } else {
+            logger.warn("PLEXSVC Failed to process batch of " + batch.size()
+                    + " messages from " + destination + ", redelivering");
+            if (batchTransacted) {
+                batchSession.rollback();
+            } else {
+                batchSession.recover();
+            }
+        }
+    }
+
+    // returns true if all messages were processed
+    private boolean process(List<Message> batch) {
+        final AtomicBoolean succeeded = new AtomicBoolean(true);
+        if (!batchParallel || batch.size() == 1) {
+            for (Message msg : batch) {
+                onMessage(msg, succeeded);
+            }
+            return succeeded.get();
+        }
+        final CountDownLatch latch = new CountDownLatch(batch.size());
+        for (final Message msg : batch) {
+            batchExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        onMessage(msg, succeeded);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return succeeded.get();
+    }
+
+    private void onMessage(Message msg, AtomicBoolean succeeded) {
+        if (batchTransacted) {
+            jmsContainer.setCurrentBatchSession(batchSession);
+        }
+        try {
+            messageListener.onMessage(msg);
+        } catch (RuntimeException e) {
+            logger.error("PLEXSVC Failed to process message from "
+                    + destination, e);
+            succeeded.set(false);
+        } finally {
+            if (batchTransacted) {
+                jmsContainer.setCurrentBatchSession(null);
+            }
         }
     }
 
@@ -142,13 +289,25 @@ public class MessageReceiverThread implements Runnable {
         runnerThread = Thread.currentThread();
         Thread.currentThread().setName(threadName);
         jmsContainer.waitUntilReady();
-        MessageConsumer consumer = jmsContainer.createConsumer(destination);
+        MessageConsumer consumer = null;
+        if (batchSize > 1) {
+            batchSession = jmsContainer.createSession(batchTransacted,
+                    batchTransacted ? Session.SESSION_TRANSACTED
+                            : Session.CLIENT_ACKNOWLEDGE);
+            consumer = batchSession.createConsumer(destination);
+            if (batchParallel) {
+                // shared by receivers of the container
+                batchExecutor = jmsContainer.getBatchExecutor();
+            }
+        } else {
+            consumer = jmsContainer.createConsumer(destination);
+        }
         callback.onStarted(this);
         running = true;
         return consumer;
     }
 
-    private void afterRun(MessageConsumer consumer) {
+    private void afterRun(MessageConsumer consumer, boolean retired) {
         running = false;
         runnerThread = null;
         try {
@@ -158,6 +317,18 @@ public class MessageReceiverThread implements Runnable {
         } catch (Exception e) {
             logger.error("PLEXSVC Failed to close consumer for " + destination);
         }
+        batchExecutor = null;
+        try {
+            if (batchSession != null) {
+                batchSession.close();
+                batchSession = null;
+            }
+        } catch (Exception e) {
+            logger.error("PLEXSVC Failed to close session for " + destination);
+        }
+        if (group != null) {
+            group.onExit(this, retired);
+        }
         callback.onStopped(this);
     }
 
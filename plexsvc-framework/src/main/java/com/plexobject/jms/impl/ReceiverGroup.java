@@ -0,0 +1,199 @@
+package com.plexobject.jms.impl;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Destination;
+import javax.jms.MessageListener;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.jms.MessageListenerConfig;
+import com.plexobject.metrics.ServiceMetrics;
+
+/**
+ * This class manages message-receiver threads of a destination. It starts
+ * with minimum concurrency of the listener, adds a thread when a message is
+ * received while all threads are busy and retires a thread after it receives
+ * nothing for a number of consecutive receives, so that number of threads
+ * stays between minimum and maximum concurrency of the listener.
+ *
+ * @author shahzad bhatti
+ *
+ */
+class ReceiverGroup implements Closeable {
+    private static final Logger logger = Logger.getLogger(ReceiverGroup.class);
+
+    private final Destination destination;
+    private final MessageListener messageListener;
+    private final MessageListenerConfig listenerConfig;
+    private final int minConsumers;
+    private final int maxConsumers;
+    private final int idleReceivesLimit;
+    private final DefaultJMSContainer jmsContainer;
+    private final ServiceMetrics metrics;
+    private final Set<MessageReceiverThread> threads = Collections
+            .newSetFromMap(new ConcurrentHashMap<MessageReceiverThread, Boolean>());
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger busyConsumers = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private volatile boolean closed;
+
+    ReceiverGroup(Destination destination, MessageListener messageListener,
+            MessageListenerConfig listenerConfig, int maxConsumers,
+            int idleReceivesLimit, DefaultJMSContainer jmsContainer) {
+        this.destination = destination;
+        this.messageListener = messageListener;
+        this.listenerConfig = listenerConfig;
+        this.minConsumers = listenerConfig.getConcurrency();
+        this.maxConsumers = Math.max(minConsumers, maxConsumers);
+        this.idleReceivesLimit = Math.max(1, idleReceivesLimit);
+        this.jmsContainer = jmsContainer;
+        // peak number of consumers is tracked by metrics
+        this.metrics = listenerConfig.getMetrics() != null ? listenerConfig
+                .getMetrics() : new ServiceMetrics(null,
+                String.valueOf(destination));
+    }
+
+    /**
+     * This method starts minimum number of threads
+     */
+    void start() {
+        for (int i = 0; i < minConsumers; i++) {
+            addConsumer();
+        }
+    }
+
+    boolean isScalable() {
+        return maxConsumers > minConsumers;
+    }
+
+    int getIdleReceivesLimit() {
+        return idleReceivesLimit;
+    }
+
+    /**
+     * This method is called by a thread before it processes received messages
+     * and adds another thread if no other thread is waiting for messages
+     */
+    void onBusy() {
+        int busy = busyConsumers.incrementAndGet();
+        if (busy >= consumers.get() && isScalable() && addConsumer()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("PLEXSVC Added consumer for " + destination
+                        + ", consumers " + consumers.get());
+            }
+        }
+    }
+
+    /**
+     * This method is called by a thread after it processes received messages
+     */
+    void onIdle() {
+        busyConsumers.decrementAndGet();
+    }
+
+    /**
+     * This method is called by a thread that received nothing for idle
+     * receives limit and returns true if the thread should exit
+     *
+     * @return
+     */
+    boolean retire() {
+        while (true) {
+            int n = consumers.get();
+            if (n <= minConsumers) {
+                return false;
+            }
+            if (consumers.compareAndSet(n, n - 1)) {
+                recordConsumers();
+                if (logger.isDebugEnabled()) {
+                    logger.debug("PLEXSVC Retiring idle consumer for "
+                            + destination + ", consumers " + (n - 1));
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * This method is called when a thread exits
+     *
+     * @param t
+     * @param retired
+     */
+    void onExit(MessageReceiverThread t, boolean retired) {
+        if (threads.remove(t) && !retired) {
+            consumers.decrementAndGet();
+            recordConsumers();
+        }
+    }
+
+    int getConsumerCount() {
+        return consumers.get();
+    }
+
+    int getPeakConsumerCount() {
+        return metrics.getPeakConsumers();
+    }
+
+    private boolean addConsumer() {
+        while (true) {
+            int n = consumers.get();
+            if (closed || n >= maxConsumers) {
+                return false;
+            }
+            if (consumers.compareAndSet(n, n + 1)) {
+                break;
+            }
+        }
+        MessageReceiverThread t = new MessageReceiverThread(destination + "-"
+                + nextId.incrementAndGet(), destination, messageListener,
+                null, jmsContainer, listenerConfig, jmsContainer, this);
+        threads.add(t);
+        try {
+            jmsContainer.submit(t);
+        } catch (RejectedExecutionException e) {
+            // container is stopped
+            threads.remove(t);
+            consumers.decrementAndGet();
+            return false;
+        }
+        if (closed) {
+            t.stop();
+        }
+        recordConsumers();
+        return true;
+    }
+
+    private void recordConsumers() {
+        metrics.setConsumers(consumers.get());
+    }
+
+    /**
+     * This method stops all threads
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (MessageReceiverThread t : threads) {
+            try {
+                t.stop();
+            } catch (Exception e) {
+                logger.error("PLEXSVC Failed to close message-receiver thread for "
+                        + destination);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReceiverGroup [destination=" + destination + ", consumers="
+                + consumers + ", peak=" + metrics.getPeakConsumers() + ", min="
+                + minConsumers + ", max=" + maxConsumers + "]";
+    }
+}
@@ -36,6 +36,10 @@ public class ServiceMetrics implements ServiceMetricsMBean {
     private final long started = System.currentTimeMillis();
     private final AtomicLong successInvocations = new AtomicLong();
     private final AtomicLong errorInvocations = new AtomicLong();
+    private final AtomicLong rejectedInvocations = new AtomicLong();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger consumers = new AtomicInteger();
+    private final AtomicInteger peakConsumers = new AtomicInteger();
     private final AtomicLong accmulatedResponseValue = new AtomicLong();
     private long lastSuccessRequestTime;
     private long lastErrorRequestTime;
@@ -100,6 +104,56 @@ public class ServiceMetrics implements ServiceMetricsMBean {
         errorInvocations.incrementAndGet();
     }
 
+    @Override
+    public long getRejectedInvocations() {
+        return rejectedInvocations.get();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public void incrementRejections() {
+        if (statsd != null) {
+            statsd.incrementCounter(name + "Rejected");
+        }
+        lastErrorRequestTime = System.currentTimeMillis();
+        rejectedInvocations.incrementAndGet();
+    }
+
+    public void incrementQueueDepth() {
+        int depth = queueDepth.incrementAndGet();
+        if (statsd != null) {
+            statsd.recordGaugeValue(name + "QueueDepth", depth);
+        }
+    }
+
+    public void decrementQueueDepth() {
+        queueDepth.decrementAndGet();
+    }
+
+    @Override
+    public int getConsumers() {
+        return consumers.get();
+    }
+
+    @Override
+    public int getPeakConsumers() {
+        return peakConsumers.get();
+    }
+
+    public void setConsumers(int count) {
+        consumers.set(count);
+        int peak;
+        while ((peak = peakConsumers.get()) < count
+                && !peakConsumers.compareAndSet(peak, count)) {
+        }
+        if (statsd != null) {
+            statsd.recordGaugeValue(name + "Consumers", count);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     public void addResponseTime(long value) {
         if (statsd != null) {
@@ -22,6 +22,37 @@ public interface ServiceMetricsMBean {
      */
     long getErrorInvocations();
 
+    /**
+     * This method returns number of times that this service was rejected
+     * because its executor was saturated
+     * 
+     * @return
+     */
+    long getRejectedInvocations();
+
+    /**
+     * This method returns number of requests waiting for executor of this
+     * service
+     * 
+     * @return
+     */
+    int getQueueDepth();
+
+    /**
+     * This method returns number of JMS consumers that are receiving messages
+     * for this service
+     * 
+     * @return
+     */
+    int getConsumers();
+
+    /**
+     * This method returns highest number of JMS consumers for this service
+     * 
+     * @return
+     */
+    int getPeakConsumers();
+
     /**
      * This method returns accumulated value for this service
      * 
@@ -33,7 +33,20 @@ public class ServiceMetricsRegistry {
      * @return
      */
     public ServiceMetrics getServiceMetrics(RequestHandler handler) {
-        ServiceConfigDesc config = serviceRegistry.getServiceConfig(handler);
+        return getServiceMetrics(handler,
+                serviceRegistry.getServiceConfig(handler));
+    }
+
+    /**
+     * This method returns service metrics for given handler and its
+     * configuration
+     * 
+     * @param handler
+     * @param config
+     * @return
+     */
+    public ServiceMetrics getServiceMetrics(RequestHandler handler,
+            ServiceConfigDesc config) {
         boolean statsDEnabled = config != null && config.recordStatsdMetrics();
         String name = handler.getClass().getSimpleName();
         ServiceMetrics t = stats.get(name);
@@ -0,0 +1,105 @@
+package com.plexobject.route;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * This class holds path parameters captured by RouteResolver. Parameters are
+ * kept as offsets into the path and their values are only created when they
+ * are accessed, so a match can be reused for lookups without allocating.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class RouteMatch {
+    private String path;
+    private String[] names = new String[4];
+    private int[] starts = new int[4];
+    private int[] ends = new int[4];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    public String getValue(int index) {
+        checkIndex(index);
+        return path.substring(starts[index], ends[index]);
+    }
+
+    /**
+     * This method returns value of the named parameter
+     *
+     * @param name
+     * @return value or null if parameter was not captured
+     */
+    public String getValue(String name) {
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return getValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This method copies captured parameters to the given map
+     *
+     * @param parameters
+     */
+    public void copyTo(Map<String, Object> parameters) {
+        for (int i = 0; i < size; i++) {
+            parameters.put(names[i], getValue(i));
+        }
+    }
+
+    public void clear() {
+        path = null;
+        size = 0;
+    }
+
+    void reset(String path) {
+        this.path = path;
+        this.size = 0;
+    }
+
+    void add(String name, int start, int end) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        names[size] = name;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size "
+                    + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(names[i]).append('=').append(getValue(i));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -2,16 +2,27 @@ package com.plexobject.route;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import com.plexobject.domain.Preconditions;
 
 /**
  * PlexServices allows http url with parameters. This class provides lookup
- * methods for matching url with parameters.
- * 
+ * methods for matching url with parameters. Routes are added to a tree of
+ * path fragments, which is compiled into a trie for lookups. The compiled trie
+ * matches static fragments before parameters and wildcards and walks the path
+ * in place without splitting it. Routes are changed under a lock and each
+ * change publishes a new immutable snapshot, so lookups don't need locking and
+ * always see a consistent table while services are added or removed. Compiled
+ * nodes of unchanged fragments are shared between snapshots. Paths that don't
+ * match any route are remembered in a small direct-mapped cache of the
+ * snapshot so that repeated lookups of unknown paths skip the trie, the cache
+ * is discarded with the snapshot when routes change.
+ *
  * @author shahzad bhatti
  *
  * @param <T>
@@ -23,8 +34,9 @@ public class RouteResolver<T> {
         private final int level;
         private final boolean wild;
         private Node<T> parent;
-        private final Map<String, Node<T>> children = new HashMap<>();
+        private final Map<String, Node<T>> children = new LinkedHashMap<>();
         private T object;
+        private CompiledNode<T> compiled;
 
         Node(Node<T> parent, String pathFragment, int level) {
             this.parent = parent;
@@ -47,6 +59,7 @@ public class RouteResolver<T> {
         }
 
         private Node<T> add(String[] fragments, int index, T object) {
+            compiled = null;
             if (fragments.length <= index) {
                 this.object = object;
                 return this;
@@ -59,30 +72,23 @@ public class RouteResolver<T> {
             return child.add(fragments, index + 1, object);
         }
 
-        private Node<T> find(String[] fragments, int index,
-                Map<String, Object> parameters) {
-            if (wild) {
-                return this;
+        Node<T> getChild(String pathFragment) {
+            return children.get(pathFragment);
+        }
+
+        CompiledNode<T> compile() {
+            if (compiled == null) {
+                compiled = new CompiledNode<T>(this);
             }
-            if (parent == null
-                    || isParameterPath()
-                    || (index < fragments.length && pathFragment
-                            .equals(fragments[index]))) {
-                if (isParameterPath() && index < fragments.length) {
-                    parameters.put(parameter, fragments[index]);
-                }
-                if (object != null && fragments.length - 1 == level) {
-                    return this;
-                }
-                for (Node<T> child : children.values()) {
-                    Node<T> matched = child.find(fragments, index + 1,
-                            parameters);
-                    if (matched != null) {
-                        return matched;
-                    }
-                }
+            return compiled;
+        }
+
+        private Node<T> get(String[] fragments, int index) {
+            if (fragments.length <= index) {
+                return this;
             }
-            return null;
+            Node<T> child = children.get(fragments[index]);
+            return child != null ? child.get(fragments, index + 1) : null;
         }
 
         @Override
@@ -127,60 +133,290 @@ public class RouteResolver<T> {
         }
     }
 
-    private final Map<String, T> servicesByPath = new ConcurrentHashMap<>();
-    private Node<T> root = new Node<T>(null, "/", 0);
+    /**
+     * This class is a node of the compiled trie. Static children are kept in
+     * an open addressing table that is probed with hash of the path fragment
+     * computed in place.
+     */
+    static class CompiledNode<T> {
+        private final T object;
+        private final String parameter;
+        private final String[] keys;
+        private final CompiledNode<T>[] staticChildren;
+        private final int mask;
+        private final CompiledNode<T>[] parameterChildren;
+        private final CompiledNode<T> wildChild;
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        CompiledNode(Node<T> node) {
+            this.object = node.object;
+            this.parameter = node.parameter;
+            List<Node<T>> statics = new ArrayList<>();
+            List<CompiledNode<T>> parameters = new ArrayList<>();
+            CompiledNode<T> wild = null;
+            for (Node<T> child : node.children.values()) {
+                if (child.wild) {
+                    if (wild == null) {
+                        wild = child.compile();
+                    }
+                } else if (child.isParameterPath()) {
+                    parameters.add(child.compile());
+                } else {
+                    statics.add(child);
+                }
+            }
+            int capacity = 1;
+            while (capacity < statics.size() * 2) {
+                capacity <<= 1;
+            }
+            this.mask = capacity - 1;
+            this.keys = new String[capacity];
+            this.staticChildren = new CompiledNode[capacity];
+            for (Node<T> child : statics) {
+                int i = spread(child.pathFragment.hashCode()) & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = child.pathFragment;
+                staticChildren[i] = child.compile();
+            }
+            this.parameterChildren = parameters
+                    .toArray(new CompiledNode[parameters.size()]);
+            this.wildChild = wild;
+        }
+
+        private CompiledNode<T> getStatic(String path, int start, int end) {
+            if (keys.length == 1 && keys[0] == null) {
+                return null;
+            }
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + path.charAt(i);
+            }
+            int len = end - start;
+            for (int i = spread(h) & mask; keys[i] != null; i = (i + 1)
+                    & mask) {
+                String key = keys[i];
+                if (key.length() == len
+                        && path.regionMatches(start, key, 0, len)) {
+                    return staticChildren[i];
+                }
+            }
+            return null;
+        }
+
+        private CompiledNode<T> match(String path, int start, int end,
+                RouteMatch match) {
+            if (start >= end) {
+                return object != null ? this : getWild();
+            }
+            int next = path.indexOf('/', start);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            CompiledNode<T> child = getStatic(path, start, next);
+            if (child != null) {
+                CompiledNode<T> matched = child.match(path, next + 1, end,
+                        match);
+                if (matched != null) {
+                    return matched;
+                }
+            }
+            if (next > start) {
+                int mark = match.size();
+                for (CompiledNode<T> p : parameterChildren) {
+                    match.add(p.parameter, start, next);
+                    CompiledNode<T> matched = p.match(path, next + 1, end,
+                            match);
+                    if (matched != null) {
+                        return matched;
+                    }
+                    match.truncate(mark);
+                }
+            }
+            return getWild();
+        }
+
+        private CompiledNode<T> getWild() {
+            return wildChild != null && wildChild.object != null ? wildChild
+                    : null;
+        }
+
+        private static int spread(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * This class is an immutable routing table that is replaced on each change
+     */
+    private static class Snapshot<T> {
+        private final CompiledNode<T> root;
+        private final Map<String, T> objectsByPath;
+        // racy writes are benign as entries are immutable strings
+        private final String[] notFound;
 
-    public void put(String path, T object) {
+        private Snapshot(CompiledNode<T> root, Map<String, T> objectsByPath,
+                int notFoundCacheSize) {
+            this.root = root;
+            this.objectsByPath = Collections.unmodifiableMap(objectsByPath);
+            this.notFound = new String[notFoundCacheSize];
+        }
+
+        private boolean isNotFound(String path) {
+            if (notFound.length == 0) {
+                return false;
+            }
+            return path.equals(notFound[slot(path)]);
+        }
+
+        private void setNotFound(String path) {
+            if (notFound.length > 0 && path.length() <= MAX_NOT_FOUND_LENGTH) {
+                notFound[slot(path)] = path;
+            }
+        }
+
+        private int slot(String path) {
+            int h = path.hashCode();
+            return (h ^ (h >>> 16)) & (notFound.length - 1);
+        }
+    }
+
+    private static final int DEFAULT_NOT_FOUND_CACHE_SIZE = 1024;
+    private static final int MAX_NOT_FOUND_LENGTH = 256;
+
+    private final ThreadLocal<RouteMatch> matches = new ThreadLocal<RouteMatch>() {
+        @Override
+        protected RouteMatch initialValue() {
+            return new RouteMatch();
+        }
+    };
+    // guarded by this and only used to build snapshots
+    private final Node<T> root = new Node<T>(null, "/", 0);
+    private final int notFoundCacheSize;
+    private volatile Snapshot<T> snapshot;
+
+    public RouteResolver() {
+        this(DEFAULT_NOT_FOUND_CACHE_SIZE);
+    }
+
+    /**
+     * @param notFoundCacheSize
+     *            number of unknown paths that are remembered, which is rounded
+     *            up to power of 2 or 0 to disable the cache
+     */
+    public RouteResolver(int notFoundCacheSize) {
+        int size = 0;
+        if (notFoundCacheSize > 0) {
+            size = 1;
+            while (size < notFoundCacheSize) {
+                size <<= 1;
+            }
+        }
+        this.notFoundCacheSize = size;
+        this.snapshot = newSnapshot(root.compile(), new HashMap<String, T>());
+    }
+
+    public synchronized void put(String path, T object) {
         Preconditions.checkEmpty(path, "null path");
         Preconditions.requireNotNull(object, "null object");
         path = path.trim();
-        servicesByPath.put(path, object);
-        String[] fragments = path.split("/");
-        root.add(fragments, 1, object);
+        Map<String, T> objectsByPath = new HashMap<>(snapshot.objectsByPath);
+        objectsByPath.put(path, object);
+        if (path.charAt(0) == '/') {
+            root.add(path.split("/"), 1, object);
+        }
+        snapshot = newSnapshot(root.compile(), objectsByPath);
     }
 
     public T get(String path, Map<String, Object> parameters) {
+        RouteMatch match = matches.get();
+        T object = get(path, match);
+        if (object != null) {
+            match.copyTo(parameters);
+        }
+        match.clear();
+        return object;
+    }
+
+    /**
+     * This method finds object of the route that matches the path and
+     * captures path parameters into the given match, which can be reused
+     * across lookups
+     *
+     * @param path
+     * @param match
+     * @return matched object or null
+     */
+    public T get(String path, RouteMatch match) {
+        Snapshot<T> current = snapshot;
         path = path.trim();
+        match.reset(path);
         if (path.length() > 0 && path.charAt(0) == '/') {
-            Node<T> node = getNode(path, parameters);
-            return node != null ? node.object : null;
+            if (current.isNotFound(path)) {
+                return null;
+            }
+            int end = path.length();
+            while (end > 1 && path.charAt(end - 1) == '/') {
+                end--;
+            }
+            CompiledNode<T> node = current.root.match(path, 1, end, match);
+            if (node == null) {
+                match.truncate(0);
+                current.setNotFound(path);
+                return null;
+            }
+            return node.object;
         } else {
-            return servicesByPath.get(path);
+            return current.objectsByPath.get(path);
         }
     }
 
-    public boolean remove(String path) {
-        Node<T> node = getNode(path, new HashMap<String, Object>());
-        if (node != null) {
-            servicesByPath.remove(path);
-            return node.parent.children.remove(node.pathFragment) != null;
+    public synchronized boolean remove(String path) {
+        Preconditions.checkEmpty(path, "null path");
+        path = path.trim();
+        Map<String, T> objectsByPath = new HashMap<>(snapshot.objectsByPath);
+        if (path.charAt(0) != '/') {
+            if (objectsByPath.remove(path) == null) {
+                return false;
+            }
+            snapshot = newSnapshot(snapshot.root, objectsByPath);
+            return true;
+        }
+        Node<T> node = root.get(path.split("/"), 1);
+        if (node == null || node.object == null) {
+            return false;
+        }
+        objectsByPath.remove(path);
+        node.object = null;
+        // prunes fragments that are no longer used by any route
+        while (node.parent != null && node.object == null
+                && node.children.isEmpty()) {
+            node.parent.children.remove(node.pathFragment);
+            node = node.parent;
+        }
+        for (Node<T> n = node; n != null; n = n.parent) {
+            n.compiled = null;
         }
-        return false;
+        snapshot = newSnapshot(root.compile(), objectsByPath);
+        return true;
     }
 
-    public Collection<T> getObjects() {
-        return new ArrayList<>(servicesByPath.values());
+    private Snapshot<T> newSnapshot(CompiledNode<T> compiledRoot,
+            Map<String, T> objectsByPath) {
+        return new Snapshot<T>(compiledRoot, objectsByPath, notFoundCacheSize);
     }
 
-    @Override
-    public String toString() {
-        return servicesByPath.toString();
+    Node<T> getRoot() {
+        return root;
     }
 
-    private Node<T> getNode(String path, Map<String, Object> parameters) {
-        Preconditions.checkEmpty(path, "null path");
+    public Collection<T> getObjects() {
+        return new ArrayList<>(snapshot.objectsByPath.values());
+    }
 
-        String[] fragments = path.split("/");
-        if (fragments.length == 0) {
-            return root;
-        }
-        if (fragments.length < 2) {
-            throw new IllegalArgumentException("Invalid path '" + path + "'");
-        }
-        Node<T> parent = root.children.get(fragments[1]);
-        if (parent == null) {
-            return null;
-        }
-        return parent.find(fragments, 1, parameters);
+    @Override
+    public String toString() {
+        return snapshot.objectsByPath.toString();
     }
 }
@@ -0,0 +1,23 @@
+package com.plexobject.service;
+
+/**
+ * This enum defines how a service handler is executed by containers that
+ * receive requests on I/O threads such as Netty
+ * <ul>
+ * <li>INLINE - handler is invoked on the I/O thread, which is suitable for
+ * handlers that don't block
+ * <li>SHARED_POOL - handler is invoked on bounded worker pool that is shared
+ * by all handlers
+ * <li>DEDICATED_POOL - handler is invoked on its own bounded pool whose size
+ * is defined by concurrency of the service
+ * <li>VIRTUAL_THREAD - handler is invoked on a new virtual thread for each
+ * request, which is suitable for handlers that block on remote calls. It falls
+ * back to SHARED_POOL when JVM doesn't support virtual threads
+ * </ul>
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public enum ExecutionMode {
+    INLINE, SHARED_POOL, DEDICATED_POOL, VIRTUAL_THREAD
+}
@@ -29,4 +29,8 @@ public @interface ServiceConfig {
     String[] rolesAllowed() default {};
 
     int concurrency() default 1;
+
+    boolean streaming() default false;
+
+    ExecutionMode executionMode() default ExecutionMode.INLINE;
 }
@@ -13,6 +13,8 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
     private final boolean recordStatsdMetrics;
     private final String[] rolesAllowed;
     private final int concurrency;
+    private final boolean streaming;
+    private final ExecutionMode executionMode;
 
     public static class Builder {
         private RequestMethod method;
@@ -24,6 +26,8 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
         private boolean recordStatsdMetrics;
         private String[] rolesAllowed;
         private int concurrency;
+        private boolean streaming;
+        private ExecutionMode executionMode = ExecutionMode.INLINE;
 
         public Builder(WebToJmsEntry e) {
             if (e != null) {
@@ -59,6 +63,8 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
                 this.recordStatsdMetrics = config.recordStatsdMetrics();
                 this.rolesAllowed = config.rolesAllowed();
                 this.concurrency = config.concurrency();
+                this.streaming = config.streaming();
+                this.executionMode = config.executionMode();
             }
         }
 
@@ -73,6 +79,8 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
                 this.recordStatsdMetrics = config.recordStatsdMetrics();
                 this.rolesAllowed = config.rolesAllowed();
                 this.concurrency = config.concurrency();
+                this.streaming = config.streaming();
+                this.executionMode = config.executionMode();
             }
         }
 
@@ -121,10 +129,20 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
             return this;
         }
 
+        public Builder setStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
+        public Builder setExecutionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+
         public ServiceConfigDesc build() {
             return new ServiceConfigDesc(protocol, method, contentsClass,
                     codecType, version, endpoint, recordStatsdMetrics,
-                    rolesAllowed, concurrency);
+                    rolesAllowed, concurrency, streaming, executionMode);
         }
     }
 
@@ -140,19 +158,32 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
         this(config.protocol(), config.method(), config.contentsClass(), config
                 .codec(), config.version(), config.endpoint(), config
                 .recordStatsdMetrics(), config.rolesAllowed(), config
-                .concurrency());
+                .concurrency(), config.streaming(), config.executionMode());
     }
 
     public ServiceConfigDesc(Protocol protocol, RequestMethod method,
             Class<?> contentsClass, CodecType codecType, String version,
             String endpoint, boolean recordStatsdMetrics,
             String[] rolesAllowed, int concurrency) {
+        this(protocol, method, contentsClass, codecType, version, endpoint,
+                recordStatsdMetrics, rolesAllowed, concurrency, false,
+                ExecutionMode.INLINE);
+    }
+
+    public ServiceConfigDesc(Protocol protocol, RequestMethod method,
+            Class<?> contentsClass, CodecType codecType, String version,
+            String endpoint, boolean recordStatsdMetrics,
+            String[] rolesAllowed, int concurrency, boolean streaming,
+            ExecutionMode executionMode) {
         super(protocol, method, version, endpoint);
         this.contentsClass = contentsClass;
         this.codecType = codecType;
         this.recordStatsdMetrics = recordStatsdMetrics;
         this.rolesAllowed = rolesAllowed;
         this.concurrency = concurrency;
+        this.streaming = streaming;
+        this.executionMode = executionMode != null ? executionMode
+                : ExecutionMode.INLINE;
     }
 
     public Class<?> contentsClass() {
@@ -175,6 +206,14 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
         return concurrency;
     }
 
+    public boolean streaming() {
+        return streaming;
+    }
+
+    public ExecutionMode executionMode() {
+        return executionMode;
+    }
+
     public static Builder builder(WebToJmsEntry e) {
         return new Builder(e);
     }
@@ -194,6 +233,7 @@ public class ServiceConfigDesc extends ServiceTypeDesc {
                 + ", codecType=" + codecType + ", version=" + version()
                 + ", endpoint=" + endpoint() + ", recordStatsdMetrics="
                 + recordStatsdMetrics + ", rolesALlowed="
-                + Arrays.toString(rolesAllowed) + "]";
+                + Arrays.toString(rolesAllowed) + ", streaming=" + streaming
+                + ", executionMode=" + executionMode + "]";
     }
 }
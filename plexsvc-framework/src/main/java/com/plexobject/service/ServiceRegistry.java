@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.MBeanServer;
@@ -20,12 +21,14 @@ import com.plexobject.bridge.web.WebToJmsEntry;
 import com.plexobject.bus.EventBus;
 import com.plexobject.bus.impl.EventBusImpl;
 import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
 import com.plexobject.domain.Preconditions;
 import com.plexobject.encode.CodecType;
 import com.plexobject.handler.BasePayload;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
 import com.plexobject.handler.Response;
+import com.plexobject.http.HttpResponse;
 import com.plexobject.http.WebContainerProvider;
 import com.plexobject.http.netty.NettyWebContainerProvider;
 import com.plexobject.metrics.ServiceMetrics;
@@ -33,9 +36,12 @@ import com.plexobject.metrics.ServiceMetricsRegistry;
 import com.plexobject.metrics.StatsCollector;
 import com.plexobject.security.SecurityAuthorizer;
 import com.plexobject.service.impl.InterceptorLifecycleImpl;
+import com.plexobject.service.impl.InvocationPlan;
 import com.plexobject.service.impl.ServiceInvocationHelper;
 import com.plexobject.service.impl.ServiceRegistryContainers;
+import com.plexobject.service.impl.ServiceRegistryExecutors;
 import com.plexobject.service.impl.ServiceRegistryHandlers;
+import com.plexobject.util.VirtualThreads;
 
 /**
  * This class defines registry for service handlers
@@ -58,13 +64,14 @@ public class ServiceRegistry implements ServiceContainer,
     private final ServiceInvocationHelper serviceInvocationHelper;
     private final ServiceRegistryHandlers serviceRegistryHandlers;
     private final ServiceRegistryContainers serviceRegistryContainers;
+    private final ServiceRegistryExecutors serviceRegistryExecutors;
     private final Map<String, RequestHandler> pingHandlers = new ConcurrentHashMap<>();
     private final InterceptorsLifecycle interceptorLifecycle = new InterceptorLifecycleImpl();
 
     private final boolean enablePingHandlers;
     private ServletContext servletContext;
     private SecurityAuthorizer securityAuthorizer;
-    private EventBus eventBus = new EventBusImpl();
+    private EventBus eventBus;
     private ExecutorService defaultExecutorService;
     // pass this as VM param -Dfile.encoding=UTF-8
     static {
@@ -80,13 +87,25 @@ public class ServiceRegistry implements ServiceContainer,
         Preconditions.requireNotNull(config, "config is required");
         //
         this.config = config;
-        setDefaultExecutorService(Executors.newFixedThreadPool(config
-                .getInteger("defaultExecutorThreads", 10)));
+        ExecutorService virtualThreadExecutor = config
+                .getBoolean(Constants.VIRTUAL_THREADS) ? VirtualThreads
+                .newVirtualThreadPerTaskExecutor() : null;
+        if (virtualThreadExecutor != null) {
+            setDefaultExecutorService(virtualThreadExecutor);
+            this.eventBus = new EventBusImpl(virtualThreadExecutor);
+        } else {
+            if (config.getBoolean(Constants.VIRTUAL_THREADS)) {
+                logger.warn("PLEXSVC Virtual threads are not supported, using thread pool");
+            }
+            setDefaultExecutorService(Executors.newFixedThreadPool(config
+                    .getInteger("defaultExecutorThreads", 10)));
+            this.eventBus = new EventBusImpl();
+        }
 
         this.serviceInvocationHelper = new ServiceInvocationHelper(this);
-        this.serviceRegistryHandlers = new ServiceRegistryHandlers();
         this.serviceRegistryContainers = new ServiceRegistryContainers(config,
                 webContainerProvider, this);
+        this.serviceRegistryExecutors = new ServiceRegistryExecutors(config);
         this.enablePingHandlers = config.getBoolean("enablePingHandlers");
         String statsCollectorClassName = config
                 .getProperty("statsCollectorClassName");
@@ -105,6 +124,8 @@ public class ServiceRegistry implements ServiceContainer,
             this.statsd = null;
         }
         serviceMetricsRegistry = new ServiceMetricsRegistry(this, statsd);
+        this.serviceRegistryHandlers = new ServiceRegistryHandlers(
+                serviceMetricsRegistry);
         try {
             mbs.registerMBean(this, new ObjectName(
                     "PlexServices:name=ServiceRegistry"));
@@ -124,6 +145,17 @@ public class ServiceRegistry implements ServiceContainer,
         return serviceRegistryHandlers.getServiceConfig(h);
     }
 
+    /**
+     * This method returns invocation plan of the handler that is built when
+     * the handler is added
+     * 
+     * @param h
+     * @return
+     */
+    public InvocationPlan getInvocationPlan(RequestHandler h) {
+        return serviceRegistryHandlers.getInvocationPlan(h);
+    }
+
     private void setServiceConfig(RequestHandler h, ServiceConfigDesc config) {
         serviceRegistryHandlers.setServiceConfig(h, config);
     }
@@ -181,6 +213,7 @@ public class ServiceRegistry implements ServiceContainer,
             return false;
         }
         if (container.removeRequestHandler(h)) {
+            serviceRegistryExecutors.remove(h);
             if (enablePingHandlers) {
                 removePingHandler(h, config, container);
             }
@@ -238,6 +271,7 @@ public class ServiceRegistry implements ServiceContainer,
     @Override
     public synchronized void stop() {
         serviceRegistryContainers.stop();
+        serviceRegistryExecutors.shutdown();
         running = false;
         for (ServiceRegistryLifecycleAware srl : serviceRegistryLifecycleAwares) {
             srl.onStopped(this);
@@ -282,7 +316,54 @@ public class ServiceRegistry implements ServiceContainer,
      * @param handler
      */
     public void invoke(Request request, RequestHandler handler) {
-        serviceInvocationHelper.invoke(request, handler, this);
+        InvocationPlan plan = handler != null ? getInvocationPlan(handler)
+                : null;
+        serviceInvocationHelper.invoke(request, plan, this);
+    }
+
+    /**
+     * This method executes handler using its execution mode so that blocking
+     * handlers don't run on I/O threads of the container. This method may
+     * return before the handler is invoked so it should only be used by
+     * containers that can send response asynchronously.
+     * 
+     * @param request
+     * @param handler
+     */
+    public void dispatch(final Request request, final RequestHandler handler) {
+        final InvocationPlan plan = getInvocationPlan(handler);
+        ExecutorService executor = serviceRegistryExecutors.getExecutor(
+                handler, plan.getConfig());
+        if (executor == null) {
+            serviceInvocationHelper.invoke(request, plan, this);
+            return;
+        }
+        // transport may reuse the buffer of request body after this method
+        // returns
+        request.releaseRawContents();
+        final ServiceMetrics metrics = plan.getMetrics();
+        metrics.incrementQueueDepth();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    metrics.decrementQueueDepth();
+                    serviceInvocationHelper.invoke(request, plan,
+                            ServiceRegistry.this);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            metrics.decrementQueueDepth();
+            metrics.incrementRejections();
+            logger.warn("PLEXSVC Rejected request for " + handler
+                    + ", queue depth " + metrics.getQueueDepth());
+            request.getResponse().setCodecType(CodecType.TEXT);
+            request.getResponse().setStatusCode(
+                    HttpResponse.SC_SERVICE_UNAVAILABLE);
+            request.getResponse().setStatusMessage("service is busy");
+            request.getResponse().setContents("service is busy");
+            request.sendResponse();
+        }
     }
 
     public ServletContext getServletContext() {
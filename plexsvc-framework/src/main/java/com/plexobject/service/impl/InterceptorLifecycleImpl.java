@@ -1,8 +1,8 @@
 package com.plexobject.service.impl;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.plexobject.handler.BasePayload;
 import com.plexobject.handler.Request;
@@ -11,16 +11,23 @@ import com.plexobject.service.AroundInterceptor;
 import com.plexobject.service.Interceptor;
 import com.plexobject.service.InterceptorsLifecycle;
 
+/**
+ * This class keeps interceptors in copy-on-write lists so that they are read
+ * on each request without locking, interceptors are only changed under lock
+ * 
+ * @author shahzad bhatti
+ *
+ */
 public class InterceptorLifecycleImpl implements InterceptorsLifecycle {
-    private final List<Interceptor<Request>> requestInterceptors = new ArrayList<>();
-    private final List<Interceptor<Response>> responseInterceptors = new ArrayList<>();
-    private final List<Interceptor<BasePayload<Object>>> inputInterceptors = new ArrayList<>();
-    private final List<Interceptor<BasePayload<Object>>> outputInterceptors = new ArrayList<>();
-    private AroundInterceptor aroundInterceptor;
-    private boolean hasRequestInterceptors;
-    private boolean hasResponseInterceptors;
-    private boolean hasInputInterceptors;
-    private boolean hasOutputInterceptors;
+    private final List<Interceptor<Request>> requestInterceptors = new CopyOnWriteArrayList<>();
+    private final List<Interceptor<Response>> responseInterceptors = new CopyOnWriteArrayList<>();
+    private final List<Interceptor<BasePayload<Object>>> inputInterceptors = new CopyOnWriteArrayList<>();
+    private final List<Interceptor<BasePayload<Object>>> outputInterceptors = new CopyOnWriteArrayList<>();
+    private volatile AroundInterceptor aroundInterceptor;
+    private volatile boolean hasRequestInterceptors;
+    private volatile boolean hasResponseInterceptors;
+    private volatile boolean hasInputInterceptors;
+    private volatile boolean hasOutputInterceptors;
 
     /**
      * This method adds interceptor, which is invoked before passing request is
@@ -62,7 +69,7 @@ public class InterceptorLifecycleImpl implements InterceptorsLifecycle {
      * @return
      */
     @Override
-    public synchronized Collection<Interceptor<Request>> getRequestInterceptors() {
+    public Collection<Interceptor<Request>> getRequestInterceptors() {
         return requestInterceptors;
     }
 
@@ -107,7 +114,7 @@ public class InterceptorLifecycleImpl implements InterceptorsLifecycle {
      * @return
      */
     @Override
-    public synchronized Collection<Interceptor<Response>> getResponseInterceptors() {
+    public Collection<Interceptor<Response>> getResponseInterceptors() {
         return responseInterceptors;
     }
 
@@ -151,7 +158,7 @@ public class InterceptorLifecycleImpl implements InterceptorsLifecycle {
      * @return
      */
     @Override
-    public synchronized Collection<Interceptor<BasePayload<Object>>> getInputInterceptors() {
+    public Collection<Interceptor<BasePayload<Object>>> getInputInterceptors() {
         return inputInterceptors;
     }
 
@@ -194,27 +201,27 @@ public class InterceptorLifecycleImpl implements InterceptorsLifecycle {
      * @return
      */
     @Override
-    public synchronized Collection<Interceptor<BasePayload<Object>>> getOutputInterceptors() {
+    public Collection<Interceptor<BasePayload<Object>>> getOutputInterceptors() {
         return outputInterceptors;
     }
 
     @Override
-    public synchronized boolean hasInputInterceptors() {
+    public boolean hasInputInterceptors() {
         return hasInputInterceptors;
     }
 
     @Override
-    public synchronized boolean hasRequestInterceptors() {
+    public boolean hasRequestInterceptors() {
         return hasRequestInterceptors;
     }
 
     @Override
-    public synchronized boolean hasOutputInterceptors() {
+    public boolean hasOutputInterceptors() {
         return hasOutputInterceptors;
     }
 
     @Override
-    public synchronized boolean hasResponseInterceptors() {
+    public boolean hasResponseInterceptors() {
         return hasResponseInterceptors;
     }
 
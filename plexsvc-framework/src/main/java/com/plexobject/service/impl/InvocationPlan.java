@@ -0,0 +1,94 @@
+package com.plexobject.service.impl;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.handler.ws.WSDelegateHandler;
+import com.plexobject.metrics.ServiceMetrics;
+import com.plexobject.service.ServiceConfigDesc;
+import com.plexobject.validation.RequiredFields;
+
+/**
+ * This class holds everything that is needed to invoke a handler, which is
+ * resolved once when the handler is registered so that requests don't need
+ * to look up configuration, metrics or annotations of the handler
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class InvocationPlan {
+    private final RequestHandler handler;
+    private final ServiceConfigDesc config;
+    private final ServiceMetrics metrics;
+    private final RequiredFields requiredFields;
+    private final boolean payloadRequired;
+    private final boolean delegate;
+    private final String name;
+
+    public InvocationPlan(RequestHandler handler, ServiceConfigDesc config,
+            ServiceMetrics metrics) {
+        this.handler = handler;
+        this.config = config;
+        this.metrics = metrics;
+        this.requiredFields = handler.getClass().getAnnotation(
+                RequiredFields.class);
+        this.payloadRequired = config.contentsClass() != null
+                && config.contentsClass() != Void.class;
+        this.delegate = handler instanceof WSDelegateHandler;
+        this.name = handler.getClass().getSimpleName();
+    }
+
+    public RequestHandler getHandler() {
+        return handler;
+    }
+
+    public ServiceConfigDesc getConfig() {
+        return config;
+    }
+
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return required fields of the handler or null if it doesn't define
+     *         them
+     */
+    public RequiredFields getRequiredFields() {
+        return requiredFields;
+    }
+
+    /**
+     * @return true if handler expects payload of its contents class
+     */
+    public boolean isPayloadRequired() {
+        return payloadRequired;
+    }
+
+    /**
+     * @return true if handler is JavaWS delegate, which runs interceptors and
+     *         authorization itself
+     */
+    public boolean isDelegate() {
+        return delegate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * This method returns codec for the response based on accept header
+     *
+     * @param accept
+     * @return codec
+     */
+    public CodecType getCodecType(String accept) {
+        return accept == null ? config.codec() : CodecType.fromAcceptHeader(
+                accept, config.codec());
+    }
+
+    @Override
+    public String toString() {
+        return "InvocationPlan [handler=" + name + ", config=" + config + "]";
+    }
+}
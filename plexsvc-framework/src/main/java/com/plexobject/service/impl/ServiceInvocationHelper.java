@@ -14,7 +14,6 @@ import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.BasePayload;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
-import com.plexobject.handler.ws.WSDelegateHandler;
 import com.plexobject.http.HttpResponse;
 import com.plexobject.metrics.ServiceMetrics;
 import com.plexobject.service.Interceptor;
@@ -43,24 +42,36 @@ public class ServiceInvocationHelper {
      */
     public void invoke(Request request, RequestHandler handler,
             final ServiceRegistry registry) {
-        if (handler != null) {
-            final long started = System.currentTimeMillis();
-            ServiceMetrics metrics = serviceRegistry
-                    .getServiceMetricsRegistry().getServiceMetrics(handler);
+        invoke(request,
+                handler != null ? registry.getInvocationPlan(handler) : null,
+                registry);
+    }
 
-            ServiceConfigDesc config = serviceRegistry
-                    .getServiceConfig(handler);
+    /**
+     * This method executes handler of the invocation plan, which already holds
+     * configuration and metrics of the handler so that they are not looked up
+     * for each request.
+     * 
+     * @param request
+     * @param plan
+     * @param registry
+     */
+    public void invoke(Request request, InvocationPlan plan,
+            final ServiceRegistry registry) {
+        if (plan != null) {
+            final long started = System.currentTimeMillis();
+            final ServiceMetrics metrics = plan.getMetrics();
+            final ServiceConfigDesc config = plan.getConfig();
             if (logger.isDebugEnabled()) {
                 logger.debug("PLEXSVC Received request for handler "
-                        + handler.getClass().getSimpleName() + ", protocol "
-                        + config.protocol() + ", request " + request);
+                        + plan.getName() + ", protocol " + config.protocol()
+                        + ", request " + request);
             }
             // add version header
             request.getResponse().setVersionHeader(config.version());
             //
             // check if payload is required
-            if (config.contentsClass() != null
-                    && config.contentsClass() != Void.class
+            if (plan.isPayloadRequired() && !request.hasRawContents()
                     && request.getContents() == null
                     && request.getProperties().size() == 0) {
                 request.getResponse().setStatusCode(HttpResponse.SC_FORBIDDEN);
@@ -73,25 +84,26 @@ public class ServiceInvocationHelper {
             }
             ((AbstractResponseDispatcher) request.getResponseDispatcher())
                     .setOutgoingInterceptorsLifecycle(serviceRegistry);
-            CodecType codecType = CodecType.fromAcceptHeader(
-                    (String) request.getStringProperty(Constants.ACCEPT),
-                    config.codec());
+            CodecType codecType = plan.getCodecType((String) request
+                    .getStringProperty(Constants.ACCEPT));
             request.getResponse().setCodecType(codecType);
 
             // We assume incoming payload is text so we will run through input
             // interceptors
             runInputInterceptors(request);
             //
-            if (codecType != CodecType.SERVICE_SPECIFIC
-                    && request.getContents() instanceof String) {
-                deserializePayload(request, config, codecType);
+            if (codecType != CodecType.SERVICE_SPECIFIC) {
+                if (request.hasRawContents()) {
+                    deserializeRawPayload(request, plan, codecType);
+                } else if (request.getContents() instanceof String) {
+                    deserializePayload(request, plan, codecType);
+                }
             }
             //
             // Invoking request interceptors
             // WSDelegateHandler decodes parameters locally so it will run
             // interceptors there
-            if (registry.hasRequestInterceptors()
-                    && !(handler instanceof WSDelegateHandler)) {
+            if (!plan.isDelegate() && registry.hasRequestInterceptors()) {
                 for (Interceptor<Request> interceptor : registry
                         .getRequestInterceptors()) {
                     request = interceptor.intercept(request);
@@ -102,18 +114,18 @@ public class ServiceInvocationHelper {
 
             try {
                 // update post parameters
-                if (request.isFormRequest()) {
+                if (request.isFormRequest() && request.getContents() != null) {
                     addFormPropertiesFromPayload(request);
                 }
                 //
                 // validate required fields
-                requiredFieldValidator.validate(handler, request.getContents(),
-                        request.getProperties());
+                requiredFieldValidator.validate(plan.getRequiredFields(),
+                        request.getContents(), request.getProperties());
 
                 //
                 //
-                invokeWithAroundInterceptorIfNeeded(request, handler, registry,
-                        started, metrics, config);
+                invokeWithAroundInterceptorIfNeeded(request, plan, registry,
+                        started);
             } catch (Exception e) {
                 metrics.incrementErrors();
                 if (e instanceof Redirectable) {
@@ -169,64 +181,77 @@ public class ServiceInvocationHelper {
         }
     }
 
-    private void deserializePayload(Request request, ServiceConfigDesc config,
+    private void deserializeRawPayload(Request request, InvocationPlan plan,
+            CodecType codecType) {
+        // decode bytes directly into object, otherwise contents are converted
+        // into string when they are accessed
+        if (plan.isPayloadRequired()) {
+            request.setContents(ObjectCodecFactory
+                    .getInstance()
+                    .getObjectCodec(codecType)
+                    .decodeBytes(request.getRawContents(),
+                            plan.getConfig().contentsClass(),
+                            request.getProperties()));
+        }
+    }
+
+    private void deserializePayload(Request request, InvocationPlan plan,
             CodecType codecType) {
         String textPayload = request.getContentsAs();
         // decode text input into object
-        if (config.contentsClass() != null
-                && config.contentsClass() != Void.class
+        if (plan.isPayloadRequired()
                 && (request.getContents() instanceof String || request
                         .getContents() == null)) {
             request.setContents(ObjectCodecFactory
                     .getInstance()
                     .getObjectCodec(codecType)
-                    .decode(textPayload, config.contentsClass(),
+                    .decode(textPayload, plan.getConfig().contentsClass(),
                             request.getProperties()));
         }
     }
 
     private void invokeWithAroundInterceptorIfNeeded(final Request request,
-            final RequestHandler handler, final ServiceRegistry registry,
-            final long started, final ServiceMetrics metrics,
-            final ServiceConfigDesc config) throws Exception {
-        if (handler instanceof WSDelegateHandler) {
+            final InvocationPlan plan, final ServiceRegistry registry,
+            final long started) throws Exception {
+        if (plan.isDelegate()) {
             // skip authorization and around interceptor for JavaWS because we
             // need additional info for method names
-            invoke(request, handler, started, metrics, config);
+            invoke(request, plan, started);
 
         } else {
             //
             if (serviceRegistry.getSecurityAuthorizer() != null) {
                 serviceRegistry.getSecurityAuthorizer().authorize(request,
-                        config.rolesAllowed());
+                        plan.getConfig().rolesAllowed());
             }
 
             if (registry.getAroundInterceptor() != null) {
                 Callable<Object> callable = new Callable<Object>() {
                     @Override
                     public Object call() throws Exception {
-                        invoke(request, handler, started, metrics, config);
+                        invoke(request, plan, started);
                         return null;
                     }
                 };
-                registry.getAroundInterceptor().proceed(handler, HANDLE,
-                        callable);
+                registry.getAroundInterceptor().proceed(plan.getHandler(),
+                        HANDLE, callable);
             } else {
-                invoke(request, handler, started, metrics, config);
+                invoke(request, plan, started);
             }
         }
     }
 
-    private static void invoke(Request request, RequestHandler handler,
-            final long started, ServiceMetrics metrics, ServiceConfigDesc config) {
+    private static void invoke(Request request, InvocationPlan plan,
+            final long started) {
         // invoke authorizer if set
-        handler.handle(request);
+        plan.getHandler().handle(request);
         long elapsed = System.currentTimeMillis() - started;
-        metrics.addResponseTime(elapsed);
+        plan.getMetrics().addResponseTime(elapsed);
         request.getResponse().setResponseMilliTime(elapsed);
 
-        // send back the reply
-        if (request.getResponse().getContents() != null) {
+        // send back the reply unless handler has already sent it
+        if (request.getResponse().getContents() != null
+                && !request.isResponseSent()) {
             request.sendResponse();
         }
     }
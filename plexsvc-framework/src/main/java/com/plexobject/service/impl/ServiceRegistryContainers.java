@@ -130,12 +130,12 @@ public class ServiceRegistryContainers {
 
     private ServiceContainer getWebServiceContainer(
             final Map<RequestMethod, RouteResolver<RequestHandler>> requestHandlerPathsByMethod) {
-        RequestHandler executor = new DefaultHttpRequestHandler(
+        DefaultHttpRequestHandler executor = new DefaultHttpRequestHandler(
                 serviceRegistry, requestHandlerPathsByMethod);
         Lifecycle server = webContainerProvider.getWebContainer(config,
                 executor);
         return new DefaultWebServiceContainer(serviceRegistry,
-                requestHandlerPathsByMethod, server);
+                requestHandlerPathsByMethod, server, executor);
     }
 
     public synchronized JMSContainer getJmsBridgeContainer() {
@@ -0,0 +1,164 @@
+package com.plexobject.service.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.service.ExecutionMode;
+import com.plexobject.service.ServiceConfigDesc;
+import com.plexobject.util.VirtualThreads;
+
+/**
+ * This is a helper class to manage bounded executors that are used to invoke
+ * handlers off the I/O threads based on their execution mode
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public class ServiceRegistryExecutors {
+    private static final Logger logger = Logger
+            .getLogger(ServiceRegistryExecutors.class);
+    private final ConcurrentHashMap<RequestHandler, ThreadPoolExecutor> dedicatedExecutors = new ConcurrentHashMap<>();
+    private final int sharedThreads;
+    private final int queueSize;
+    // executors are looked up for every request so they are read without
+    // locking once they are created
+    private volatile ThreadPoolExecutor sharedExecutor;
+    private volatile ExecutorService virtualThreadExecutor;
+
+    public ServiceRegistryExecutors(Configuration config) {
+        this.sharedThreads = Math.max(1, config.getInteger(
+                Constants.HTTP_EXECUTOR_THREADS, Runtime.getRuntime()
+                        .availableProcessors() * 2));
+        this.queueSize = Math.max(1,
+                config.getInteger(Constants.HTTP_EXECUTOR_QUEUE_SIZE, 1000));
+    }
+
+    /**
+     * This method returns executor for given handler
+     * 
+     * @param h
+     * @param config
+     * @return executor or null if handler should be executed inline
+     */
+    public ExecutorService getExecutor(RequestHandler h,
+            ServiceConfigDesc config) {
+        if (config == null || config.executionMode() == ExecutionMode.INLINE) {
+            return null;
+        } else if (config.executionMode() == ExecutionMode.SHARED_POOL) {
+            return getSharedExecutor();
+        } else if (config.executionMode() == ExecutionMode.VIRTUAL_THREAD) {
+            return getVirtualThreadExecutor();
+        }
+        ThreadPoolExecutor executor = dedicatedExecutors.get(h);
+        if (executor == null) {
+            executor = newExecutor(h.getClass().getSimpleName(),
+                    Math.max(1, config.concurrency()));
+            ThreadPoolExecutor old = dedicatedExecutors.putIfAbsent(h,
+                    executor);
+            if (old != null) {
+                executor.shutdown();
+                executor = old;
+            }
+        }
+        return executor;
+    }
+
+    public ThreadPoolExecutor getSharedExecutor() {
+        ThreadPoolExecutor executor = sharedExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = sharedExecutor;
+                if (executor == null) {
+                    executor = sharedExecutor = newExecutor("shared",
+                            sharedThreads);
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * This method returns virtual-thread-per-task executor or shared executor
+     * if JVM doesn't support virtual threads
+     * 
+     * @return executor
+     */
+    public ExecutorService getVirtualThreadExecutor() {
+        ExecutorService executor = virtualThreadExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = virtualThreadExecutor;
+                if (executor == null) {
+                    executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+                    if (executor == null) {
+                        logger.warn("PLEXSVC Virtual threads are not supported, using shared executor");
+                        executor = getSharedExecutor();
+                    }
+                    virtualThreadExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * This method shuts down dedicated executor of the handler when it's
+     * removed from the registry
+     * 
+     * @param h
+     */
+    public void remove(RequestHandler h) {
+        ThreadPoolExecutor executor = dedicatedExecutors.remove(h);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * This method shuts down all executors, which are recreated when they are
+     * needed again
+     */
+    public synchronized void shutdown() {
+        if (sharedExecutor != null) {
+            sharedExecutor.shutdown();
+            sharedExecutor = null;
+        }
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+            virtualThreadExecutor = null;
+        }
+        for (RequestHandler h : dedicatedExecutors.keySet()) {
+            remove(h);
+        }
+    }
+
+    private ThreadPoolExecutor newExecutor(final String name, int threads) {
+        logger.info("PLEXSVC Creating " + name + " executor with " + threads
+                + " threads and queue size " + queueSize);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                        queueSize), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "plexsvc-" + name + "-"
+                                + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -4,16 +4,24 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import com.plexobject.domain.Preconditions;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.metrics.ServiceMetricsRegistry;
 import com.plexobject.service.ServiceConfigDesc;
 
 /**
- * This is a helper class to manage request handlers and interceptors
+ * This is a helper class to manage request handlers and interceptors. It
+ * keeps invocation plan of each handler, which is rebuilt when configuration
+ * of the handler changes.
  * 
  * @author shahzad bhatti
  *
  */
 public class ServiceRegistryHandlers {
-    private final ConcurrentHashMap<RequestHandler, ServiceConfigDesc> serviceConfigsByHandler = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<RequestHandler, InvocationPlan> plansByHandler = new ConcurrentHashMap<>();
+    private final ServiceMetricsRegistry serviceMetricsRegistry;
+
+    public ServiceRegistryHandlers(ServiceMetricsRegistry serviceMetricsRegistry) {
+        this.serviceMetricsRegistry = serviceMetricsRegistry;
+    }
 
     /**
      * This method returns cached ServiceConfigDesc for given handler
@@ -22,12 +30,26 @@ public class ServiceRegistryHandlers {
      * @return
      */
     public ServiceConfigDesc getServiceConfig(RequestHandler h) {
-        ServiceConfigDesc config = serviceConfigsByHandler.get(h);
-        if (config == null) {
-            config = new ServiceConfigDesc(h);
-            serviceConfigsByHandler.putIfAbsent(h, config);
+        return getInvocationPlan(h).getConfig();
+    }
+
+    /**
+     * This method returns cached invocation plan for given handler, which is
+     * built from its annotation if the handler was not added
+     * 
+     * @param h
+     * @return
+     */
+    public InvocationPlan getInvocationPlan(RequestHandler h) {
+        InvocationPlan plan = plansByHandler.get(h);
+        if (plan == null) {
+            plan = newInvocationPlan(h, new ServiceConfigDesc(h));
+            InvocationPlan old = plansByHandler.putIfAbsent(h, plan);
+            if (old != null) {
+                plan = old;
+            }
         }
-        return config;
+        return plan;
     }
 
     /**
@@ -43,10 +65,16 @@ public class ServiceRegistryHandlers {
     }
 
     public void setServiceConfig(RequestHandler h, ServiceConfigDesc config) {
-        serviceConfigsByHandler.put(h, config);
+        plansByHandler.put(h, newInvocationPlan(h, config));
     }
 
     public void removeServiceConfig(RequestHandler h) {
-        serviceConfigsByHandler.remove(h);
+        plansByHandler.remove(h);
+    }
+
+    private InvocationPlan newInvocationPlan(RequestHandler h,
+            ServiceConfigDesc config) {
+        return new InvocationPlan(h, config,
+                serviceMetricsRegistry.getServiceMetrics(h, config));
     }
 }
@@ -0,0 +1,130 @@
+package com.plexobject.util;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class provides a map view over a source such as request headers that
+ * looks up individual keys directly from the source and only copies all
+ * entries into a map returned by newMap when the map is iterated, sized or an
+ * entry is removed. Entries that are added before the map is materialized are
+ * kept in a separate map that overrides the source. Keys are always strings so
+ * lookups of other keys return null. This class is not thread-safe.
+ *
+ * @author shahzad bhatti
+ *
+ * @param <V>
+ *            type of value
+ */
+public abstract class LazyMap<V> extends AbstractMap<String, V> {
+    private Map<String, V> overrides;
+    private Map<String, V> delegate;
+
+    /**
+     * This method returns value of given key from the source
+     *
+     * @param key
+     * @return value or null if source doesn't have the key
+     */
+    protected abstract V lookup(String key);
+
+    /**
+     * This method copies all entries of the source into the given map
+     *
+     * @param map
+     */
+    protected abstract void load(Map<String, V> map);
+
+    /**
+     * This method creates map for the entries, subclasses can override it to
+     * keep the semantics of the source such as case-insensitive keys
+     *
+     * @return empty map
+     */
+    protected Map<String, V> newMap() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        if (delegate != null) {
+            return delegate.get(key);
+        }
+        if (overrides != null && overrides.containsKey(key)) {
+            return overrides.get(key);
+        }
+        return lookup((String) key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof String)) {
+            return false;
+        }
+        if (delegate != null) {
+            return delegate.containsKey(key);
+        }
+        if (overrides != null && overrides.containsKey(key)) {
+            return true;
+        }
+        return lookup((String) key) != null;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        if (delegate != null) {
+            return delegate.put(key, value);
+        }
+        V old = get(key);
+        if (overrides == null) {
+            overrides = newMap();
+        }
+        overrides.put(key, value);
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        return materialize().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        materialize().clear();
+    }
+
+    @Override
+    public int size() {
+        return materialize().size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return materialize().entrySet();
+    }
+
+    public boolean isMaterialized() {
+        return delegate != null;
+    }
+
+    private Map<String, V> materialize() {
+        if (delegate == null) {
+            Map<String, V> map = newMap();
+            load(map);
+            if (overrides != null) {
+                map.putAll(overrides);
+                overrides = null;
+            }
+            delegate = map;
+        }
+        return delegate;
+    }
+}
@@ -0,0 +1,53 @@
+package com.plexobject.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.log4j.Logger;
+
+/**
+ * This class creates virtual-thread-per-task executors when the JVM supports
+ * virtual threads. It uses reflection so that the framework can still be built
+ * and run with Java 7/8.
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class VirtualThreads {
+    private static final Logger logger = Logger.getLogger(VirtualThreads.class);
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * This method creates executor that starts a new virtual thread for each
+     * task
+     *
+     * @return executor or null if virtual threads are not supported
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR
+                    .invoke(null);
+        } catch (Exception e) {
+            // e.g. virtual threads are preview feature and not enabled
+            logger.warn("PLEXSVC Could not create virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+}
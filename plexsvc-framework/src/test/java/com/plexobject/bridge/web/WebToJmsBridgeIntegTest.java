@@ -30,12 +30,14 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
 import com.plexobject.encode.CodecType;
 import com.plexobject.encode.json.JsonObjectCodec;
 import com.plexobject.handler.AbstractResponseDispatcher;
 import com.plexobject.handler.NettyRequest;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.Response;
+import com.plexobject.http.HttpResponse;
 import com.plexobject.jms.JMSContainer;
 import com.plexobject.jms.JMSTestUtils;
 import com.plexobject.jms.MessageListenerConfig;
@@ -65,7 +67,7 @@ public class WebToJmsBridgeIntegTest {
         }
     }
 
-    private static Object reply;
+    private static volatile Object reply;
     private JMSContainer jmsContainer;
     private WebToJmsBridge bridge;
     private static Properties properties = new Properties();
@@ -225,6 +227,82 @@ public class WebToJmsBridgeIntegTest {
                 reply.toString().contains("Request timedout"));
     }
 
+    @Test
+    public void testHandleAsyncReply() throws Exception {
+        WebToJmsBridge bridge = newAsyncBridge();
+        WebToJmsEntry entry = new WebToJmsEntry(CodecType.JSON, "/async",
+                RequestMethod.GET, "queue://async-svc", 5, false, 1);
+        bridge.add(entry);
+        bridge.onStarted();
+        final CountDownLatch returned = new CountDownLatch(1);
+        final Destination dest = jmsContainer
+                .getDestination("queue://async-svc");
+        jmsContainer.setMessageListener(dest, new MessageListener() {
+            @Override
+            public void onMessage(Message m) {
+                try {
+                    // reply only after the invoking thread is released
+                    returned.await(1000, TimeUnit.MILLISECONDS);
+                    Map<String, Object> headers = new HashMap<>();
+                    headers.put(JMSUtils.JMS_CORRELATION_ID,
+                            m.getJMSCorrelationID());
+                    jmsContainer.send(m.getJMSReplyTo(), headers,
+                            "my-reply");
+                } catch (Exception e) {
+                }
+            }
+        }, new MessageListenerConfig());
+        reply = null;
+        Request request = newWebRequest("/async", "message");
+        serviceRegistry.invoke(request, bridge);
+        assertNull(reply);
+        returned.countDown();
+        for (int i = 0; i < 50 && reply == null; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals("my-reply", reply);
+        bridge.onStopped();
+    }
+
+    @Test
+    public void testHandleAsyncReplyTimeout() throws Exception {
+        WebToJmsBridge bridge = newAsyncBridge();
+        WebToJmsEntry entry = new WebToJmsEntry(CodecType.JSON, "/async",
+                RequestMethod.GET, "queue://async-tm", 1, false, 1);
+        bridge.add(entry);
+        bridge.onStarted();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Destination dest = jmsContainer
+                .getDestination("queue://async-tm");
+        jmsContainer.setMessageListener(dest, new MessageListener() {
+            @Override
+            public void onMessage(Message m) {
+                latch.countDown();
+            }
+        }, new MessageListenerConfig());
+        reply = null;
+        Request request = newWebRequest("/async", "message");
+        long started = System.currentTimeMillis();
+        serviceRegistry.invoke(request, bridge);
+        assertTrue(System.currentTimeMillis() - started < 1000);
+        assertTrue(latch.await(1000, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 30 && reply == null; i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(String.valueOf(reply),
+                String.valueOf(reply).contains("Request timedout"));
+        assertEquals(HttpResponse.SC_GATEWAY_TIMEOUT, request.getResponse()
+                .getStatusCode());
+        bridge.onStopped();
+    }
+
+    private WebToJmsBridge newAsyncBridge() {
+        Properties props = new Properties();
+        props.setProperty(Constants.WEB_TO_JMS_ASYNC_REPLIES, "true");
+        serviceRegistry = new ServiceRegistry(new Configuration(props));
+        return new WebToJmsBridge(serviceRegistry, jmsContainer);
+    }
+
     @Test(expected = IllegalStateException.class)
     public void testAddDuplicateWeb() throws Exception {
         WebToJmsEntry entry = new WebToJmsEntry(CodecType.JSON, "/ws",
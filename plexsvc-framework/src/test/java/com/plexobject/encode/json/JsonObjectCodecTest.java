@@ -3,6 +3,8 @@ package com.plexobject.encode.json;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -92,4 +94,22 @@ public class JsonObjectCodecTest {
         assertEquals(original,
                 instance.decode(null, Employee.class, objectAsMap));
     }
+
+    @Test
+    public void testDecodeBytes() {
+        byte[] json = "{\"id\":100,\"name\":\"john\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.allocate(json.length + 2);
+        heap.put((byte) ' ').put(json).flip();
+        heap.position(1);
+        assertEquals(new Employee(100L, "john"),
+                instance.decodeBytes(heap, Employee.class, null));
+        assertEquals(1, heap.position());
+        //
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).flip();
+        assertEquals(new Employee(100L, "john"),
+                instance.decodeBytes(direct, Employee.class, null));
+        assertEquals(0, direct.position());
+    }
 }
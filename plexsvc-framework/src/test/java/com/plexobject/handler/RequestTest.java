@@ -5,6 +5,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -69,6 +71,21 @@ public class RequestTest {
         assertEquals("{}", request.getContents());
     }
 
+    @Test
+    public void testRawContents() throws Exception {
+        Request request = NettyRequest.builder().setProtocol(Protocol.HTTP)
+                .setMethod(RequestMethod.POST).setEndpoint("/w")
+                .setCodecType(CodecType.JSON)
+                .setRawContents(
+                        ByteBuffer.wrap("{}".getBytes(StandardCharsets.UTF_8)))
+                .setResponseDispatcher(new AbstractResponseDispatcher() {
+                }).build();
+        assertTrue(request.hasRawContents());
+        assertEquals("{}", request.getContents());
+        assertFalse(request.hasRawContents());
+        assertNull(request.getRawContents());
+    }
+
     @Test
     public void testHandleUnknown() throws Exception {
         Map<String, Object> properties = new HashMap<>();
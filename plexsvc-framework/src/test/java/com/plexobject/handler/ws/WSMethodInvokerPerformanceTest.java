@@ -0,0 +1,111 @@
+package com.plexobject.handler.ws;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.ws.WSMethodInvokerTest.Greeter;
+import com.plexobject.handler.ws.WSMethodInvokerTest.GreeterImpl;
+import com.plexobject.util.ReflectUtils;
+import com.plexobject.util.ReflectUtils.Param;
+import com.plexobject.util.ReflectUtils.ParamType;
+
+/**
+ * This class compares time and allocated bytes per call of a web service
+ * method that is decoded and invoked with reflection against precomputed
+ * invoker
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WSMethodInvokerPerformanceTest {
+    private static final int WARMUP = 200000;
+    private static final int ITERATIONS = 1000000;
+    private static final ObjectCodec CODEC = ObjectCodecFactory.getInstance()
+            .getObjectCodec(CodecType.JSON);
+
+    private interface Call {
+        Object call() throws Exception;
+    }
+
+    @Test
+    public void testInvoke() throws Exception {
+        final Greeter greeter = new GreeterImpl();
+        final Method iMethod = Greeter.class.getMethod("greet", String.class,
+                int.class);
+        final Method implMethod = GreeterImpl.class.getMethod("greet",
+                String.class, int.class);
+        final Param[] params = {
+                new Param(ParamType.QUERY_FORM_PARAM, "name", null),
+                new Param(ParamType.QUERY_FORM_PARAM, "count", null) };
+        final WSMethodInvoker invoker = new WSMethodInvoker(iMethod,
+                implMethod, params);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "john");
+        properties.put("count", "7");
+        final Request request = WSMethodInvokerTest.newRequest(properties);
+        //
+        long[] reflective = run(new Call() {
+            @Override
+            public Object call() throws Exception {
+                Object[] args = ReflectUtils.decode(iMethod,
+                        request.getPropertiesAndHeaders(), params, null, CODEC);
+                return implMethod.invoke(greeter, args);
+            }
+        });
+        long[] precomputed = run(new Call() {
+            @Override
+            public Object call() throws Exception {
+                return invoker.invoke(greeter,
+                        invoker.decode(request, null, CODEC));
+            }
+        });
+        final Object[] args = invoker.decode(request, null, CODEC);
+        long[] reflectiveDispatch = run(new Call() {
+            @Override
+            public Object call() throws Exception {
+                return implMethod.invoke(greeter, args);
+            }
+        });
+        long[] handleDispatch = run(new Call() {
+            @Override
+            public Object call() throws Exception {
+                return invoker.invoke(greeter, args);
+            }
+        });
+        System.out.println("WS method decode+invoke: reflective "
+                + reflective[0] + " ns/" + reflective[1]
+                + " bytes, precomputed " + precomputed[0] + " ns/"
+                + precomputed[1] + " bytes; dispatch only: reflective "
+                + reflectiveDispatch[0] + " ns/" + reflectiveDispatch[1]
+                + " bytes, method handle " + handleDispatch[0] + " ns/"
+                + handleDispatch[1] + " bytes");
+    }
+
+    // returns nanos and allocated bytes per call
+    private static long[] run(Call call) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            assertEquals("john7", call.call());
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.call();
+        }
+        long elapsed = System.nanoTime() - started;
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+        return new long[] { elapsed / ITERATIONS, allocated / ITERATIONS };
+    }
+}
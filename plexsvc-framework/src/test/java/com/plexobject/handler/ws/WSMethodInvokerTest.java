@@ -0,0 +1,148 @@
+package com.plexobject.handler.ws;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.AbstractResponseDispatcher;
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+import com.plexobject.util.ReflectUtils.Param;
+import com.plexobject.util.ReflectUtils.ParamType;
+
+public class WSMethodInvokerTest {
+    private static final ObjectCodec CODEC = ObjectCodecFactory.getInstance()
+            .getObjectCodec(CodecType.JSON);
+
+    public interface Greeter {
+        String greet(String name, int count);
+
+        int size(Map<String, Object> params);
+
+        Request echo(Request request);
+
+        void fail(String message) throws Exception;
+    }
+
+    public static class GreeterImpl implements Greeter {
+        @Override
+        public String greet(String name, int count) {
+            return name + count;
+        }
+
+        @Override
+        public int size(Map<String, Object> params) {
+            return params.size();
+        }
+
+        @Override
+        public Request echo(Request request) {
+            return request;
+        }
+
+        @Override
+        public void fail(String message) throws Exception {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private final Greeter greeter = new GreeterImpl();
+
+    @Test
+    public void testInvokeWithQueryParams() throws Exception {
+        WSMethodInvoker invoker = newInvoker("greet", String.class, int.class,
+                new Param(ParamType.QUERY_FORM_PARAM, "name", null),
+                new Param(ParamType.QUERY_FORM_PARAM, "count", "1"));
+        assertTrue(invoker.isMethodHandle());
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("name", "john");
+        Object[] args = invoker.decode(newRequest(properties), null, CODEC);
+        assertEquals("john", args[0]);
+        assertEquals(1, args[1]);
+        assertEquals("john1", invoker.invoke(greeter, args));
+    }
+
+    @Test
+    public void testInvokeWithRequestScopedParams() throws Exception {
+        WSMethodInvoker size = newInvoker("size", Map.class, new Param(
+                ParamType.MAP_PARAM, null, null));
+        WSMethodInvoker echo = newInvoker("echo", Request.class, new Param(
+                ParamType.REQUEST_PARAM, null, null));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("a", "1");
+        properties.put("b", "2");
+        Request request = newRequest(properties);
+        assertEquals(2,
+                size.invoke(greeter, size.decode(request, null, CODEC)));
+        assertSame(request,
+                echo.invoke(greeter, echo.decode(request, null, CODEC)));
+        // values of a request are not kept by the invoker
+        Request other = newRequest(new HashMap<String, Object>());
+        assertEquals(0, size.invoke(greeter, size.decode(other, null, CODEC)));
+        assertSame(other, echo.invoke(greeter, echo.decode(other, null, CODEC)));
+    }
+
+    @Test
+    public void testInvokeVoidWithException() throws Exception {
+        WSMethodInvoker invoker = newInvoker("fail", String.class, new Param(
+                ParamType.QUERY_FORM_PARAM, "message", null));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("message", "bad");
+        Object[] args = invoker.decode(newRequest(properties), null, CODEC);
+        try {
+            invoker.invoke(greeter, args);
+            fail("should have failed");
+        } catch (IllegalStateException e) {
+            assertEquals("bad", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvokeVoid() throws Exception {
+        WSMethodInvoker invoker = newInvoker("fail", String.class, new Param(
+                ParamType.QUERY_FORM_PARAM, "message", null));
+        Greeter quiet = new GreeterImpl() {
+            @Override
+            public void fail(String message) {
+            }
+        };
+        assertNull(invoker.invoke(quiet, new Object[] { "ok" }));
+    }
+
+    private static WSMethodInvoker newInvoker(String name, Class<?> type,
+            Param param) throws Exception {
+        Method m = Greeter.class.getMethod(name, type);
+        return new WSMethodInvoker(m,
+                GreeterImpl.class.getMethod(name, type), new Param[] { param });
+    }
+
+    private static WSMethodInvoker newInvoker(String name, Class<?> type1,
+            Class<?> type2, Param param1, Param param2) throws Exception {
+        Method m = Greeter.class.getMethod(name, type1, type2);
+        return new WSMethodInvoker(m, GreeterImpl.class.getMethod(name,
+                type1, type2), new Param[] { param1, param2 });
+    }
+
+    static Request newRequest(Map<String, Object> properties) {
+        return NettyRequest.builder().setProtocol(Protocol.HTTP)
+                .setMethod(RequestMethod.GET).setEndpoint("/greet")
+                .setProperties(properties)
+                .setHeaders(new HashMap<String, Object>())
+                .setCodecType(CodecType.JSON)
+                .setResponseDispatcher(new AbstractResponseDispatcher() {
+                }).build();
+    }
+}
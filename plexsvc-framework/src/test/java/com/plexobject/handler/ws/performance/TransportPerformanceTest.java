@@ -0,0 +1,140 @@
+package com.plexobject.handler.ws.performance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.handler.ws.WSRequestHandlerAdapter;
+import com.plexobject.http.TestWebUtils;
+import com.plexobject.http.netty.TransportType;
+import com.plexobject.service.RequestBuilder;
+import com.plexobject.service.ServiceConfigDesc;
+import com.plexobject.service.ServiceRegistry;
+
+/**
+ * This class compares throughput and latency of order service for NIO and
+ * native epoll transports and for persistent and non-persistent connections
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public class TransportPerformanceTest {
+    private static final int NIO_HTTP_PORT = 8327;
+    private static final int EPOLL_HTTP_PORT = 8328;
+    private static final int KEEP_ALIVE_HTTP_PORT = 8331;
+    private static final int CONNECTION_CLOSE_HTTP_PORT = 8332;
+    private static final int CLIENT_THREADS = 4;
+    private static final int REQUESTS_PER_THREAD = 250;
+    private static final int WARMUP_REQUESTS = 500;
+
+    @Test
+    public void testNioTransport() throws Exception {
+        benchmark(TransportType.NIO.name(), TransportType.NIO, NIO_HTTP_PORT);
+    }
+
+    @Test
+    public void testEpollTransport() throws Exception {
+        benchmark(TransportType.EPOLL.name(), TransportType.EPOLL,
+                EPOLL_HTTP_PORT);
+    }
+
+    @Test
+    public void testKeepAliveConnections() throws Exception {
+        benchmark("Keep-alive", TransportType.NIO, KEEP_ALIVE_HTTP_PORT);
+    }
+
+    @Test
+    public void testNonPersistentConnections() throws Exception {
+        benchmark("Connection-close", TransportType.NIO,
+                CONNECTION_CLOSE_HTTP_PORT, "Content-Type",
+                "application/json", "Connection", "close");
+    }
+
+    private static void benchmark(String label, TransportType transport,
+            final int port, final String... headers) throws Exception {
+        RequestBuilder.filtering = false;
+        ServiceRegistry serviceRegistry = createServiceRegistry(transport,
+                port);
+        ExecutorService executor = Executors
+                .newFixedThreadPool(CLIENT_THREADS);
+        try {
+            serviceRegistry.start();
+            Thread.sleep(500);
+            final Order order = new Order(new Security(1, "AAPL", "Apple",
+                    SecurityType.STOCK), new Account(1001, "CX2001"),
+                    new BigDecimal("100"), new BigDecimal("10"),
+                    PriceType.MARKET);
+            TestWebUtils.post("http://localhost:" + port + "/orders",
+                    new RequestBuilder("create", order).encode());
+            for (int n = 0; n < WARMUP_REQUESTS; n++) {
+                TestWebUtils.get("http://localhost:" + port
+                        + "/orders?orderId=1", headers);
+            }
+            //
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            long started = System.nanoTime();
+            for (int i = 0; i < CLIENT_THREADS; i++) {
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() throws Exception {
+                        List<Long> latencies = new ArrayList<>();
+                        for (int n = 0; n < REQUESTS_PER_THREAD; n++) {
+                            long reqStarted = System.nanoTime();
+                            TestWebUtils.get("http://localhost:" + port
+                                    + "/orders?orderId=1", headers);
+                            latencies.add(System.nanoTime() - reqStarted);
+                        }
+                        return latencies;
+                    }
+                }));
+            }
+            List<Long> latencies = new ArrayList<>();
+            for (Future<List<Long>> f : futures) {
+                latencies.addAll(f.get());
+            }
+            long elapsed = System.nanoTime() - started;
+            assertEquals(CLIENT_THREADS * REQUESTS_PER_THREAD,
+                    latencies.size());
+            Collections.sort(latencies);
+            long p99 = latencies.get((int) (latencies.size() * 0.99) - 1);
+            System.out.println(label + " transport: "
+                    + (latencies.size() * 1000000000L / elapsed)
+                    + " requests/sec, p99 " + (p99 / 1000) + " micros");
+        } finally {
+            executor.shutdown();
+            serviceRegistry.stop();
+        }
+    }
+
+    private static ServiceRegistry createServiceRegistry(
+            TransportType transport, int port) {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT, String.valueOf(port));
+        props.setProperty(Constants.HTTP_TRANSPORT, transport.name());
+        ServiceRegistry serviceRegistry = new ServiceRegistry(
+                new Configuration(props));
+        WSRequestHandlerAdapter requestHandlerAdapter = new WSRequestHandlerAdapter(
+                serviceRegistry);
+        Map<ServiceConfigDesc, RequestHandler> handlers = requestHandlerAdapter
+                .create(OrderServiceImpl.class, null);
+        for (Map.Entry<ServiceConfigDesc, RequestHandler> e : handlers
+                .entrySet()) {
+            serviceRegistry.addRequestHandler(e.getKey(), e.getValue());
+        }
+        return serviceRegistry;
+    }
+}
@@ -0,0 +1,214 @@
+package com.plexobject.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+import com.plexobject.service.ServiceConfig;
+import com.plexobject.service.ServiceRegistry;
+
+public class AccessLogTest {
+    private static final int HTTP_PORT = 8334;
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/orders", method = RequestMethod.GET, codec = CodecType.TEXT)
+    public static class OrdersService implements RequestHandler {
+        @Override
+        public void handle(Request request) {
+            request.getResponse().setContents("orders");
+        }
+    }
+
+    private static class TestAppender extends AppenderSkeleton {
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+        private volatile CountDownLatch block;
+
+        @Override
+        protected void append(LoggingEvent event) {
+            if (block != null) {
+                try {
+                    block.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(event.getRenderedMessage());
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+
+    private final TestAppender appender = new TestAppender();
+    private final Logger accessLogger = Logger.getLogger("PLEXSVC.access");
+
+    @Before
+    public void setUp() throws Exception {
+        accessLogger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        accessLogger.removeAppender(appender);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        AccessLog accessLog = new AccessLog(0, AccessLog.Format.TEXT, 10);
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(accessLog.isSampled());
+        }
+    }
+
+    @Test
+    public void testSampling() throws Exception {
+        AccessLog accessLog = new AccessLog(10, AccessLog.Format.TEXT, 10);
+        int sampled = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (accessLog.isSampled()) {
+                sampled++;
+            }
+        }
+        assertTrue("sampled " + sampled, sampled > 500 && sampled < 1500);
+    }
+
+    @Test
+    public void testTextFormat() throws Exception {
+        AccessLog accessLog = new AccessLog(100, AccessLog.Format.TEXT, 10);
+        assertTrue(accessLog.isSampled());
+        accessLog.log(Protocol.HTTP, RequestMethod.POST, "/orders",
+                "/127.0.0.1:5000", 100);
+        String message = waitForMessage();
+        assertTrue(message,
+                message.endsWith(" HTTP POST /orders /127.0.0.1:5000 100"));
+    }
+
+    @Test
+    public void testStatusAndLatency() throws Exception {
+        AccessLog accessLog = new AccessLog(100, AccessLog.Format.TEXT, 10);
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/orders", null, 0,
+                404, 12);
+        String message = waitForMessage();
+        assertTrue(message,
+                message.endsWith(" HTTP GET /orders null 0 404 12ms"));
+        accessLog.stop();
+    }
+
+    @Test
+    public void testNettyRequestIsLoggedWithStatus() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT, String.valueOf(HTTP_PORT));
+        props.setProperty(Constants.ACCESS_LOG_SAMPLE_PERCENT, "100");
+        ServiceRegistry serviceRegistry = new ServiceRegistry(
+                new Configuration(props));
+        serviceRegistry.addRequestHandler(new OrdersService());
+        serviceRegistry.start();
+        int writers = countWriters();
+        try {
+            assertEquals("orders",
+                    TestWebUtils.get("http://localhost:" + HTTP_PORT
+                            + "/orders"));
+            String message = waitForMessage();
+            assertTrue(message, message.matches(".* HTTP GET /orders "
+                    + ".* 0 200 \\d+ms"));
+        } finally {
+            serviceRegistry.stop();
+        }
+        // writer that was started for the request is stopped with the server
+        assertEquals(writers, countWriters());
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        int writers = countWriters();
+        AccessLog accessLog = new AccessLog(100, AccessLog.Format.TEXT, 10);
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/1", null, 0);
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/2", null, 0);
+        assertEquals(writers + 1, countWriters());
+        accessLog.stop();
+        assertEquals(writers, countWriters());
+        // buffered entries are written before the writer stops
+        assertEquals(2, appender.messages.size());
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/3", null, 0);
+        assertEquals(writers, countWriters());
+        accessLog.start();
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/4", null, 0);
+        for (int i = 0; i < 100 && appender.messages.size() < 3; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(3, appender.messages.size());
+        assertTrue(appender.messages.get(2).endsWith(" /4 null 0"));
+        accessLog.stop();
+    }
+
+    @Test
+    public void testJsonFormat() throws Exception {
+        AccessLog accessLog = new AccessLog(100, AccessLog.Format.JSON, 10);
+        accessLog.log(Protocol.WEBSOCKET, RequestMethod.MESSAGE, "/quotes",
+                null, 20);
+        String message = waitForMessage();
+        assertTrue(message.startsWith("{\"time\":"));
+        assertTrue(message, message.endsWith("\"protocol\":\"WEBSOCKET\","
+                + "\"method\":\"MESSAGE\",\"uri\":\"/quotes\","
+                + "\"remoteAddress\":null,\"contentLength\":20}"));
+    }
+
+    @Test
+    public void testDropWhenBufferIsFull() throws Exception {
+        AccessLog accessLog = new AccessLog(100, AccessLog.Format.TEXT, 1);
+        appender.block = new CountDownLatch(1);
+        // first entry blocks the writer, second fills the buffer
+        accessLog.log(Protocol.HTTP, RequestMethod.GET, "/1", null, 0);
+        for (int i = 0; i < 100 && accessLog.getDropped() == 0; i++) {
+            accessLog.log(Protocol.HTTP, RequestMethod.GET, "/2", null, 0);
+            Thread.sleep(10);
+        }
+        assertTrue(accessLog.getDropped() > 0);
+        appender.block.countDown();
+        waitForMessage();
+        assertEquals("/1", appender.messages.get(0).split(" ")[3]);
+    }
+
+    private static int countWriters() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.isAlive() && "plexsvc-access-log".equals(t.getName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private String waitForMessage() throws InterruptedException {
+        for (int i = 0; i < 100 && appender.messages.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertFalse(appender.messages.isEmpty());
+        return appender.messages.get(0);
+    }
+}
@@ -0,0 +1,122 @@
+package com.plexobject.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.AbstractResponseDispatcher;
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.handler.Response;
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.route.RouteMatch;
+import com.plexobject.route.RouteResolver;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+import com.plexobject.service.ServiceConfig;
+import com.plexobject.service.ServiceConfigDesc;
+import com.plexobject.service.ServiceRegistry;
+
+public class DefaultHttpRequestHandlerTest {
+    private final Map<RequestMethod, RouteResolver<RequestHandler>> routes = new ConcurrentHashMap<>();
+    private DefaultHttpRequestHandler handler;
+    private Response response;
+    private Object sent;
+
+    @Before
+    public void setUp() throws Exception {
+        ServiceRegistry serviceRegistry = new ServiceRegistry(
+                new Configuration(new Properties()));
+        RouteResolver<RequestHandler> resolver = new RouteResolver<>();
+        resolver.put("/users/{id}", new RequestHandler() {
+            @Override
+            public void handle(Request request) {
+            }
+        });
+        routes.put(RequestMethod.GET, resolver);
+        handler = new DefaultHttpRequestHandler(serviceRegistry, routes);
+    }
+
+    @Test
+    public void testUnknownPath() throws Exception {
+        handler.handle(newRequest(RequestMethod.GET, "/wp-login.php"));
+        assertEquals(HttpResponse.SC_NOT_FOUND, response.getStatusCode());
+        assertEquals(DefaultHttpRequestHandler.NOT_FOUND,
+                response.getStatusMessage());
+        assertEquals(DefaultHttpRequestHandler.NOT_FOUND, sent);
+    }
+
+    @Test
+    public void testUnknownMethod() throws Exception {
+        handler.handle(newRequest(RequestMethod.DELETE, "/users/1"));
+        assertEquals(HttpResponse.SC_NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    public void testStreamingHandlerForUnknownPath() throws Exception {
+        assertNull(handler.getStreamingHandler(RequestMethod.GET, "/xxx",
+                new RouteMatch()));
+        assertNotNull(routes.get(RequestMethod.GET).get("/users/1",
+                new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void testStreamingHandlerIsTrackedByContainer() throws Exception {
+        RequestHandler upload = new StreamingUpload();
+        ServiceConfigDesc config = ServiceConfigDesc.builder(upload).build();
+        assertFalse(handler.hasStreamingHandlers());
+        routes.get(RequestMethod.GET).put("/uploads", upload);
+        // not looked up until the container reports streaming handler
+        assertNull(handler.getStreamingHandler(RequestMethod.GET, "/uploads",
+                new RouteMatch()));
+        handler.onHandlerAdded(upload, config);
+        assertTrue(handler.hasStreamingHandlers());
+        assertSame(upload, handler.getStreamingHandler(RequestMethod.GET,
+                "/uploads", new RouteMatch()));
+        handler.onHandlerRemoved(upload, config);
+        assertFalse(handler.hasStreamingHandlers());
+    }
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/uploads", method = RequestMethod.GET, codec = CodecType.TEXT, streaming = true)
+    public static class StreamingUpload implements StreamingRequestHandler {
+        @Override
+        public void handle(Request request) {
+        }
+
+        @Override
+        public void handleChunk(Request request, InputStream chunk,
+                boolean last) {
+        }
+    }
+
+    private Request newRequest(RequestMethod method, String endpoint) {
+        return NettyRequest.builder().setProtocol(Protocol.HTTP)
+                .setMethod(method).setEndpoint(endpoint)
+                .setProperties(new HashMap<String, Object>())
+                .setHeaders(new HashMap<String, Object>())
+                .setCodecType(CodecType.JSON).setContents("{}")
+                .setResponseDispatcher(new AbstractResponseDispatcher() {
+                    @Override
+                    protected void doSend(Response r, Object encodedReply) {
+                        response = r;
+                        sent = encodedReply;
+                    }
+                }).build();
+    }
+}
@@ -0,0 +1,114 @@
+package com.plexobject.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.EncodablePayload;
+import com.plexobject.encode.EncodingException;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.Response;
+
+public class HttpResponseDispatcherTest {
+    public static class Unencodable {
+        public String getName() {
+            throw new IllegalStateException("cannot encode");
+        }
+    }
+
+    private static class StreamingResponse implements HttpResponse {
+        @Override
+        public void setContentType(String type) {
+        }
+
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public void addCookie(String name, String value) {
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+        }
+
+        @Override
+        public void setStatus(int statusCode) {
+        }
+
+        @Override
+        public void send(Object contents) throws IOException {
+            ((EncodablePayload) contents).writeTo(new ByteArrayOutputStream());
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+        }
+    }
+
+    @Test
+    public void testToStringDoesNotEncode() throws Exception {
+        EncodablePayload payload = new EncodablePayload(ObjectCodecFactory
+                .getInstance().getObjectCodec(CodecType.JSON),
+                new Unencodable());
+        assertTrue(payload.toString(),
+                payload.toString().contains(Unencodable.class.getName()));
+    }
+
+    @Test
+    public void testEncodingFailureIsRethrown() throws Exception {
+        final boolean[] handled = new boolean[1];
+        HttpResponseDispatcher dispatcher = new HttpResponseDispatcher(
+                new Handledable() {
+                    @Override
+                    public void setHandled(boolean f) {
+                        handled[0] = f;
+                    }
+                }, new StreamingResponse());
+        Response response = new Response(null, new HashMap<String, Object>(),
+                new HashMap<String, Object>(), null, CodecType.JSON);
+        try {
+            dispatcher.doSend(response, new EncodablePayload(ObjectCodecFactory
+                    .getInstance().getObjectCodec(CodecType.JSON),
+                    new Unencodable()));
+            fail("should have failed to encode");
+        } catch (EncodingException e) {
+        }
+        assertFalse(handled[0]);
+    }
+
+    @Test
+    public void testWriteFailureIsReported() throws Exception {
+        final Boolean[] handled = new Boolean[1];
+        HttpResponseDispatcher dispatcher = new HttpResponseDispatcher(
+                new Handledable() {
+                    @Override
+                    public void setHandled(boolean f) {
+                        handled[0] = f;
+                    }
+                }, new StreamingResponse() {
+                    @Override
+                    public void send(Object contents) throws IOException {
+                        throw new IOException("connection reset");
+                    }
+                });
+        Response response = new Response(null, new HashMap<String, Object>(),
+                new HashMap<String, Object>(), null, CodecType.JSON);
+        dispatcher.doSend(response, "pong");
+        assertEquals(Boolean.FALSE, handled[0]);
+    }
+}
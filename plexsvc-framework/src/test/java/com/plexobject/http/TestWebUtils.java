@@ -1,6 +1,7 @@
 package com.plexobject.http;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
@@ -16,6 +17,7 @@ import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
@@ -55,12 +57,12 @@ public class TestWebUtils {
     private static class WebSocketClientHandler extends
             SimpleChannelInboundHandler<Object> {
         private final CountDownLatch latch;
-        private final List<String> responses;
+        private final List<Object> responses;
         private final WebSocketClientHandshaker handshaker;
         private ChannelPromise handshakeFuture;
 
         private WebSocketClientHandler(final CountDownLatch latch,
-                final List<String> responses,
+                final List<Object> responses,
                 final WebSocketClientHandshaker handshaker) {
             this.latch = latch;
             this.responses = responses;
@@ -110,6 +112,11 @@ public class TestWebUtils {
                 TextWebSocketFrame textFrame = (TextWebSocketFrame) frame;
                 responses.add(textFrame.text());
                 latch.countDown();
+            } else if (frame instanceof BinaryWebSocketFrame) {
+                byte[] data = new byte[frame.content().readableBytes()];
+                frame.content().readBytes(data);
+                responses.add(data);
+                latch.countDown();
             } else if (frame instanceof CloseWebSocketFrame) {
                 ch.close();
             }
@@ -127,10 +134,22 @@ public class TestWebUtils {
 
     public static String sendReceiveWebsocketRequest(int port, String data)
             throws Exception {
+        return (String) sendReceiveWebsocketFrame(port, new TextWebSocketFrame(
+                data));
+    }
+
+    public static byte[] sendReceiveBinaryWebsocketRequest(int port,
+            byte[] data) throws Exception {
+        return (byte[]) sendReceiveWebsocketFrame(port,
+                new BinaryWebSocketFrame(Unpooled.wrappedBuffer(data)));
+    }
+
+    private static Object sendReceiveWebsocketFrame(int port,
+            WebSocketFrame frame) throws Exception {
         final EventLoopGroup group = new NioEventLoopGroup();
         final URI uri = new URI("ws://127.0.0.1:" + port + "/ws");
         final CountDownLatch latch = new CountDownLatch(1);
-        final List<String> responses = new ArrayList<>();
+        final List<Object> responses = new ArrayList<>();
 
         final WebSocketClientHandler handler = new WebSocketClientHandler(
                 latch, responses,
@@ -165,7 +184,6 @@ public class TestWebUtils {
         final Channel channel = b.connect(uri.getHost(), uri.getPort()).sync()
                 .channel();
         handler.handshakeFuture().sync();
-        WebSocketFrame frame = new TextWebSocketFrame(data);
         channel.writeAndFlush(frame);
         latch.await(2, TimeUnit.SECONDS);
         group.shutdownGracefully();
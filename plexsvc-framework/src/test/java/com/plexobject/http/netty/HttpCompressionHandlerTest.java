@@ -0,0 +1,181 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Test;
+
+public class HttpCompressionHandlerTest {
+    private static final int THRESHOLD = 100;
+    private final CompressedResponseCache cache = new CompressedResponseCache(
+            1024 * 1024);
+    private final EmbeddedChannel channel = new EmbeddedChannel(
+            new HttpCompressionHandler(THRESHOLD, cache));
+
+    @Test
+    public void testSelectEncoding() throws Exception {
+        assertNull(HttpCompressionHandler.selectEncoding(null));
+        assertNull(HttpCompressionHandler.selectEncoding("identity"));
+        assertEquals("gzip",
+                HttpCompressionHandler.selectEncoding("gzip, deflate"));
+        assertEquals("deflate",
+                HttpCompressionHandler.selectEncoding("gzip;q=0.5, deflate"));
+        assertEquals("deflate",
+                HttpCompressionHandler.selectEncoding("gzip;q=0, *"));
+        assertEquals("gzip", HttpCompressionHandler.selectEncoding("*"));
+    }
+
+    @Test
+    public void testGzipResponse() throws Exception {
+        String body = body(THRESHOLD * 10);
+        FullHttpResponse res = send("/orders", "gzip", body);
+        assertEquals("gzip",
+                res.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+        assertEquals(res.content().readableBytes(),
+                HttpHeaders.getContentLength(res));
+        assertTrue(res.content().readableBytes() < body.length());
+        assertEquals(body, decompress(new GZIPInputStream(
+                new ByteBufInputStream(res.content()))));
+        res.release();
+    }
+
+    @Test
+    public void testDeflateResponse() throws Exception {
+        String body = body(THRESHOLD * 10);
+        FullHttpResponse res = send("/orders", "deflate", body);
+        assertEquals("deflate",
+                res.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+        assertEquals(body, decompress(new InflaterInputStream(
+                new ByteBufInputStream(res.content()))));
+        res.release();
+    }
+
+    @Test
+    public void testSmallResponseIsNotCompressed() throws Exception {
+        String body = body(THRESHOLD - 1);
+        FullHttpResponse res = send("/orders", "gzip", body);
+        assertNull(res.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+        assertEquals(body, res.content().toString(CharsetUtil.UTF_8));
+        res.release();
+    }
+
+    @Test
+    public void testResponseIsNotCompressedWithoutAcceptEncoding()
+            throws Exception {
+        String body = body(THRESHOLD * 10);
+        FullHttpResponse res = send("/orders", null, body);
+        assertNull(res.headers().get(HttpHeaders.Names.CONTENT_ENCODING));
+        assertEquals(body, res.content().toString(CharsetUtil.UTF_8));
+        res.release();
+    }
+
+    @Test
+    public void testCachedResponse() throws Exception {
+        String body = body(THRESHOLD * 10);
+        send("/orders", "gzip", body).release();
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.size());
+        FullHttpResponse res = send("/orders", "gzip", body);
+        assertEquals(1, cache.getHits());
+        assertEquals(body, decompress(new GZIPInputStream(
+                new ByteBufInputStream(res.content()))));
+        res.release();
+        // changed response is compressed again
+        String changed = body(THRESHOLD * 20);
+        res = send("/orders", "gzip", changed);
+        assertEquals(1, cache.getHits());
+        assertEquals(changed, decompress(new GZIPInputStream(
+                new ByteBufInputStream(res.content()))));
+        res.release();
+    }
+
+    @Test
+    public void testCacheIsBoundedByBytes() throws Exception {
+        CompressedResponseCache small = new CompressedResponseCache(1024);
+        byte[] compressed = new byte[300];
+        for (int i = 0; i < 10; i++) {
+            small.put("/orders/" + i, Unpooled.copiedBuffer(body(THRESHOLD),
+                    CharsetUtil.UTF_8), compressed);
+            assertTrue(small.getTotalBytes() <= 1024);
+        }
+        assertEquals(2, small.size());
+        // least recently used entries are evicted first
+        assertNull(small.get("/orders/0",
+                Unpooled.copiedBuffer(body(THRESHOLD), CharsetUtil.UTF_8)));
+        assertNotNull(small.get("/orders/9",
+                Unpooled.copiedBuffer(body(THRESHOLD), CharsetUtil.UTF_8)));
+        // entries larger than the cache are not kept
+        small.put("/large", Unpooled.copiedBuffer(body(THRESHOLD),
+                CharsetUtil.UTF_8), new byte[2048]);
+        assertEquals(2, small.size());
+    }
+
+    @Test
+    public void testCachedBytesAreNotReusedForSameLengthContent()
+            throws Exception {
+        String body = body(THRESHOLD);
+        cache.put("/orders", Unpooled.copiedBuffer(body, CharsetUtil.UTF_8),
+                new byte[] { 1 });
+        String changed = "X" + body.substring(1);
+        assertNull(cache.get("/orders",
+                Unpooled.copiedBuffer(changed, CharsetUtil.UTF_8)));
+        assertNotNull(cache.get("/orders",
+                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8)));
+    }
+
+    private FullHttpResponse send(String uri, String acceptEncoding,
+            String body) {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, uri);
+        if (acceptEncoding != null) {
+            req.headers().set(HttpHeaders.Names.ACCEPT_ENCODING,
+                    acceptEncoding);
+        }
+        channel.writeInbound(req);
+        req = (FullHttpRequest) channel.readInbound();
+        req.release();
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, CharsetUtil.UTF_8));
+        HttpHeaders.setContentLength(res, res.content().readableBytes());
+        channel.writeOutbound(res);
+        return (FullHttpResponse) channel.readOutbound();
+    }
+
+    private static String body(int size) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < size) {
+            sb.append("{\"orderId\":" + sb.length() + "}");
+        }
+        return sb.substring(0, size);
+    }
+
+    private static String decompress(InputStream in) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), CharsetUtil.UTF_8);
+    }
+}
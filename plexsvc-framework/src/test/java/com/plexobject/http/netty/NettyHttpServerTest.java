@@ -3,16 +3,28 @@ package com.plexobject.http.netty;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import io.netty.channel.epoll.Epoll;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
 import com.plexobject.http.TestWebUtils;
@@ -21,6 +33,10 @@ public class NettyHttpServerTest {
     private static final String PONG = "pong";
     private static final String PING = "ping";
     private static final int HTTP_PORT = 8323;
+    private static final int EPOLL_HTTP_PORT = 8326;
+    private static final int COMPRESSION_HTTP_PORT = 8333;
+    private static final String LARGE = new String(new char[4 * 1024 * 1024])
+            .replace('\0', 'x');
     private NettyHttpServer server;
     private final List<Request> requests = new ArrayList<>();
     private CountDownLatch latch = new CountDownLatch(1);
@@ -28,7 +44,8 @@ public class NettyHttpServerTest {
         @Override
         public void handle(Request request) {
             requests.add(request);
-            request.getResponse().setContents(PONG);
+            request.getResponse().setContents(
+                    "/large".equals(request.getEndpoint()) ? LARGE : PONG);
             request.sendResponse();
             latch.countDown();
         }
@@ -56,6 +73,26 @@ public class NettyHttpServerTest {
         assertFalse(server.isRunning());
     }
 
+    @Test
+    public void testStartAfterBindFailure() throws Exception {
+        NettyHttpServer other = (NettyHttpServer) TestWebUtils
+                .createHttpServer(HTTP_PORT, handler);
+        try {
+            try {
+                other.start();
+                fail("port is already bound");
+            } catch (RuntimeException e) {
+            }
+            assertFalse(other.isRunning());
+            server.stop();
+            other.start();
+            assertTrue(other.isRunning());
+        } finally {
+            other.stop();
+            other.destroy();
+        }
+    }
+
     @Test
     public void testWebHandler() throws Exception {
         String response = TestWebUtils.sendReceivePostRequest(HTTP_PORT, PING);
@@ -64,4 +101,108 @@ public class NettyHttpServerTest {
         assertEquals(PING, requests.get(0).getContents());
         assertEquals(PONG, response);
     }
+
+    @Test
+    public void testEpollTransport() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT, String.valueOf(EPOLL_HTTP_PORT));
+        props.setProperty(Constants.HTTP_TRANSPORT, "epoll");
+        props.setProperty(Constants.HTTP_ACCEPTOR_THREADS, "2");
+        NettyHttpServer epollServer = (NettyHttpServer) new NettyWebContainerProvider()
+                .getWebContainer(new Configuration(props), handler);
+        try {
+            epollServer.start();
+            assertEquals(Epoll.isAvailable() ? TransportType.EPOLL
+                    : TransportType.NIO, epollServer.getTransportType());
+            String response = TestWebUtils.sendReceivePostRequest(
+                    EPOLL_HTTP_PORT, PING);
+            latch.await(1000, TimeUnit.MILLISECONDS);
+            assertEquals(1, requests.size());
+            assertEquals(PONG, response);
+        } finally {
+            epollServer.stop();
+            epollServer.destroy();
+        }
+    }
+
+    @Test
+    public void testCompressedResponse() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT,
+                String.valueOf(COMPRESSION_HTTP_PORT));
+        props.setProperty(Constants.HTTP_COMPRESSION, "true");
+        props.setProperty(Constants.HTTP_COMPRESSION_THRESHOLD, "1");
+        NettyHttpServer compressionServer = (NettyHttpServer) new NettyWebContainerProvider()
+                .getWebContainer(new Configuration(props), handler);
+        try {
+            compressionServer.start();
+            HttpURLConnection con = (HttpURLConnection) new URL(
+                    "http://localhost:" + COMPRESSION_HTTP_PORT + "/ping")
+                    .openConnection();
+            con.setRequestProperty("Accept-Encoding", "gzip");
+            assertEquals(200, con.getResponseCode());
+            assertEquals("gzip", con.getContentEncoding());
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(con.getInputStream()), "UTF-8"));
+            assertEquals(PONG, in.readLine());
+            in.close();
+        } finally {
+            compressionServer.stop();
+            compressionServer.destroy();
+        }
+    }
+
+    @Test
+    public void testKeepAliveConnectionIsReused() throws Exception {
+        try (Socket socket = new Socket("localhost", HTTP_PORT)) {
+            socket.setSoTimeout(2000);
+            OutputStream out = socket.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "UTF-8"));
+            for (int i = 0; i < 3; i++) {
+                out.write(("POST / HTTP/1.1\r\nHost: localhost\r\n"
+                        + "Content-Length: 4\r\n\r\n" + PING)
+                        .getBytes("UTF-8"));
+                out.flush();
+                assertEquals(PONG, readResponse(in));
+            }
+        }
+        assertEquals(3, requests.size());
+    }
+
+    @Test
+    public void testLargeResponseIsSentBeforeConnectionIsClosed()
+            throws Exception {
+        try (Socket socket = new Socket("localhost", HTTP_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /large HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Connection: close\r\n\r\n").getBytes("UTF-8"));
+            out.flush();
+            // read slowly so that response is still buffered by the server
+            Thread.sleep(500);
+            BufferedReader in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), "UTF-8"));
+            assertEquals(LARGE, readResponse(in));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private static String readResponse(BufferedReader in) throws Exception {
+        assertTrue(in.readLine().startsWith("HTTP/1.1 200"));
+        int length = 0;
+        String line;
+        while ((line = in.readLine()).length() > 0) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        char[] body = new char[length];
+        int n = 0;
+        int read;
+        while (n < length && (read = in.read(body, n, length - n)) != -1) {
+            n += read;
+        }
+        return new String(body, 0, n);
+    }
 }
@@ -0,0 +1,82 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.StreamingRequestHandler;
+import com.plexobject.http.TestWebUtils;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+import com.plexobject.service.ServiceConfig;
+import com.plexobject.service.ServiceRegistry;
+
+public class NettyStreamingRequestTest {
+    private static final int HTTP_PORT = 8329;
+    private static final int UPLOAD_SIZE = 256 * 1024;
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/upload", method = RequestMethod.POST, codec = CodecType.TEXT, streaming = true)
+    public static class UploadService implements StreamingRequestHandler {
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger chunks = new AtomicInteger();
+
+        @Override
+        public void handleChunk(Request request, InputStream chunk,
+                boolean last) throws Exception {
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = chunk.read(buffer)) > 0) {
+                bytes.addAndGet(n);
+            }
+            chunks.incrementAndGet();
+        }
+
+        @Override
+        public void handle(Request request) {
+            request.getResponse().setContents(String.valueOf(bytes.get()));
+            request.sendResponse();
+        }
+    }
+
+    private ServiceRegistry serviceRegistry;
+    private UploadService uploadService = new UploadService();
+
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT, String.valueOf(HTTP_PORT));
+        serviceRegistry = new ServiceRegistry(new Configuration(props));
+        serviceRegistry.addRequestHandler(uploadService);
+        serviceRegistry.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        serviceRegistry.stop();
+    }
+
+    @Test
+    public void testStreamingLargerThanAggregatorLimit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < UPLOAD_SIZE; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        String resp = TestWebUtils.post(
+                "http://localhost:" + HTTP_PORT + "/upload", sb.toString())
+                .first;
+        assertEquals(String.valueOf(UPLOAD_SIZE), resp);
+        assertTrue(uploadService.chunks.get() > 1);
+    }
+}
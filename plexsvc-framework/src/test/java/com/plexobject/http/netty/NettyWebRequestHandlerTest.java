@@ -1,9 +1,11 @@
 package com.plexobject.http.netty;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.DefaultHttpRequest;
 import io.netty.handler.codec.http.HttpMethod;
@@ -15,6 +17,8 @@ import java.util.Map;
 
 import mockit.Expectations;
 import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
 import mockit.integration.junit4.JMockit;
 
 import org.junit.After;
@@ -26,6 +30,7 @@ import com.plexobject.encode.CodecType;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
 import com.plexobject.service.ServiceRegistry;
+import com.plexobject.util.LazyMap;
 
 @RunWith(JMockit.class)
 public class NettyWebRequestHandlerTest {
@@ -79,17 +84,11 @@ public class NettyWebRequestHandlerTest {
 
     @Test
     public void testChannelInactive() throws Exception {
+        // websocket state is stored with the channel so disconnect doesn't
+        // look up remote address
         new Expectations() {
-            @Mocked
-            Channel channel;
-            @Mocked
-            SocketAddress address;
             {
                 ctx.fireChannelInactive();
-                ctx.channel();
-                returns(channel);
-                channel.remoteAddress();
-                returns(address);
             }
         };
         nettyHandler.channelInactive(ctx);
@@ -115,13 +114,21 @@ public class NettyWebRequestHandlerTest {
     public void testChannelRead0() throws Exception {
         HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
                 HttpMethod.GET, "http://localhost?one=1&two=2");
-        new Expectations() {
+        // order of pipelined requests is kept with the channel
+        final Channel embedded = new EmbeddedChannel();
+        new NonStrictExpectations() {
             {
-                reqHandler.handle((Request) any);
+                ctx.channel();
+                result = embedded;
             }
         };
 
         nettyHandler.channelRead0(ctx, request);
+        new Verifications() {
+            {
+                reqHandler.handle((Request) any);
+            }
+        };
     }
 
     @Test
@@ -144,4 +151,49 @@ public class NettyWebRequestHandlerTest {
         assertEquals("value", headers.get("name"));
     }
 
+    @Test
+    public void testHeadersAreCaseInsensitiveAfterIteration()
+            throws Exception {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, "http://localhost");
+        request.headers().add("Content-Type", "application/json");
+        Map<String, Object> headers = NettyWebRequestHandler
+                .getHeaders(request);
+        assertEquals("application/json", headers.get("content-type"));
+        // iteration copies headers into the map
+        assertEquals(1, headers.entrySet().size());
+        assertTrue(((LazyMap<Object>) headers).isMaterialized());
+        assertEquals("application/json", headers.get("content-type"));
+        assertEquals("application/json", headers.get("CONTENT-TYPE"));
+        assertNull(headers.get(1));
+    }
+
+    @Test
+    public void testGetHeadersAndCookies() throws Exception {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, "http://localhost");
+        request.headers().add("name", "value");
+        request.headers().add("Cookie", "session=abc; name=cookie");
+
+        Map<String, Object> headers = NettyWebRequestHandler
+                .getHeaders(request);
+        assertEquals("abc", headers.get("session"));
+        // headers take precedence over cookies
+        assertEquals("value", headers.get("name"));
+        assertEquals(3, headers.size());
+        assertEquals("abc", headers.get("session"));
+        assertEquals("value", headers.get("name"));
+    }
+
+    @Test
+    public void testGetParamsWithoutQuery() throws Exception {
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, "http://localhost/path");
+        Map<String, Object> params = NettyWebRequestHandler.getParams(request);
+        assertNull(params.get("one"));
+        params.put("one", "1");
+        assertEquals("1", params.get("one"));
+        assertEquals(1, params.size());
+    }
+
 }
@@ -1,6 +1,12 @@
 package com.plexobject.http.netty;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -31,11 +37,13 @@ public class NettyWebsocketRequestHandlerTest {
 
     private NettyHttpServer server;
     private final List<Request> requests = new ArrayList<>();
+    private final List<WebsocketSession> sessions = new ArrayList<>();
 
     private RequestHandler handler = new RequestHandler() {
         @Override
         public void handle(Request request) {
             requests.add(request);
+            sessions.add(WebsocketSession.get(request));
             request.getResponse().setCodecType(CodecType.JSON);
 
             request.getResponse().setContents(PONG);
@@ -73,6 +81,7 @@ public class NettyWebsocketRequestHandlerTest {
                 HTTP_PORT, jsonRequest);
         assertEquals(1, requests.size());
         assertEquals(PING, requests.get(0).getContentsAs());
+        assertNotNull(sessions.get(0));
         Request reply = ObjectCodecFactory
                 .getInstance()
                 .getObjectCodec(CodecType.JSON)
@@ -80,4 +89,37 @@ public class NettyWebsocketRequestHandlerTest {
                         new HashMap<String, Object>());
         assertEquals(PONG, reply.getContentsAs());
     }
+
+    @Test
+    public void testBinaryWebHandler() throws Exception {
+        ByteBuf request = WebsocketBinaryFrames.encode(
+                UnpooledByteBufAllocator.DEFAULT,
+                new WebsocketBinaryFrames.Header("/ping", 42, 0),
+                Unpooled.copiedBuffer(PING, CharsetUtil.UTF_8));
+        byte[] data = new byte[request.readableBytes()];
+        request.readBytes(data);
+        request.release();
+        byte[] response = TestWebUtils.sendReceiveBinaryWebsocketRequest(
+                HTTP_PORT, data);
+        assertEquals(1, requests.size());
+        assertEquals("/ping", requests.get(0).getEndpoint());
+        assertEquals(42, requests.get(0).getRequestId());
+        assertEquals(PING, requests.get(0).getContents());
+
+        ByteBuf reply = Unpooled.wrappedBuffer(response);
+        WebsocketBinaryFrames.Header header = WebsocketBinaryFrames
+                .readHeader(reply);
+        assertEquals("/ping", header.getEndpoint());
+        assertEquals(42, header.getCorrelationId());
+        assertEquals(200, header.getStatus());
+        assertEquals(PONG, reply.toString(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void testMalformedBinaryRequestIsIgnored() throws Exception {
+        byte[] response = TestWebUtils.sendReceiveBinaryWebsocketRequest(
+                HTTP_PORT, new byte[] { 0, 10, 'x' });
+        assertNull(response);
+        assertEquals(0, requests.size());
+    }
 }
@@ -0,0 +1,125 @@
+package com.plexobject.http.netty;
+
+import static io.netty.handler.codec.http.HttpHeaders.Names.COOKIE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.netty.handler.codec.http.Cookie;
+import io.netty.handler.codec.http.CookieDecoder;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.plexobject.handler.AbstractResponseDispatcher;
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.ResponseDispatcher;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+
+/**
+ * This class compares heap allocation per request between copying all headers,
+ * cookies and query parameters into hash maps and reading them lazily from
+ * netty request when handler accesses a couple of them
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class RequestHeadersPerformanceTest {
+    private static final int WARMUP = 10000;
+    private static final int ITERATIONS = 100000;
+    private final HttpRequest httpRequest = new DefaultHttpRequest(
+            HttpVersion.HTTP_1_1, HttpMethod.GET, "/orders?orderId=1&fields=all");
+    private final ResponseDispatcher dispatcher = new AbstractResponseDispatcher() {
+    };
+
+    public RequestHeadersPerformanceTest() {
+        httpRequest.headers().add("Host", "localhost:8181");
+        httpRequest.headers().add("User-Agent",
+                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_11_6)");
+        httpRequest.headers().add("Accept",
+                "text/html,application/xhtml+xml,application/xml;q=0.9");
+        httpRequest.headers().add("Accept-Language", "en-US,en;q=0.8");
+        httpRequest.headers().add("Accept-Encoding", "gzip, deflate");
+        httpRequest.headers().add("Connection", "keep-alive");
+        httpRequest.headers().add("Cache-Control", "max-age=0");
+        httpRequest.headers().add("Referer", "http://localhost:8181/orders");
+        httpRequest.headers().add("Content-Type", "application/json");
+        httpRequest.headers().add(COOKIE,
+                "PlexSessionID=1234567890; theme=dark; tz=UTC");
+    }
+
+    @Test
+    public void testAllocationPerRequest() throws Exception {
+        assertEquals("1", build(false).getProperty("orderId"));
+        assertEquals("1", build(true).getProperty("orderId"));
+        assertEquals("1234567890", build(true).getHeader("PlexSessionID"));
+        run(false, WARMUP);
+        long eager = run(false, ITERATIONS);
+        run(true, WARMUP);
+        long lazy = run(true, ITERATIONS);
+        assertTrue(lazy < eager);
+        System.out.println("Allocated bytes per request: eager headers "
+                + eager + ", lazy headers " + lazy);
+    }
+
+    private long run(boolean lazy, int iterations) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long started = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            Request request = build(lazy);
+            // typical handler only reads a parameter and a header
+            request.getProperty("orderId");
+            request.getHeader("Content-Type");
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - started)
+                / iterations;
+    }
+
+    private Request build(boolean lazy) {
+        Map<String, Object> headers = lazy ? NettyWebRequestHandler
+                .getHeaders(httpRequest) : eagerHeaders(httpRequest);
+        Map<String, Object> params = lazy ? NettyWebRequestHandler
+                .getParams(httpRequest) : eagerParams(httpRequest);
+        return NettyRequest.builder().setEndpoint("/orders")
+                .setProtocol(Protocol.HTTP).setMethod(RequestMethod.GET)
+                .setProperties(params).setHeaders(headers)
+                .setRemoteAddress("/127.0.0.1:50000")
+                .setResponseDispatcher(dispatcher).build();
+    }
+
+    // headers and parameters were previously copied as follows
+    private static Map<String, Object> eagerParams(HttpRequest request) {
+        Map<String, Object> params = new HashMap<>();
+        QueryStringDecoder decoder = new QueryStringDecoder(request.getUri());
+        for (Map.Entry<String, List<String>> e : decoder.parameters()
+                .entrySet()) {
+            params.put(e.getKey(), e.getValue().get(0));
+        }
+        return params;
+    }
+
+    private static Map<String, Object> eagerHeaders(HttpRequest request) {
+        Map<String, Object> result = new HashMap<>();
+        String cookieString = request.headers().get(COOKIE);
+        if (cookieString != null) {
+            for (Cookie cookie : CookieDecoder.decode(cookieString)) {
+                result.put(cookie.getName(), cookie.getValue());
+            }
+        }
+        for (String name : request.headers().names()) {
+            result.put(name, request.headers().get(name));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertTrue;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.ws.performance.Account;
+import com.plexobject.handler.ws.performance.Order;
+import com.plexobject.handler.ws.performance.PriceType;
+import com.plexobject.handler.ws.performance.Security;
+import com.plexobject.handler.ws.performance.SecurityType;
+
+/**
+ * This class compares CPU time and bytes per response of a JSON response
+ * without compression, with gzip compression and with cached gzip compression
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class ResponseCompressionPerformanceTest {
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 1000;
+    private final byte[] payload;
+
+    public ResponseCompressionPerformanceTest() throws Exception {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            orders.add(new Order(new Security(i, "AAPL", "Apple",
+                    SecurityType.STOCK), new Account(1001 + i, "CX2001"),
+                    new BigDecimal("100"), new BigDecimal("10"),
+                    PriceType.MARKET));
+        }
+        payload = ObjectCodecFactory.getInstance()
+                .getObjectCodec(CodecType.JSON).encode(orders)
+                .getBytes("UTF-8");
+    }
+
+    @Test
+    public void testCompressionTradeoff() throws Exception {
+        long[] plain = run(null);
+        long[] gzip = run(new HttpCompressionHandler(1024, null));
+        long[] cached = run(new HttpCompressionHandler(1024,
+                new CompressedResponseCache(1024 * 1024)));
+        assertTrue(gzip[1] < plain[1]);
+        System.out.println("Response of " + payload.length
+                + " bytes: uncompressed " + plain[0] + " micros/"
+                + plain[1] + " bytes, gzip " + gzip[0] + " micros/"
+                + gzip[1] + " bytes, cached gzip " + cached[0]
+                + " micros/" + cached[1] + " bytes");
+    }
+
+    // returns CPU micros and bytes per response
+    private long[] run(HttpCompressionHandler handler) {
+        EmbeddedChannel channel = handler != null ? new EmbeddedChannel(
+                handler) : new EmbeddedChannel();
+        long bytes = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            bytes = send(channel);
+        }
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long started = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            send(channel);
+        }
+        long elapsed = threadMXBean.getCurrentThreadCpuTime() - started;
+        channel.finish();
+        return new long[] { elapsed / ITERATIONS / 1000, bytes };
+    }
+
+    private long send(EmbeddedChannel channel) {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, "/orders");
+        req.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip, deflate");
+        channel.writeInbound(req);
+        ((FullHttpRequest) channel.readInbound()).release();
+        FullHttpResponse res = new DefaultFullHttpResponse(
+                HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.wrappedBuffer(payload));
+        channel.writeOutbound(res);
+        res = (FullHttpResponse) channel.readOutbound();
+        long size = res.content().readableBytes();
+        res.release();
+        return size;
+    }
+}
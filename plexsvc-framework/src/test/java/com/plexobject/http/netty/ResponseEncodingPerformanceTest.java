@@ -0,0 +1,79 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.EncodablePayload;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.ws.performance.Account;
+import com.plexobject.handler.ws.performance.Order;
+import com.plexobject.handler.ws.performance.PriceType;
+import com.plexobject.handler.ws.performance.Security;
+import com.plexobject.handler.ws.performance.SecurityType;
+
+/**
+ * This class compares heap allocation per response between encoding into
+ * string before copying into unpooled buffer and encoding directly into pooled
+ * direct buffer
+ * 
+ * @author shahzad bhatti
+ *
+ */
+public class ResponseEncodingPerformanceTest {
+    private static final int WARMUP = 10000;
+    private static final int ITERATIONS = 100000;
+    private final ObjectCodec codec = ObjectCodecFactory.getInstance()
+            .getObjectCodec(CodecType.JSON);
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private final Order order = new Order(new Security(1, "AAPL", "Apple",
+            SecurityType.STOCK), new Account(1001, "CX2001"), new BigDecimal(
+            "100"), new BigDecimal("10"), PriceType.MARKET);
+
+    @Test
+    public void testAllocationPerResponse() throws Exception {
+        String expected = codec.encode(order);
+        ByteBuf buffer = NettyResponseDispatcher.toByteBuf(alloc,
+                new EncodablePayload(codec, order));
+        assertEquals(expected, buffer.toString(CharsetUtil.UTF_8));
+        buffer.release();
+        //
+        run(false, WARMUP);
+        long before = run(false, ITERATIONS);
+        run(true, WARMUP);
+        long after = run(true, ITERATIONS);
+        System.out.println("Allocated bytes per response: string and "
+                + "unpooled buffer " + before + ", pooled direct buffer "
+                + after + ", payload size " + expected.length());
+    }
+
+    private long run(boolean direct, int iterations) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long started = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            ByteBuf buffer = null;
+            if (direct) {
+                buffer = NettyResponseDispatcher.toByteBuf(alloc,
+                        new EncodablePayload(codec, order));
+            } else {
+                buffer = Unpooled.copiedBuffer(codec.encode(order),
+                        CharsetUtil.UTF_8);
+            }
+            buffer.release();
+        }
+        return (threadMXBean.getThreadAllocatedBytes(threadId) - started)
+                / iterations;
+    }
+}
@@ -0,0 +1,175 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.CharsetUtil;
+
+import org.junit.Test;
+
+public class SlowConsumerHandlerTest {
+    private static final String LARGE = "01234567890123456789012345678901";
+
+    @Test
+    public void testWritesPassThroughWhenWritable() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.DROP_OLDEST, 2);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.writeAndFlush(new TextWebSocketFrame("a"));
+        channel.writeAndFlush(new TextWebSocketFrame("b"));
+        assertEquals("a", read(channel));
+        assertEquals("b", read(channel));
+        assertEquals(0, handler.getDroppedMessages());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.DROP_OLDEST, 2);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        assertFalse(channel.isWritable());
+        channel.write(new TextWebSocketFrame("a"));
+        channel.write(new TextWebSocketFrame("b"));
+        channel.write(new TextWebSocketFrame("c"));
+        assertEquals(2, handler.getQueuedMessages());
+        assertEquals(2, handler.getQueuedBytes());
+        assertEquals(1, handler.getDroppedMessages());
+        assertEquals(LARGE.length() + 2,
+                SlowConsumerHandler.getBufferedBytes(channel));
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(LARGE, read(channel));
+        assertEquals("b", read(channel));
+        assertEquals("c", read(channel));
+        assertNull(channel.readOutbound());
+        assertEquals(0, handler.getQueuedMessages());
+        assertEquals(0, SlowConsumerHandler.getBufferedBytes(channel));
+    }
+
+    @Test
+    public void testConflate() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.CONFLATE, 10);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        channel.write(SlowConsumerHandler.newFrame(buffer("A1"), false, "A"));
+        channel.write(SlowConsumerHandler.newFrame(buffer("B1"), false, "B"));
+        channel.write(SlowConsumerHandler.newFrame(buffer("A2"), false, "A"));
+        assertEquals(2, handler.getQueuedMessages());
+        assertEquals(1, handler.getDroppedMessages());
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(LARGE, read(channel));
+        assertEquals("A2", read(channel));
+        assertEquals("B1", read(channel));
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testConflateKeepsFramesWithoutKeyInOrder() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.CONFLATE, 10);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        channel.write(SlowConsumerHandler.newFrame(buffer("x"), false, null));
+        channel.write(SlowConsumerHandler.newFrame(buffer("A1"), false, "A"));
+        channel.write(SlowConsumerHandler.newFrame(buffer("y"), false, null));
+        channel.write(SlowConsumerHandler.newFrame(buffer("A2"), false, "A"));
+        channel.write(SlowConsumerHandler.newFrame(buffer("z"), false, null));
+        assertEquals(4, handler.getQueuedMessages());
+        assertEquals(1, handler.getDroppedMessages());
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(LARGE, read(channel));
+        assertEquals("x", read(channel));
+        assertEquals("A2", read(channel));
+        assertEquals("y", read(channel));
+        assertEquals("z", read(channel));
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testConflateDropsOldestFrameWithoutKey() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.CONFLATE, 2);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        channel.write(SlowConsumerHandler.newFrame(buffer("x"), false, null));
+        channel.write(SlowConsumerHandler.newFrame(buffer("A1"), false, "A"));
+        channel.write(SlowConsumerHandler.newFrame(buffer("y"), false, null));
+        assertEquals(2, handler.getQueuedMessages());
+        assertEquals(1, handler.getDroppedMessages());
+        channel.flush();
+        channel.runPendingTasks();
+        assertEquals(LARGE, read(channel));
+        assertEquals("A1", read(channel));
+        assertEquals("y", read(channel));
+        assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.DISCONNECT, 10);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        channel.write(new TextWebSocketFrame("a"));
+        assertFalse(channel.isOpen());
+        assertEquals(1, handler.getDroppedMessages());
+    }
+
+    @Test
+    public void testOtherMessagesAreNotQueued() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.DROP_OLDEST, 1);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        channel.write(buffer("raw"));
+        assertEquals(0, handler.getQueuedMessages());
+        channel.flush();
+        assertEquals(LARGE, read(channel));
+        ByteBuf raw = (ByteBuf) channel.readOutbound();
+        assertEquals("raw", raw.toString(CharsetUtil.UTF_8));
+        raw.release();
+    }
+
+    @Test
+    public void testQueuedMessagesReleasedOnClose() throws Exception {
+        SlowConsumerHandler handler = new SlowConsumerHandler(
+                SlowConsumerPolicy.DROP_OLDEST, 10);
+        EmbeddedChannel channel = newChannel(handler);
+        channel.write(new TextWebSocketFrame(LARGE));
+        TextWebSocketFrame queued = new TextWebSocketFrame("a");
+        channel.write(queued);
+        assertTrue(queued.refCnt() > 0);
+        channel.close();
+        assertEquals(0, queued.refCnt());
+        assertEquals(0, handler.getQueuedMessages());
+    }
+
+    private static EmbeddedChannel newChannel(SlowConsumerHandler handler) {
+        EmbeddedChannel channel = new EmbeddedChannel(handler);
+        channel.config().setWriteBufferLowWaterMark(8);
+        channel.config().setWriteBufferHighWaterMark(16);
+        return channel;
+    }
+
+    private static ByteBuf buffer(String text) {
+        return Unpooled.copiedBuffer(text, CharsetUtil.UTF_8);
+    }
+
+    private static String read(EmbeddedChannel channel) {
+        TextWebSocketFrame frame = (TextWebSocketFrame) channel.readOutbound();
+        try {
+            return frame.text();
+        } finally {
+            frame.release();
+        }
+    }
+}
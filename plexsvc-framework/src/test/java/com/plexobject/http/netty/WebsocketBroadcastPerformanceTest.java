@@ -0,0 +1,80 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertTrue;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Response;
+
+/**
+ * This class compares pushing a message to many websocket subscribers by
+ * sending response to each subscriber, which encodes the message for every
+ * subscriber, with broadcasting a message that is encoded once
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketBroadcastPerformanceTest {
+    private static final int SUBSCRIBERS = 10000;
+    private static final int WARMUP = 5;
+    private static final int MESSAGES = 20;
+    private final List<EmbeddedChannel> channels = new ArrayList<>();
+    private final WebsocketBroadcaster broadcaster = new WebsocketBroadcaster(
+            "performance");
+    private final Map<String, Object> quote = new HashMap<>();
+
+    public WebsocketBroadcastPerformanceTest() {
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            channels.add(channel);
+            broadcaster.add(channel);
+        }
+        quote.put("symbol", "AAPL");
+        quote.put("bid", 112.25);
+        quote.put("ask", 112.27);
+        quote.put("volume", 23400000);
+        quote.put("timestamp", System.currentTimeMillis());
+    }
+
+    @Test
+    public void testBroadcast() throws Exception {
+        run(false, WARMUP);
+        long individual = run(false, MESSAGES);
+        run(true, WARMUP);
+        long broadcast = run(true, MESSAGES);
+        System.out.println("Pushing a message to " + SUBSCRIBERS
+                + " subscribers: individual sends " + individual
+                + " micros, broadcast " + broadcast + " micros");
+        assertTrue(broadcast < individual);
+    }
+
+    private long run(boolean broadcast, int messages) {
+        long started = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            if (broadcast) {
+                broadcaster.broadcast(quote, CodecType.JSON);
+            } else {
+                for (EmbeddedChannel channel : channels) {
+                    new NettyWebsocketResponseDispatcher(channel)
+                            .send(new Response(null,
+                                    new HashMap<String, Object>(),
+                                    new HashMap<String, Object>(), quote,
+                                    CodecType.JSON));
+                }
+            }
+            for (EmbeddedChannel channel : channels) {
+                channel.runPendingTasks();
+                ReferenceCountUtil.release(channel.readOutbound());
+            }
+        }
+        return (System.nanoTime() - started) / 1000 / messages;
+    }
+}
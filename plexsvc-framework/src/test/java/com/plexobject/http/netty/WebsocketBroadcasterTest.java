@@ -0,0 +1,114 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.ObjectCodecFactory;
+import com.plexobject.handler.AbstractResponseDispatcher;
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+
+public class WebsocketBroadcasterTest {
+    @Test
+    public void testBroadcastEncodesOnce() throws Exception {
+        WebsocketBroadcaster broadcaster = new WebsocketBroadcaster("quotes");
+        List<EmbeddedChannel> channels = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            EmbeddedChannel channel = new EmbeddedChannel();
+            channels.add(channel);
+            assertTrue(broadcaster.add(channel));
+        }
+        assertEquals(3, broadcaster.size());
+        assertEquals(3, broadcaster.broadcast("AAPL", CodecType.JSON));
+        ByteBuf last = null;
+        int remaining = channels.size();
+        for (EmbeddedChannel channel : channels) {
+            channel.runPendingTasks();
+            TextWebSocketFrame frame = (TextWebSocketFrame) channel
+                    .readOutbound();
+            // all frames share reference count of same encoded buffer
+            assertEquals(remaining--, frame.refCnt());
+            last = frame.content();
+            Map<String, Object> response = ObjectCodecFactory.getInstance()
+                    .getObjectCodec(CodecType.JSON)
+                    .decode(frame.text(), Map.class, null);
+            assertEquals("AAPL", response.get("contents"));
+            frame.release();
+        }
+        assertEquals(0, last.refCnt());
+    }
+
+    @Test
+    public void testBroadcastBinary() throws Exception {
+        ChannelGroup group = new DefaultChannelGroup("binary",
+                GlobalEventExecutor.INSTANCE);
+        EmbeddedChannel channel = new EmbeddedChannel();
+        group.add(channel);
+        ByteBuf buffer = Unpooled.copiedBuffer("data", CharsetUtil.UTF_8);
+        assertEquals(1, WebsocketBroadcaster.broadcast(group, buffer, true));
+        assertEquals(1, buffer.refCnt());
+        channel.runPendingTasks();
+        BinaryWebSocketFrame frame = (BinaryWebSocketFrame) channel
+                .readOutbound();
+        assertEquals("data", frame.content().toString(CharsetUtil.UTF_8));
+        frame.release();
+        assertEquals(0, buffer.refCnt());
+    }
+
+    @Test
+    public void testClosedChannelsAreRemoved() throws Exception {
+        WebsocketBroadcaster broadcaster = new WebsocketBroadcaster("closed");
+        EmbeddedChannel open = new EmbeddedChannel();
+        EmbeddedChannel closed = new EmbeddedChannel();
+        broadcaster.add(open);
+        broadcaster.add(closed);
+        closed.close();
+        assertEquals(1, broadcaster.size());
+        assertEquals(1, broadcaster.broadcast("x", CodecType.JSON));
+        closed.runPendingTasks();
+        assertNull(closed.readOutbound());
+        open.runPendingTasks();
+        ((TextWebSocketFrame) open.readOutbound()).release();
+    }
+
+    @Test
+    public void testAddRequest() throws Exception {
+        WebsocketBroadcaster broadcaster = new WebsocketBroadcaster("requests");
+        EmbeddedChannel channel = new EmbeddedChannel();
+        Request websocketRequest = NettyRequest.builder()
+                .setProtocol(Protocol.WEBSOCKET)
+                .setMethod(RequestMethod.MESSAGE)
+                .setResponseDispatcher(
+                        new NettyWebsocketResponseDispatcher(channel)).build();
+        Request httpRequest = NettyRequest.builder()
+                .setProtocol(Protocol.HTTP).setMethod(RequestMethod.GET)
+                .setResponseDispatcher(new AbstractResponseDispatcher() {
+                }).build();
+        assertTrue(broadcaster.add(websocketRequest));
+        assertFalse(broadcaster.add(httpRequest));
+        assertEquals(1, broadcaster.size());
+        assertTrue(broadcaster.remove(websocketRequest));
+        assertEquals(0, broadcaster.size());
+        assertEquals(0, broadcaster.broadcast("x", CodecType.JSON));
+    }
+}
@@ -0,0 +1,103 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertTrue;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.encode.ObjectCodec;
+import com.plexobject.encode.ObjectCodecFactory;
+
+/**
+ * This class compares CPU time and bytes per message of streamed quotes
+ * similar to QuoteServer sample without compression and with permessage-deflate
+ * with and without context takeover
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class WebsocketCompressionPerformanceTest {
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 20000;
+    private static final String[] SYMBOLS = { "AAPL", "MSFT", "GOOG", "AMZN",
+            "ORCL", "INTC", "CSCO", "IBM" };
+    private final String[] messages = new String[1000];
+
+    public WebsocketCompressionPerformanceTest() throws Exception {
+        ObjectCodec codec = ObjectCodecFactory.getInstance().getObjectCodec(
+                CodecType.JSON);
+        Random random = new Random(1);
+        for (int i = 0; i < messages.length; i++) {
+            String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+            Map<String, Object> quote = new LinkedHashMap<>();
+            quote.put("timestamp", 1460000000000L + i * 100);
+            quote.put("company", symbol + " Inc");
+            quote.put("symbol", symbol);
+            quote.put("quote", "Regular Market");
+            quote.put("last", 100 + random.nextInt(10000) / 100f);
+            quote.put("open", 100 + random.nextInt(10000) / 100f);
+            quote.put("close", 100 + random.nextInt(10000) / 100f);
+            Map<String, Object> message = new HashMap<>();
+            message.put("endpoint", "/quotes");
+            message.put("payload", quote);
+            messages[i] = codec.encode(message);
+        }
+    }
+
+    @Test
+    public void testCompressionTradeoff() throws Exception {
+        double[] plain = run(null);
+        double[] noContext = run(newHandler(true));
+        double[] context = run(newHandler(false));
+        assertTrue(noContext[1] < plain[1]);
+        assertTrue(context[1] < noContext[1]);
+        System.out.printf("Quote message: uncompressed %.2f micros/%.0f "
+                + "bytes, no context takeover %.2f micros/%.0f bytes, "
+                + "context takeover %.2f micros/%.0f bytes%n", plain[0],
+                plain[1], noContext[0], noContext[1], context[0], context[1]);
+    }
+
+    private static PerMessageDeflateHandler newHandler(
+            boolean noContextTakeover) {
+        return new PerMessageDeflateHandler(6, 64, 65536, noContextTakeover,
+                false, WebsocketCompression.PERMESSAGE_DEFLATE);
+    }
+
+    // returns CPU micros and bytes per message
+    private double[] run(PerMessageDeflateHandler handler) {
+        EmbeddedChannel channel = handler != null ? new EmbeddedChannel(
+                handler) : new EmbeddedChannel();
+        for (int i = 0; i < WARMUP; i++) {
+            send(channel, i);
+        }
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        long started = threadMXBean.getCurrentThreadCpuTime();
+        long bytes = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            bytes += send(channel, i);
+        }
+        long elapsed = threadMXBean.getCurrentThreadCpuTime() - started;
+        channel.finish();
+        return new double[] { elapsed / 1000.0 / ITERATIONS,
+                (double) bytes / ITERATIONS };
+    }
+
+    private long send(EmbeddedChannel channel, int i) {
+        channel.writeOutbound(new TextWebSocketFrame(messages[i
+                % messages.length]));
+        WebSocketFrame frame = (WebSocketFrame) channel.readOutbound();
+        long size = frame.content().readableBytes();
+        frame.release();
+        return size;
+    }
+}
@@ -0,0 +1,352 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.CharsetUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Test;
+
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.http.AccessLog;
+
+public class WebsocketCompressionTest {
+    private static final byte[] TAIL = new byte[] { 0, 0, (byte) 0xff,
+            (byte) 0xff };
+    private static final String QUOTE = "{\"symbol\":\"AAPL\",\"bid\":101.25,"
+            + "\"ask\":101.27,\"last\":101.26,\"volume\":1200300,"
+            + "\"timestamp\":1460000000000,\"exchange\":\"NASDAQ\","
+            + "\"high\":102.5,\"low\":100.75,\"open\":101.0}";
+
+    private final WebsocketCompression compression = new WebsocketCompression(
+            6, 64, 65536, false, false);
+
+    @Test
+    public void testNegotiateWithoutOffer() throws Exception {
+        assertNull(compression.negotiate(newHandshakeRequest(null)));
+        FullHttpRequest req = newHandshakeRequest("permessage-deflate");
+        req.headers().set(HttpHeaders.Names.SEC_WEBSOCKET_VERSION, "8");
+        assertNull(compression.negotiate(req));
+    }
+
+    @Test
+    public void testNegotiate() throws Exception {
+        assertEquals("permessage-deflate",
+                negotiate("permessage-deflate; client_max_window_bits"));
+        assertEquals(
+                "permessage-deflate; server_no_context_takeover; client_no_context_takeover",
+                negotiate("permessage-deflate; client_no_context_takeover; "
+                        + "server_no_context_takeover"));
+        assertEquals("permessage-deflate; server_max_window_bits=15",
+                negotiate("permessage-deflate; server_max_window_bits=\"15\""));
+        assertEquals("permessage-deflate; client_no_context_takeover",
+                new WebsocketCompression(6, 64, 65536, false, true)
+                        .negotiate(
+                                newHandshakeRequest("permessage-deflate"))
+                        .getExtensionHeader());
+    }
+
+    @Test
+    public void testNegotiateDeclinesUnsupportedOffers() throws Exception {
+        assertNull(negotiate("x-webkit-deflate-frame"));
+        assertNull(negotiate("permessage-deflate; server_max_window_bits=10"));
+        assertNull(negotiate("permessage-deflate; unknown"));
+        assertEquals("permessage-deflate",
+                negotiate("permessage-deflate; server_max_window_bits=10, "
+                        + "permessage-deflate"));
+    }
+
+    @Test
+    public void testHandshakeAddsExtension() throws Exception {
+        RequestHandler handler = new RequestHandler() {
+            @Override
+            public void handle(Request request) {
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new HttpObjectAggregator(65536), new NettyWebRequestHandler(
+                        handler, "/ws", false, CodecType.JSON, new AccessLog(0,
+                        AccessLog.Format.TEXT, 1),
+                        compression));
+        channel.writeInbound(Unpooled.copiedBuffer(
+                handshake("permessage-deflate"), CharsetUtil.UTF_8));
+        ByteBuf response = (ByteBuf) channel.readOutbound();
+        String text = response.toString(CharsetUtil.UTF_8);
+        response.release();
+        assertTrue(text, text.startsWith("HTTP/1.1 101"));
+        assertTrue(text,
+                text.contains("Sec-WebSocket-Extensions: permessage-deflate"));
+        assertNotNull(channel.pipeline().get(PerMessageDeflateHandler.class));
+        assertNotNull(channel.pipeline().get(
+                WebsocketExtensionFrameDecoder.class));
+        assertNotNull(WebsocketSession.get(channel));
+    }
+
+    @Test
+    public void testHandshakeWithoutCompression() throws Exception {
+        RequestHandler handler = new RequestHandler() {
+            @Override
+            public void handle(Request request) {
+            }
+        };
+        EmbeddedChannel channel = new EmbeddedChannel(new HttpServerCodec(),
+                new HttpObjectAggregator(65536), new NettyWebRequestHandler(
+                        handler, "/ws", false, CodecType.JSON, new AccessLog(0,
+                                AccessLog.Format.TEXT, 1), null));
+        channel.writeInbound(Unpooled.copiedBuffer(
+                handshake("permessage-deflate"), CharsetUtil.UTF_8));
+        ByteBuf response = (ByteBuf) channel.readOutbound();
+        String text = response.toString(CharsetUtil.UTF_8);
+        response.release();
+        assertFalse(text, text.contains("Sec-WebSocket-Extensions"));
+        assertNull(channel.pipeline().get(PerMessageDeflateHandler.class));
+    }
+
+    @Test
+    public void testSmallMessagesAreNotCompressed() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                negotiateHandler("permessage-deflate"));
+        channel.writeOutbound(new TextWebSocketFrame("small"));
+        TextWebSocketFrame frame = (TextWebSocketFrame) channel.readOutbound();
+        assertEquals(0, frame.rsv());
+        assertEquals("small", frame.text());
+        frame.release();
+    }
+
+    @Test
+    public void testCompressWithContextTakeover() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                negotiateHandler("permessage-deflate"));
+        Inflater inflater = new Inflater(true);
+        channel.writeOutbound(new TextWebSocketFrame(QUOTE));
+        WebSocketFrame first = (WebSocketFrame) channel.readOutbound();
+        assertEquals(PerMessageDeflateHandler.RSV1, first.rsv());
+        assertEquals(QUOTE, inflate(inflater, first));
+        channel.writeOutbound(new TextWebSocketFrame(QUOTE));
+        WebSocketFrame second = (WebSocketFrame) channel.readOutbound();
+        assertEquals(QUOTE, inflate(inflater, second));
+        // repeated message is sent as back-reference to the previous one
+        assertTrue(second.content().readableBytes() < first.content()
+                .readableBytes() / 2);
+        first.release();
+        second.release();
+        inflater.end();
+    }
+
+    @Test
+    public void testCompressWithoutContextTakeover() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                negotiateHandler("permessage-deflate; server_no_context_takeover"));
+        channel.writeOutbound(new BinaryWebSocketFrame(Unpooled.copiedBuffer(
+                QUOTE, CharsetUtil.UTF_8)));
+        channel.writeOutbound(new BinaryWebSocketFrame(Unpooled.copiedBuffer(
+                QUOTE, CharsetUtil.UTF_8)));
+        WebSocketFrame first = (WebSocketFrame) channel.readOutbound();
+        WebSocketFrame second = (WebSocketFrame) channel.readOutbound();
+        assertTrue(second instanceof BinaryWebSocketFrame);
+        assertEquals(first.content(), second.content());
+        assertEquals(QUOTE, inflate(new Inflater(true), second));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    public void testDecompressClientMessages() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(65536),
+                negotiateHandler("permessage-deflate"));
+        Deflater deflater = new Deflater(6, true);
+        for (int i = 0; i < 2; i++) {
+            channel.writeInbound(clientFrame(0x1,
+                    PerMessageDeflateHandler.RSV1, deflate(deflater, QUOTE)));
+            TextWebSocketFrame frame = (TextWebSocketFrame) channel
+                    .readInbound();
+            assertEquals(0, frame.rsv());
+            assertEquals(QUOTE, frame.text());
+            frame.release();
+        }
+        channel.writeInbound(clientFrame(0x1, 0,
+                "plain".getBytes(CharsetUtil.UTF_8)));
+        TextWebSocketFrame frame = (TextWebSocketFrame) channel.readInbound();
+        assertEquals("plain", frame.text());
+        frame.release();
+        deflater.end();
+    }
+
+    @Test
+    public void testInvalidCompressedDataClosesChannel() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(65536),
+                negotiateHandler("permessage-deflate"));
+        channel.writeInbound(clientFrame(0x1, PerMessageDeflateHandler.RSV1,
+                new byte[] { (byte) 0xff, (byte) 0xff, 1, 2 }));
+        assertNull(channel.readInbound());
+        assertClosed(channel, 1007);
+    }
+
+    @Test
+    public void testDecompressedSizeIsLimited() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(65536),
+                new WebsocketCompression(6, 64, 1024, false, false)
+                        .negotiate(newHandshakeRequest("permessage-deflate")));
+        char[] large = new char[4096];
+        Arrays.fill(large, 'a');
+        channel.writeInbound(clientFrame(0x1, PerMessageDeflateHandler.RSV1,
+                deflate(new Deflater(6, true), new String(large))));
+        assertNull(channel.readInbound());
+        assertClosed(channel, 1009);
+    }
+
+    @Test
+    public void testDecoderRejectsUnmaskedFrames() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(65536));
+        channel.writeInbound(Unpooled.wrappedBuffer(new byte[] {
+                (byte) 0x81, 1, 'a' }));
+        assertNull(channel.readInbound());
+        assertClosed(channel, 1002);
+    }
+
+    @Test
+    public void testDecoderRejectsLargeFrames() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(100));
+        channel.writeInbound(clientFrame(0x2, 0, new byte[200]));
+        assertNull(channel.readInbound());
+        assertClosed(channel, 1009);
+    }
+
+    @Test
+    public void testDecoderFragments() throws Exception {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new WebsocketExtensionFrameDecoder(65536));
+        ByteBuf first = clientFrame(0x1, 0, "hel".getBytes(CharsetUtil.UTF_8));
+        first.setByte(0, first.getByte(0) & 0x7f);
+        ByteBuf second = clientFrame(0x0, 0, "lo".getBytes(CharsetUtil.UTF_8));
+        // frames can be split across reads
+        ByteBuf both = Unpooled.wrappedBuffer(first, second);
+        channel.writeInbound(both.readSlice(3).retain());
+        assertNull(channel.readInbound());
+        channel.writeInbound(both);
+        WebSocketFrame frame = (WebSocketFrame) channel.readInbound();
+        assertFalse(frame.isFinalFragment());
+        assertEquals("hel", frame.content().toString(CharsetUtil.UTF_8));
+        frame.release();
+        frame = (WebSocketFrame) channel.readInbound();
+        assertTrue(frame.isFinalFragment());
+        assertEquals("lo", frame.content().toString(CharsetUtil.UTF_8));
+        frame.release();
+    }
+
+    private String negotiate(String offer) {
+        PerMessageDeflateHandler handler = negotiateHandler(offer);
+        return handler != null ? handler.getExtensionHeader() : null;
+    }
+
+    private PerMessageDeflateHandler negotiateHandler(String offer) {
+        return compression.negotiate(newHandshakeRequest(offer));
+    }
+
+    private static void assertClosed(EmbeddedChannel channel, int status) {
+        CloseWebSocketFrame close = (CloseWebSocketFrame) channel
+                .readOutbound();
+        assertEquals(status, close.statusCode());
+        close.release();
+        assertFalse(channel.isOpen());
+    }
+
+    private static String handshake(String extensions) {
+        return "GET /ws HTTP/1.1\r\nHost: localhost\r\n"
+                + "Upgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "Sec-WebSocket-Extensions: " + extensions + "\r\n\r\n";
+    }
+
+    static FullHttpRequest newHandshakeRequest(String extensions) {
+        FullHttpRequest req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+                HttpMethod.GET, "/ws");
+        req.headers().set(HttpHeaders.Names.HOST, "localhost");
+        req.headers().set(HttpHeaders.Names.UPGRADE, "websocket");
+        req.headers().set(HttpHeaders.Names.CONNECTION, "Upgrade");
+        req.headers().set(HttpHeaders.Names.SEC_WEBSOCKET_KEY,
+                "dGhlIHNhbXBsZSBub25jZQ==");
+        req.headers().set(HttpHeaders.Names.SEC_WEBSOCKET_VERSION, "13");
+        if (extensions != null) {
+            req.headers().set(WebsocketCompression.SEC_WEBSOCKET_EXTENSIONS,
+                    extensions);
+        }
+        return req;
+    }
+
+    static byte[] deflate(Deflater deflater, String text) {
+        deflater.setInput(text.getBytes(CharsetUtil.UTF_8));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = deflater.deflate(buffer, 0, buffer.length,
+                Deflater.SYNC_FLUSH)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        byte[] bytes = out.toByteArray();
+        return Arrays.copyOf(bytes, bytes.length - TAIL.length);
+    }
+
+    static String inflate(Inflater inflater, WebSocketFrame frame)
+            throws Exception {
+        ByteBuf content = frame.content();
+        byte[] input = new byte[content.readableBytes() + TAIL.length];
+        content.getBytes(content.readerIndex(), input, 0,
+                content.readableBytes());
+        System.arraycopy(TAIL, 0, input, content.readableBytes(), TAIL.length);
+        inflater.setInput(input);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = inflater.inflate(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), CharsetUtil.UTF_8);
+    }
+
+    static ByteBuf clientFrame(int opcode, int rsv, byte[] payload) {
+        ByteBuf frame = Unpooled.buffer(payload.length + 14);
+        frame.writeByte(0x80 | (rsv << 4) | opcode);
+        if (payload.length < 126) {
+            frame.writeByte(0x80 | payload.length);
+        } else {
+            frame.writeByte(0x80 | 126);
+            frame.writeShort(payload.length);
+        }
+        byte[] mask = new byte[] { 1, 2, 3, 4 };
+        frame.writeBytes(mask);
+        for (int i = 0; i < payload.length; i++) {
+            frame.writeByte(payload[i] ^ mask[i % 4]);
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,64 @@
+package com.plexobject.http.netty;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.Test;
+
+import com.plexobject.handler.AbstractResponseDispatcher;
+import com.plexobject.handler.NettyRequest;
+import com.plexobject.handler.Request;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+
+public class WebsocketSessionTest {
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+
+    @Test
+    public void testGetWithoutHandshake() throws Exception {
+        assertNull(WebsocketSession.get(channel));
+        Request request = NettyRequest.builder().setProtocol(Protocol.HTTP)
+                .setMethod(RequestMethod.GET)
+                .setResponseDispatcher(new AbstractResponseDispatcher() {
+                }).build();
+        assertNull(WebsocketSession.get(request));
+    }
+
+    @Test
+    public void testGetByRequest() throws Exception {
+        WebsocketSession session = new WebsocketSession(channel, null);
+        channel.attr(WebsocketSession.SESSION).set(session);
+        Request request = NettyRequest.builder()
+                .setProtocol(Protocol.WEBSOCKET)
+                .setMethod(RequestMethod.MESSAGE)
+                .setResponseDispatcher(
+                        new NettyWebsocketResponseDispatcher(channel)).build();
+        assertSame(session, WebsocketSession.get(request));
+        assertSame(channel, session.getChannel());
+    }
+
+    @Test
+    public void testSubscriptions() throws Exception {
+        WebsocketSession session = new WebsocketSession(channel, null);
+        assertTrue(session.subscribe("AAPL"));
+        assertFalse(session.subscribe("AAPL"));
+        assertTrue(session.subscribe("MSFT"));
+        assertTrue(session.isSubscribed("AAPL"));
+        assertEquals(2, session.getSubscriptions().size());
+        assertTrue(session.unsubscribe("AAPL"));
+        assertFalse(session.isSubscribed("AAPL"));
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        WebsocketSession session = new WebsocketSession(channel, null);
+        session.setAttribute("user", "alice");
+        assertEquals("alice", session.getAttribute("user"));
+        session.setAttribute("user", null);
+        assertNull(session.getAttribute("user"));
+    }
+}
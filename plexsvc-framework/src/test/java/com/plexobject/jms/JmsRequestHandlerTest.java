@@ -0,0 +1,177 @@
+package com.plexobject.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.jms.impl.DefaultJMSContainer;
+import com.plexobject.service.Protocol;
+import com.plexobject.service.RequestMethod;
+import com.plexobject.service.ServiceConfig;
+import com.plexobject.service.ServiceRegistry;
+import com.plexobject.validation.ValidationException;
+
+public class JmsRequestHandlerTest {
+    private static final int MESSAGES = 50;
+    private final Properties properties = new Properties();
+    private BrokerService broker;
+    private DefaultJMSContainer client;
+    private ServiceRegistry registry;
+
+    private static class CountingService {
+        final Set<String> payloads = Collections
+                .synchronizedSet(new HashSet<String>());
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicBoolean failOnce = new AtomicBoolean(true);
+        final CountDownLatch latch = new CountDownLatch(MESSAGES);
+
+        void handle(Request request, RuntimeException error) {
+            String payload = request.getContentsAs();
+            received.incrementAndGet();
+            if (payload.equals("msg" + (MESSAGES / 2))
+                    && failOnce.compareAndSet(true, false)) {
+                throw error;
+            }
+            if (payloads.add(payload)) {
+                latch.countDown();
+            }
+        }
+    }
+
+    @ServiceConfig(protocol = Protocol.JMS, endpoint = "queue://batch-service-fail", method = RequestMethod.MESSAGE, codec = CodecType.TEXT)
+    public class FailingService extends CountingService implements
+            RequestHandler {
+        @Override
+        public void handle(Request request) {
+            handle(request, new IllegalStateException("failing"));
+        }
+    }
+
+    @ServiceConfig(protocol = Protocol.JMS, endpoint = "queue://batch-service-invalid", method = RequestMethod.MESSAGE, codec = CodecType.TEXT)
+    public class InvalidService extends CountingService implements
+            RequestHandler {
+        @Override
+        public void handle(Request request) {
+            handle(request, new ValidationException("invalid payload"));
+        }
+    }
+
+    @ServiceConfig(protocol = Protocol.JMS, endpoint = "queue://batch-service-reply", method = RequestMethod.MESSAGE, codec = CodecType.TEXT)
+    public class ReplyingService extends CountingService implements
+            RequestHandler {
+        @Override
+        public void handle(Request request) {
+            handle(request, new IllegalStateException("failing"));
+            request.getResponse().setContents(request.getContentsAs());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+        properties.put(Constants.JMS_RECEIVE_BATCH_SIZE, "10");
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+        registry = new ServiceRegistry(new Configuration(properties));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.stop();
+        client.stop();
+        broker.stop();
+    }
+
+    @Test
+    public void testBatchIsRolledBackWhenServiceFails() throws Exception {
+        FailingService service = new FailingService();
+        send("queue://batch-service-fail", service);
+        assertTrue(service.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(MESSAGES, service.payloads.size());
+        assertTrue(service.received.get() > MESSAGES);
+    }
+
+    @Test
+    public void testBatchIsCommittedWhenRequestIsInvalid() throws Exception {
+        InvalidService service = new InvalidService();
+        send("queue://batch-service-invalid", service);
+        assertFalse(service.latch.await(2, TimeUnit.SECONDS));
+        assertEquals(MESSAGES - 1, service.payloads.size());
+        assertEquals(MESSAGES, service.received.get());
+    }
+
+    @Test
+    public void testRepliesOfRolledBackBatchAreDiscarded() throws Exception {
+        final List<String> replies = Collections
+                .synchronizedList(new ArrayList<String>());
+        final CountDownLatch repliesLatch = new CountDownLatch(MESSAGES);
+        Destination replyTo = client
+                .getDestination("queue://batch-service-replies");
+        client.setMessageListener(replyTo, new MessageListener() {
+            @Override
+            public void onMessage(Message message) {
+                try {
+                    replies.add(((TextMessage) message).getText());
+                    repliesLatch.countDown();
+                } catch (JMSException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, new MessageListenerConfig(1, false, Session.AUTO_ACKNOWLEDGE, 0));
+        Destination dest = client.getDestination("queue://batch-service-reply");
+        for (int i = 0; i < MESSAGES; i++) {
+            Message m = client.createTextMessage("msg" + i);
+            m.setJMSReplyTo(replyTo);
+            client.createProducer(dest).send(m);
+        }
+        ReplyingService service = new ReplyingService();
+        registry.addRequestHandler(service);
+        registry.start();
+        assertTrue(service.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(repliesLatch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        assertTrue(service.received.get() > MESSAGES);
+        // replies of the rolled back batch, including the error, are not sent
+        assertEquals(MESSAGES, replies.size());
+        assertEquals(MESSAGES, new HashSet<String>(replies).size());
+    }
+
+    private void send(String destName, RequestHandler service)
+            throws Exception {
+        Destination dest = client.getDestination(destName);
+        for (int i = 0; i < MESSAGES; i++) {
+            client.send(dest, new HashMap<String, Object>(), "msg" + i);
+        }
+        registry.addRequestHandler(service);
+        registry.start();
+    }
+}
@@ -45,8 +45,10 @@ public class DefaultJMSContainerTest {
             messages.add(message);
             try {
                 if (message.getJMSReplyTo() != null) {
-                    client.send(message.getJMSReplyTo(),
-                            new HashMap<String, Object>(),
+                    Map<String, Object> headers = new HashMap<>();
+                    headers.put(JMSUtils.JMS_CORRELATION_ID,
+                            message.getJMSCorrelationID());
+                    client.send(message.getJMSReplyTo(), headers,
                             ((TextMessage) message).getText());
                 }
             } catch (JMSException e) {
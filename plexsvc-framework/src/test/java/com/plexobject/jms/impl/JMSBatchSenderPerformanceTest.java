@@ -0,0 +1,84 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.jms.JMSTestUtils;
+
+/**
+ * This class measures time to deliver persistent messages when each message
+ * is sent on its own and when messages are committed in batches
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class JMSBatchSenderPerformanceTest {
+    private static final int MESSAGES = 2000;
+    private static final Properties properties = new Properties();
+    private static BrokerService broker;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        broker.stop();
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        long unbatched = run(0);
+        long batched = run(100);
+        System.out.println("Sending " + MESSAGES
+                + " persistent JMS messages: one at a time " + unbatched
+                + " ms, batches of 100 " + batched + " ms");
+    }
+
+    private static long run(int batchSize) throws Exception {
+        // each run uses its own queue as stopped containers keep consumers
+        String destName = "perf-batch-" + batchSize;
+        Properties props = new Properties();
+        props.putAll(properties);
+        props.put(Constants.JMS_BATCH_SIZE, String.valueOf(batchSize));
+        props.put("jms." + destName + ".persistent", "true");
+        DefaultJMSContainer client = new DefaultJMSContainer(
+                new Configuration(props));
+        final CountDownLatch latch = new CountDownLatch(MESSAGES);
+        client.createConsumer("queue://" + destName).setMessageListener(
+                new MessageListener() {
+                    @Override
+                    public void onMessage(Message message) {
+                        latch.countDown();
+                    }
+                });
+        client.start();
+        try {
+            Destination dest = client.getDestination("queue://" + destName);
+            long started = System.currentTimeMillis();
+            for (int i = 0; i < MESSAGES; i++) {
+                client.send(dest, new HashMap<String, Object>(), "msg" + i);
+            }
+            assertTrue(latch.await(60, TimeUnit.SECONDS));
+            return System.currentTimeMillis() - started;
+        } finally {
+            client.stop();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.jms.JMSTestUtils;
+
+public class JMSBatchSenderTest {
+    private final Properties properties = new Properties();
+    private BrokerService broker;
+    private DefaultJMSContainer client;
+
+    private static class CollectingListener implements MessageListener {
+        private final Set<String> payloads = Collections
+                .synchronizedSet(new HashSet<String>());
+        private final CountDownLatch latch;
+
+        private CollectingListener(int count) {
+            this.latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            try {
+                payloads.add(((TextMessage) message).getText());
+                latch.countDown();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        broker.stop();
+    }
+
+    @Test
+    public void testBatchingDisabledByDefault() throws Exception {
+        client = new DefaultJMSContainer(new Configuration(properties));
+        assertNull(client.getBatchSender());
+    }
+
+    @Test
+    public void testMessagesAreCommittedInBatches() throws Exception {
+        properties.put(Constants.JMS_BATCH_SIZE, "50");
+        properties.put(Constants.JMS_BATCH_DELAY_MICROS, "5000");
+        CollectingListener listener = startClient("queue://batched", 500);
+        Destination dest = client.getDestination("queue://batched");
+        for (int i = 0; i < 500; i++) {
+            client.send(dest, new HashMap<String, Object>(), "msg" + i);
+        }
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(500, listener.payloads.size());
+        JMSBatchSender sender = client.getBatchSender();
+        assertSame(sender, client.getBatchSender());
+        assertEquals(500, sender.getSentCount());
+        assertEquals(0, sender.getFailedCount());
+        assertTrue(sender.toString(), sender.getCommitCount() >= 10);
+        assertTrue(sender.toString(), sender.getCommitCount() < 500);
+    }
+
+    @Test
+    public void testPartialBatchIsSentAfterDelay() throws Exception {
+        properties.put(Constants.JMS_BATCH_SIZE, "100");
+        properties.put(Constants.JMS_BATCH_DELAY_MICROS, "1000");
+        CollectingListener listener = startClient("queue://partial", 3);
+        Destination dest = client.getDestination("queue://partial");
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("name", "value");
+        for (int i = 0; i < 3; i++) {
+            client.send(dest, headers, "msg" + i);
+        }
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, client.getBatchSender().getSentCount());
+    }
+
+    @Test
+    public void testStopSendsQueuedMessages() throws Exception {
+        properties.put(Constants.JMS_BATCH_SIZE, "1000");
+        properties.put(Constants.JMS_BATCH_DELAY_MICROS, "2000000");
+        DefaultJMSContainer consumer = new DefaultJMSContainer(
+                new Configuration(properties));
+        CollectingListener listener = new CollectingListener(10);
+        consumer.createConsumer("queue://flushed")
+                .setMessageListener(listener);
+        consumer.start();
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+        Destination dest = client.getDestination("queue://flushed");
+        for (int i = 0; i < 10; i++) {
+            client.send(dest, new HashMap<String, Object>(), "msg" + i);
+        }
+        JMSBatchSender sender = client.getBatchSender();
+        assertNotNull(sender);
+        client.stop();
+        client = null;
+        assertEquals(10, sender.getSentCount());
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        consumer.stop();
+    }
+
+    @Test
+    public void testRolledBackBatchIsRetried() throws Exception {
+        FailingSession failing = new FailingSession(2);
+        JMSBatchSender sender = new JMSBatchSender(new Configuration(
+                properties), failing.connection(), 10, 1000);
+        Destination dest = client().getDestination("queue://retried");
+        for (int i = 0; i < 3; i++) {
+            sender.send(dest, client.createTextMessage("msg" + i));
+        }
+        sender.close();
+        assertEquals(3, sender.getSentCount());
+        assertEquals(0, sender.getFailedCount());
+        assertEquals(2, failing.rollbacks);
+        assertEquals(3, failing.commits);
+    }
+
+    @Test
+    public void testBatchFailsAfterRetries() throws Exception {
+        properties.put(Constants.JMS_BATCH_RETRIES, "1");
+        FailingSession failing = new FailingSession(Integer.MAX_VALUE);
+        JMSBatchSender sender = new JMSBatchSender(new Configuration(
+                properties), failing.connection(), 10, 1000);
+        sender.send(client().getDestination("queue://failed"),
+                client.createTextMessage("msg"));
+        sender.close();
+        assertEquals(0, sender.getSentCount());
+        assertEquals(1, sender.getFailedCount());
+        assertEquals(2, failing.rollbacks);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSendAfterCloseIsRejected() throws Exception {
+        properties.put(Constants.JMS_BATCH_SIZE, "10");
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+        JMSBatchSender sender = client.getBatchSender();
+        sender.close();
+        sender.send(client.getDestination("queue://closed"),
+                client.createTextMessage("msg"));
+    }
+
+    /**
+     * This class fakes a transacted session whose commit fails given number
+     * of times
+     */
+    private static class FailingSession implements InvocationHandler {
+        private final int failures;
+        private int commits;
+        private int rollbacks;
+
+        private FailingSession(int failures) {
+            this.failures = failures;
+        }
+
+        private Connection connection() {
+            return proxy(Connection.class, new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method method,
+                        Object[] args) {
+                    return method.getName().equals("createSession") ? proxy(
+                            Session.class, FailingSession.this) : null;
+                }
+            });
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method,
+                Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "createProducer":
+                return proxy(MessageProducer.class, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) {
+                        return null;
+                    }
+                });
+            case "commit":
+                if (++commits <= failures) {
+                    throw new JMSException("commit failed");
+                }
+                return null;
+            case "rollback":
+                rollbacks++;
+                return null;
+            default:
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(
+                    FailingSession.class.getClassLoader(),
+                    new Class<?>[] { type }, handler);
+        }
+    }
+
+    private DefaultJMSContainer client() throws Exception {
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+        return client;
+    }
+
+    private CollectingListener startClient(String destName, int count)
+            throws Exception {
+        client = new DefaultJMSContainer(new Configuration(properties));
+        CollectingListener listener = new CollectingListener(count);
+        client.createConsumer(destName).setMessageListener(listener);
+        client.start();
+        return listener;
+    }
+}
@@ -0,0 +1,94 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Destination;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.handler.Handler;
+import com.plexobject.handler.Response;
+import com.plexobject.jms.JMSTestUtils;
+
+/**
+ * This class measures synchronous request/reply round trips over embedded
+ * broker with shared reply queue against temporary queue per request
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class JMSReplyQueuePerformanceTest {
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 100;
+    private static final Handler<Response> NOOP = new Handler<Response>() {
+        @Override
+        public void handle(Response response) {
+        }
+    };
+    private BrokerService broker;
+    private final Properties properties = new Properties();
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        broker.stop();
+    }
+
+    @Test
+    public void testRoundTrips() throws Exception {
+        long shared = run(true);
+        long temporary = run(false);
+        System.out.println("JMS request/reply round trip: shared reply queue "
+                + shared + " micros, temporary queue per request "
+                + temporary + " micros");
+    }
+
+    // returns micros per round trip
+    private long run(boolean sharedReplyQueue) throws Exception {
+        properties.put(Constants.JMS_SHARED_REPLY_QUEUE,
+                String.valueOf(sharedReplyQueue));
+        DefaultJMSContainer client = new DefaultJMSContainer(
+                new Configuration(properties));
+        // stopped containers keep their consumers so each run uses its own
+        // queue
+        String queueName = "queue://perf-" + sharedReplyQueue;
+        try {
+            client.createConsumer(queueName).setMessageListener(
+                    new JMSReplyQueueTest.EchoListener(client, true));
+            client.start();
+            Destination destination = client.getDestination(queueName);
+            for (int i = 0; i < WARMUP; i++) {
+                roundTrip(client, destination);
+            }
+            long started = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                roundTrip(client, destination);
+            }
+            return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started)
+                    / ITERATIONS;
+        } finally {
+            client.stop();
+        }
+    }
+
+    private static void roundTrip(DefaultJMSContainer client,
+            Destination destination) throws Exception {
+        Response response = client.sendReceive(destination,
+                new HashMap<String, Object>(), "ping", NOOP).get(5,
+                TimeUnit.SECONDS);
+        assertEquals("ping", response.getContentsAs());
+    }
+}
@@ -0,0 +1,194 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.handler.Handler;
+import com.plexobject.handler.Response;
+import com.plexobject.jms.JMSTestUtils;
+
+public class JMSReplyQueueTest {
+    private final Properties properties = new Properties();
+    private BrokerService broker;
+    private DefaultJMSContainer client;
+
+    static class EchoListener implements MessageListener {
+        private final DefaultJMSContainer client;
+        private final boolean copyCorrelationId;
+
+        EchoListener(DefaultJMSContainer client, boolean copyCorrelationId) {
+            this.client = client;
+            this.copyCorrelationId = copyCorrelationId;
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            try {
+                Map<String, Object> headers = new HashMap<>();
+                if (copyCorrelationId) {
+                    headers.put(JMSUtils.JMS_CORRELATION_ID,
+                            message.getJMSCorrelationID());
+                }
+                client.send(message.getJMSReplyTo(), headers,
+                        ((TextMessage) message).getText());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final Handler<Response> NOOP = new Handler<Response>() {
+        @Override
+        public void handle(Response response) {
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.stop();
+        }
+        broker.stop();
+    }
+
+    @Test
+    public void testConcurrentRequestsShareReplyQueue() throws Exception {
+        startClient(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> replies = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final String payload = "ping" + i;
+            replies.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    Future<Response> future = client.sendReceive(
+                            client.getDestination("queue://echo"),
+                            new HashMap<String, Object>(), payload, NOOP);
+                    return future.get(5, TimeUnit.SECONDS).getContentsAs();
+                }
+            }));
+        }
+        for (int i = 0; i < replies.size(); i++) {
+            assertEquals("ping" + i, replies.get(i).get());
+        }
+        executor.shutdown();
+        assertEquals(0, client.getReplyQueue().getPendingCount());
+        assertSame(client.getReplyQueue(), client.getReplyQueue());
+    }
+
+    @Test
+    public void testReplyIsPassedToHandler() throws Exception {
+        startClient(true);
+        final StringBuilder payload = new StringBuilder();
+        Future<Response> future = client.sendReceive(
+                client.getDestination("queue://echo"),
+                new HashMap<String, Object>(), "hello", new Handler<Response>() {
+                    @Override
+                    public void handle(Response response) {
+                        payload.append((String) response.getContentsAs());
+                    }
+                });
+        future.get(5, TimeUnit.SECONDS);
+        assertEquals("hello", payload.toString());
+    }
+
+    @Test
+    public void testSweepExpiresPendingReplies() throws Exception {
+        startClient(true);
+        JMSReplyQueue replyQueue = client.getReplyQueue();
+        Future<Response> future = replyQueue.register(
+                client.createTextMessage("lost"), NOOP);
+        assertEquals(1, replyQueue.getPendingCount());
+        assertEquals(0, replyQueue.sweep(System.currentTimeMillis()));
+        assertEquals(1,
+                replyQueue.sweep(System.currentTimeMillis() + 3600000));
+        assertEquals(0, replyQueue.getPendingCount());
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("should have expired");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void testTimedoutRequestIsRemoved() throws Exception {
+        startClient(true);
+        JMSReplyQueue replyQueue = client.getReplyQueue();
+        Future<Response> future = replyQueue.register(
+                client.createTextMessage("lost"), NOOP);
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("should have timed out");
+        } catch (TimeoutException e) {
+        }
+        assertEquals(0, replyQueue.getPendingCount());
+    }
+
+    @Test
+    public void testUnknownReplyIsDropped() throws Exception {
+        startClient(true);
+        JMSReplyQueue replyQueue = client.getReplyQueue();
+        Future<Response> future = replyQueue.register(
+                client.createTextMessage("pending"), NOOP);
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(JMSUtils.JMS_CORRELATION_ID, "unknown");
+        client.send(replyQueue.getQueue(), headers, "stale");
+        Thread.sleep(200);
+        assertEquals(1, replyQueue.getPendingCount());
+        future.cancel(true);
+        assertEquals(0, replyQueue.getPendingCount());
+    }
+
+    @Test
+    public void testTemporaryQueuePerRequest() throws Exception {
+        // replies without correlation-id can only be received when each
+        // request has its own temporary queue
+        properties.put(Constants.JMS_SHARED_REPLY_QUEUE, "false");
+        startClient(false);
+        Future<Response> future = client.sendReceive(
+                client.getDestination("queue://echo"),
+                new HashMap<String, Object>(), "hello", NOOP);
+        assertEquals("hello", future.get(5, TimeUnit.SECONDS).getContentsAs());
+    }
+
+    private void startClient(boolean copyCorrelationId) throws JMSException,
+            Exception {
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.createConsumer("queue://echo").setMessageListener(
+                new EchoListener(client, copyCorrelationId));
+        client.start();
+    }
+}
@@ -0,0 +1,97 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.jms.JMSTestUtils;
+import com.plexobject.jms.MessageListenerConfig;
+
+/**
+ * This class measures time to consume persistent messages that are already
+ * queued when each message is acknowledged automatically and when messages
+ * are committed or acknowledged in batches
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class MessageReceiverThreadPerformanceTest {
+    private static final int MESSAGES = 2000;
+    private static final Properties properties = new Properties();
+    private static BrokerService broker;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        broker.stop();
+    }
+
+    @Test
+    public void testReceive() throws Exception {
+        run(0, false); // warm up
+        long single = run(1, false);
+        long committed10 = run(10, true);
+        long committed100 = run(100, true);
+        long acked10 = run(10, false);
+        long acked100 = run(100, false);
+        System.out.println("Receiving " + MESSAGES
+                + " persistent JMS messages: auto-ack " + single
+                + " ms, committed batches of 10 " + committed10
+                + " ms, of 100 " + committed100
+                + " ms, acknowledged batches of 10 " + acked10
+                + " ms, of 100 " + acked100 + " ms");
+    }
+
+    private static long run(int batchSize, boolean transacted)
+            throws Exception {
+        // each run uses its own queue as stopped containers keep consumers
+        String destName = "perf-receive-" + batchSize + "-" + transacted;
+        batchSize = Math.max(1, batchSize);
+        Properties props = new Properties();
+        props.putAll(properties);
+        props.put(Constants.JMS_BATCH_SIZE, "100");
+        props.put("jms." + destName + ".persistent", "true");
+        DefaultJMSContainer client = new DefaultJMSContainer(
+                new Configuration(props));
+        client.start();
+        try {
+            Destination dest = client.getDestination("queue://" + destName);
+            for (int i = 0; i < MESSAGES; i++) {
+                client.send(dest, new HashMap<String, Object>(), "msg" + i);
+            }
+            client.getBatchSender().close();
+            final CountDownLatch latch = new CountDownLatch(MESSAGES);
+            long started = System.currentTimeMillis();
+            client.setMessageListener(dest, new MessageListener() {
+                @Override
+                public void onMessage(Message message) {
+                    latch.countDown();
+                }
+            }, new MessageListenerConfig(1, transacted,
+                    Session.AUTO_ACKNOWLEDGE, 0, batchSize, false));
+            assertTrue(latch.await(60, TimeUnit.SECONDS));
+            return System.currentTimeMillis() - started;
+        } finally {
+            client.stop();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.jms.JMSTestUtils;
+import com.plexobject.jms.MessageListenerConfig;
+
+public class MessageReceiverThreadTest {
+    private static final int MESSAGES = 200;
+    private final Properties properties = new Properties();
+    private BrokerService broker;
+    private DefaultJMSContainer client;
+
+    private static class CountingListener implements MessageListener {
+        private final Set<String> payloads = Collections
+                .synchronizedSet(new HashSet<String>());
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicInteger redelivered = new AtomicInteger();
+        private final AtomicBoolean failOnce;
+        private final CountDownLatch latch = new CountDownLatch(MESSAGES);
+
+        private CountingListener(boolean failOnce) {
+            this.failOnce = new AtomicBoolean(failOnce);
+        }
+
+        @Override
+        public void onMessage(Message message) {
+            try {
+                String payload = ((TextMessage) message).getText();
+                received.incrementAndGet();
+                if (message.getJMSRedelivered()) {
+                    redelivered.incrementAndGet();
+                }
+                if (payload.equals("msg" + (MESSAGES / 2))
+                        && failOnce.compareAndSet(true, false)) {
+                    throw new IllegalStateException("failing " + payload);
+                }
+                if (payloads.add(payload)) {
+                    latch.countDown();
+                }
+            } catch (javax.jms.JMSException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        broker.stop();
+    }
+
+    @Test
+    public void testTransactedBatches() throws Exception {
+        CountingListener listener = receive("queue://batch-tx",
+                new MessageListenerConfig(2, true, Session.AUTO_ACKNOWLEDGE,
+                        0, 20, false));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(MESSAGES, listener.received.get());
+        assertEquals(0, listener.redelivered.get());
+    }
+
+    @Test
+    public void testAcknowledgedParallelBatches() throws Exception {
+        CountingListener listener = receive("queue://batch-ack",
+                new MessageListenerConfig(1, false, Session.AUTO_ACKNOWLEDGE,
+                        0, 20, true));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(MESSAGES, listener.received.get());
+    }
+
+    @Test
+    public void testFailedBatchIsRedelivered() throws Exception {
+        CountingListener listener = receive("queue://batch-fail",
+                new MessageListenerConfig(1, true, Session.AUTO_ACKNOWLEDGE,
+                        0, 20, false));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        assertEquals(MESSAGES, listener.payloads.size());
+        assertTrue(listener.redelivered.get() > 0);
+        assertEquals(MESSAGES + listener.redelivered.get(),
+                listener.received.get());
+    }
+
+    @Test
+    public void testParallelBatchesShareBoundedExecutor() throws Exception {
+        Properties props = new Properties();
+        props.putAll(properties);
+        props.put(Constants.JMS_RECEIVE_BATCH_THREADS, "2");
+        DefaultJMSContainer container = new DefaultJMSContainer(
+                new Configuration(props));
+        container.start();
+        try {
+            Destination dest = client.getDestination("queue://batch-threads");
+            for (int i = 0; i < MESSAGES; i++) {
+                client.send(dest, new HashMap<String, Object>(), "msg" + i);
+            }
+            final Set<Thread> threads = Collections
+                    .synchronizedSet(new HashSet<Thread>());
+            final CountDownLatch latch = new CountDownLatch(MESSAGES);
+            container.setMessageListener(dest, new MessageListener() {
+                @Override
+                public void onMessage(Message message) {
+                    // batches of one message are processed by the receiver
+                    if (!Thread.currentThread().getName()
+                            .startsWith("queue://")) {
+                        threads.add(Thread.currentThread());
+                    }
+                    latch.countDown();
+                }
+            }, new MessageListenerConfig(3, true, Session.AUTO_ACKNOWLEDGE,
+                    0, 20, true));
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertTrue(threads.toString(), threads.size() <= 2);
+            for (Thread t : threads) {
+                assertTrue(t.getName(), t.isDaemon());
+            }
+        } finally {
+            container.stop();
+        }
+    }
+
+    private CountingListener receive(String destName,
+            MessageListenerConfig listenerConfig) throws Exception {
+        Destination dest = client.getDestination(destName);
+        for (int i = 0; i < MESSAGES; i++) {
+            client.send(dest, new HashMap<String, Object>(), "msg" + i);
+        }
+        CountingListener listener = new CountingListener(
+                destName.endsWith("fail"));
+        client.setMessageListener(dest, listener, listenerConfig);
+        return listener;
+    }
+}
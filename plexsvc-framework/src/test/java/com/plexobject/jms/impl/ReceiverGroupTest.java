@@ -0,0 +1,119 @@
+package com.plexobject.jms.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Destination;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.Session;
+
+import org.apache.activemq.broker.BrokerService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.jms.JMSTestUtils;
+import com.plexobject.jms.MessageListenerConfig;
+import com.plexobject.metrics.ServiceMetrics;
+
+public class ReceiverGroupTest {
+    private static final int MESSAGES = 100;
+    private final Properties properties = new Properties();
+    private final ServiceMetrics metrics = new ServiceMetrics(null, "test");
+    private BrokerService broker;
+    private DefaultJMSContainer client;
+
+    private static class SlowListener implements MessageListener {
+        private final CountDownLatch latch = new CountDownLatch(MESSAGES);
+
+        @Override
+        public void onMessage(Message message) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            latch.countDown();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        broker = JMSTestUtils.startBroker(properties);
+        properties.put(Constants.JMS_IDLE_RECEIVES_LIMIT, "2");
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.stop();
+        broker.stop();
+    }
+
+    @Test
+    public void testScaleUpAndDown() throws Exception {
+        SlowListener listener = new SlowListener();
+        ReceiverGroup group = receive("queue://scaled", listener,
+                new MessageListenerConfig(1, 4, true,
+                        Session.AUTO_ACKNOWLEDGE, 100, 1, false, metrics));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(group.toString(), group.getPeakConsumerCount() > 1);
+        assertTrue(group.toString(), group.getPeakConsumerCount() <= 4);
+        assertEquals(group.getPeakConsumerCount(), metrics.getPeakConsumers());
+        for (int i = 0; i < 50 && group.getConsumerCount() > 1; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, group.getConsumerCount());
+        assertEquals(1, metrics.getConsumers());
+        group.close();
+    }
+
+    @Test
+    public void testDestinationMaxConcurrency() throws Exception {
+        properties.put("jms.configured.maxConcurrency", "3");
+        client.stop();
+        client = new DefaultJMSContainer(new Configuration(properties));
+        client.start();
+        SlowListener listener = new SlowListener();
+        ReceiverGroup group = receive("queue://configured", listener,
+                new MessageListenerConfig(1, true, Session.AUTO_ACKNOWLEDGE,
+                        100));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        assertTrue(group.toString(), group.getPeakConsumerCount() > 1);
+        assertTrue(group.toString(), group.getPeakConsumerCount() <= 3);
+        group.close();
+    }
+
+    @Test
+    public void testFixedConcurrency() throws Exception {
+        SlowListener listener = new SlowListener();
+        ReceiverGroup group = receive("queue://fixed", listener,
+                new MessageListenerConfig(2, 2, true,
+                        Session.AUTO_ACKNOWLEDGE, 100, 1, false, metrics));
+        assertTrue(listener.latch.await(10, TimeUnit.SECONDS));
+        Thread.sleep(500);
+        assertEquals(2, group.getConsumerCount());
+        assertEquals(2, group.getPeakConsumerCount());
+        assertEquals(2, metrics.getConsumers());
+        group.close();
+    }
+
+    private ReceiverGroup receive(String destName, MessageListener listener,
+            MessageListenerConfig listenerConfig) throws Exception {
+        Destination dest = client.getDestination(destName);
+        for (int i = 0; i < MESSAGES; i++) {
+            client.send(dest, new HashMap<String, Object>(), "msg" + i);
+        }
+        return (ReceiverGroup) client.setMessageListener(dest, listener,
+                listenerConfig);
+    }
+}
@@ -113,4 +113,13 @@ public class ServiceMetricsTest {
         assertEquals(90, metrics.getRange());
         assertEquals(100, metrics.getMax());
     }
+
+    @Test
+    public void testConsumers() throws Exception {
+        metrics.setConsumers(3);
+        metrics.setConsumers(5);
+        metrics.setConsumers(2);
+        assertEquals(2, metrics.getConsumers());
+        assertEquals(5, metrics.getPeakConsumers());
+    }
 }
@@ -0,0 +1,106 @@
+package com.plexobject.route;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * This class measures time and allocated bytes per lookup of RouteResolver
+ * with 3000 registered routes and lookups of unknown paths with and without
+ * the not-found cache
+ *
+ * @author shahzad bhatti
+ *
+ */
+public class RouteResolverPerformanceTest {
+    private static final int SERVICES = 1000;
+    private static final int WARMUP = 200000;
+    private static final int ITERATIONS = 1000000;
+    private final RouteResolver<String> resolver = new RouteResolver<>();
+    private final RouteResolver<String> uncached = new RouteResolver<>(0);
+    private final String[] hits = new String[SERVICES];
+    private final String[] misses = new String[SERVICES];
+
+    public RouteResolverPerformanceTest() {
+        for (int i = 0; i < SERVICES; i++) {
+            String prefix = "/api/v1/service" + i + "/items";
+            for (RouteResolver<String> r : Arrays.asList(resolver, uncached)) {
+                r.put(prefix, "list" + i);
+                r.put(prefix + "/{id}", "get" + i);
+                r.put(prefix + "/{id}/orders/{orderId}", "order" + i);
+            }
+            hits[i] = i % 2 == 0 ? prefix + "/" + i : prefix + "/" + i
+                    + "/orders/" + (i * 7);
+            misses[i] = "/api/v1/service" + i + "/unknown/" + i;
+        }
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        final RouteMatch match = new RouteMatch();
+        final Map<String, Object> parameters = new HashMap<>();
+        Lookup reusable = new Lookup() {
+            @Override
+            public String get(String path) {
+                return resolver.get(path, match);
+            }
+        };
+        Lookup map = new Lookup() {
+            @Override
+            public String get(String path) {
+                parameters.clear();
+                return resolver.get(path, parameters);
+            }
+        };
+        long[] matchHits = run(reusable, hits);
+        long[] mapHits = run(map, hits);
+        long[] cachedMisses = run(reusable, misses);
+        long[] uncachedMisses = run(new Lookup() {
+            @Override
+            public String get(String path) {
+                return uncached.get(path, match);
+            }
+        }, misses);
+        System.out.println("Route lookup with " + SERVICES * 3
+                + " routes: reusable match " + matchHits[0] + " ns/"
+                + matchHits[1] + " bytes, parameters map " + mapHits[0]
+                + " ns/" + mapHits[1] + " bytes, unknown path "
+                + uncachedMisses[0] + " ns/" + uncachedMisses[1]
+                + " bytes, cached unknown path " + cachedMisses[0] + " ns/"
+                + cachedMisses[1] + " bytes");
+    }
+
+    private interface Lookup {
+        String get(String path);
+    }
+
+    // returns nanos and allocated bytes per lookup
+    private static long[] run(Lookup lookup, String[] paths) {
+        boolean hit = paths[0].indexOf("unknown") < 0;
+        for (int i = 0; i < WARMUP; i++) {
+            String object = lookup.get(paths[i % paths.length]);
+            if (hit) {
+                assertNotNull(object);
+            } else {
+                assertNull(object);
+            }
+        }
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId);
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            lookup.get(paths[i % paths.length]);
+        }
+        long elapsed = System.nanoTime() - started;
+        allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocated;
+        return new long[] { elapsed / ITERATIONS, allocated / ITERATIONS };
+    }
+}
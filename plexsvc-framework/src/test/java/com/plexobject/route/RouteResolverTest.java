@@ -4,6 +4,8 @@ import static org.junit.Assert.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.After;
 import org.junit.Before;
@@ -176,6 +178,147 @@ public class RouteResolverTest {
                 .remove("/users/{user_id}/projects/{project_id}/reports/{id}"));
     }
 
+    @Test
+    public void testStaticPathsMatchBeforeParameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        final TestHandler me = new TestHandler("me");
+        final TestHandler roles = new TestHandler("roles");
+        requestHandlerEndpoints.put("/users/me", me);
+        requestHandlerEndpoints.put("/users/me/roles", roles);
+        assertEquals(me, requestHandlerEndpoints.get("/users/me", parameters));
+        assertTrue(parameters.isEmpty());
+        assertEquals(roles,
+                requestHandlerEndpoints.get("/users/me/roles", parameters));
+        // falls back to parameter when static path doesn't match
+        assertEquals("User with uid and roleId", requestHandlerEndpoints
+                .get("/users/me/roles/5", parameters).toString());
+        assertEquals("me", parameters.get("uid"));
+        assertEquals("5", parameters.get("roleId"));
+        assertFalse(parameters.containsKey("id"));
+    }
+
+    @Test
+    public void testReusableMatch() {
+        RouteMatch match = new RouteMatch();
+        assertEquals("Project and Bugreport with ids", requestHandlerEndpoints
+                .get("/projects/15/bugreports/30", match).toString());
+        assertEquals(2, match.size());
+        assertEquals("projectId", match.getName(0));
+        assertEquals("15", match.getValue(0));
+        assertEquals("30", match.getValue("id"));
+        assertEquals("Users",
+                requestHandlerEndpoints.get("/users/", match).toString());
+        assertEquals(0, match.size());
+        assertNull(requestHandlerEndpoints.get("/projects/15/xxx", match));
+        assertEquals(0, match.size());
+    }
+
+    @Test
+    public void testRemoveKeepsNestedRoutes() {
+        Map<String, Object> parameters = new HashMap<>();
+        assertTrue(requestHandlerEndpoints.remove("/users/{id}"));
+        assertNull(requestHandlerEndpoints.get("/users/10", parameters));
+        assertNotNull(requestHandlerEndpoints.get("/users/10/roles/20",
+                parameters));
+        assertFalse(requestHandlerEndpoints.remove("/users/10"));
+    }
+
+    @Test
+    public void testManyRoutes() {
+        Map<String, Object> parameters = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            requestHandlerEndpoints.put("/service" + i + "/items/{id}",
+                    new TestHandler("service" + i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("service" + i, requestHandlerEndpoints.get(
+                    "/service" + i + "/items/" + i, parameters).toString());
+            assertEquals(String.valueOf(i), parameters.get("id"));
+        }
+        assertNull(requestHandlerEndpoints.get("/service1000/items/1",
+                parameters));
+    }
+
+    @Test
+    public void testLookupsWhileRoutesChange() throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread() {
+                @Override
+                public void run() {
+                    RouteMatch match = new RouteMatch();
+                    while (running.get()) {
+                        for (TestData td : TEST_DATA) {
+                            RequestHandler h = requestHandlerEndpoints.get(
+                                    td.searchUrl, match);
+                            if (h == null
+                                    || !td.handlerName.equals(h.toString())) {
+                                failure.set("unexpected " + h + " for " + td);
+                            }
+                        }
+                    }
+                }
+            };
+            readers[t].start();
+        }
+        for (int i = 0; i < 2000; i++) {
+            String path = "/dynamic" + (i % 50) + "/{id}";
+            requestHandlerEndpoints.put(path, new TestHandler(path));
+            if (i % 3 == 0) {
+                requestHandlerEndpoints.remove(path);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertNotNull(requestHandlerEndpoints.get("/dynamic1/5",
+                new HashMap<String, Object>()));
+    }
+
+    @Test
+    public void testUnchangedNodesAreShared() {
+        RouteResolver<String> resolver = new RouteResolver<>();
+        resolver.put("/users/{id}", "user");
+        resolver.put("/projects/{id}", "project");
+        RouteMatch match = new RouteMatch();
+        RouteResolver.Node<String> users = resolver.getRoot().getChild(
+                "users");
+        Object compiled = users.compile();
+        resolver.put("/projects/{id}/bugs", "bugs");
+        assertTrue(compiled == users.compile());
+        assertEquals("bugs", resolver.get("/projects/1/bugs", match));
+        resolver.put("/users/{id}/roles", "roles");
+        assertFalse(compiled == users.compile());
+        assertEquals("user", resolver.get("/users/1", match));
+    }
+
+    @Test
+    public void testNotFoundCacheIsDiscardedOnChange() {
+        RouteMatch match = new RouteMatch();
+        assertNull(requestHandlerEndpoints.get("/accounts/5", match));
+        assertNull(requestHandlerEndpoints.get("/accounts/5", match));
+        final TestHandler h = new TestHandler("accounts");
+        requestHandlerEndpoints.put("/accounts/{id}", h);
+        assertEquals(h, requestHandlerEndpoints.get("/accounts/5", match));
+        assertEquals("5", match.getValue("id"));
+        assertTrue(requestHandlerEndpoints.remove("/accounts/{id}"));
+        assertNull(requestHandlerEndpoints.get("/accounts/5", match));
+    }
+
+    @Test
+    public void testWithoutNotFoundCache() {
+        RouteResolver<String> resolver = new RouteResolver<>(0);
+        resolver.put("/users/{id}", "user");
+        RouteMatch match = new RouteMatch();
+        assertNull(resolver.get("/xxx", match));
+        assertNull(resolver.get("/xxx", match));
+        assertEquals("user", resolver.get("/users/1", match));
+    }
+
     @Test
     public void testToString() {
         final TestHandler h = new TestHandler("name");
@@ -0,0 +1,188 @@
+package com.plexobject.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.plexobject.domain.Configuration;
+import com.plexobject.domain.Constants;
+import com.plexobject.encode.CodecType;
+import com.plexobject.handler.Request;
+import com.plexobject.handler.RequestHandler;
+import com.plexobject.http.HttpResponse;
+import com.plexobject.http.ServiceInvocationException;
+import com.plexobject.http.TestWebUtils;
+import com.plexobject.metrics.ServiceMetrics;
+
+public class ServiceExecutionModeTest {
+    private static final int HTTP_PORT = 8330;
+    private static final String URL = "http://localhost:" + HTTP_PORT;
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/slow", method = RequestMethod.GET, codec = CodecType.TEXT, executionMode = ExecutionMode.DEDICATED_POOL, concurrency = 1)
+    public static class SlowService implements RequestHandler {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void handle(Request request) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            request.getResponse().setContents("slow");
+            request.sendResponse();
+        }
+    }
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/fast", method = RequestMethod.GET, codec = CodecType.TEXT)
+    public static class FastService implements RequestHandler {
+        @Override
+        public void handle(Request request) {
+            request.getResponse().setContents("fast");
+            request.sendResponse();
+        }
+    }
+
+    @ServiceConfig(protocol = Protocol.HTTP, endpoint = "/blocking", method = RequestMethod.GET, codec = CodecType.TEXT, executionMode = ExecutionMode.VIRTUAL_THREAD)
+    public static class BlockingService implements RequestHandler {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void handle(Request request) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            request.getResponse().setContents("blocking");
+            request.sendResponse();
+        }
+    }
+
+    private ServiceRegistry serviceRegistry;
+    private final SlowService slowService = new SlowService();
+    private final BlockingService blockingService = new BlockingService();
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty(Constants.HTTP_PORT, String.valueOf(HTTP_PORT));
+        // all connections share single event loop
+        props.setProperty(Constants.HTTP_WORKER_THREADS, "1");
+        props.setProperty(Constants.HTTP_EXECUTOR_QUEUE_SIZE, "1");
+        serviceRegistry = new ServiceRegistry(new Configuration(props));
+        serviceRegistry.addRequestHandler(slowService);
+        serviceRegistry.addRequestHandler(new FastService());
+        serviceRegistry.addRequestHandler(blockingService);
+        serviceRegistry.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        slowService.release.countDown();
+        blockingService.release.countDown();
+        clients.shutdown();
+        serviceRegistry.stop();
+    }
+
+    @Test
+    public void testSlowServiceDoesNotBlockEventLoop() throws Exception {
+        Future<String> slow = getAsync("/slow");
+        assertTrue(slowService.started.await(2, TimeUnit.SECONDS));
+        assertEquals("fast", TestWebUtils.get(URL + "/fast"));
+        assertTrue(!slow.isDone());
+        slowService.release.countDown();
+        assertEquals("slow", slow.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedWhenQueueIsFull() throws Exception {
+        ServiceMetrics metrics = serviceRegistry.getServiceMetricsRegistry()
+                .getServiceMetrics(slowService);
+        Future<String> running = getAsync("/slow");
+        assertTrue(slowService.started.await(2, TimeUnit.SECONDS));
+        Future<String> queued = getAsync("/slow");
+        for (int i = 0; i < 100 && metrics.getQueueDepth() == 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, metrics.getQueueDepth());
+        try {
+            TestWebUtils.get(URL + "/slow");
+            fail("should have been rejected");
+        } catch (ServiceInvocationException e) {
+            assertEquals(HttpResponse.SC_SERVICE_UNAVAILABLE,
+                    e.getStatusCode());
+        }
+        assertEquals(1, metrics.getRejectedInvocations());
+        slowService.release.countDown();
+        assertEquals("slow", running.get(2, TimeUnit.SECONDS));
+        assertEquals("slow", queued.get(2, TimeUnit.SECONDS));
+        assertEquals(0, metrics.getQueueDepth());
+    }
+
+    @Test
+    public void testVirtualThreadServiceDoesNotBlockEventLoop()
+            throws Exception {
+        // falls back to shared pool when virtual threads are not supported
+        Future<String> blocking = getAsync("/blocking");
+        Thread.sleep(100);
+        assertEquals("fast", TestWebUtils.get(URL + "/fast"));
+        assertTrue(!blocking.isDone());
+        blockingService.release.countDown();
+        assertEquals("blocking", blocking.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPipelinedRequestsAreAnsweredInOrder() throws Exception {
+        try (Socket socket = new Socket("localhost", HTTP_PORT)) {
+            socket.setSoTimeout(5000);
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /slow HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                    + "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes("UTF-8"));
+            out.flush();
+            assertTrue(slowService.started.await(2, TimeUnit.SECONDS));
+            // fast request would have been answered by now if it wasn't
+            // waiting for the slow one
+            Thread.sleep(200);
+            slowService.release.countDown();
+            InputStream in = socket.getInputStream();
+            StringBuilder sb = new StringBuilder();
+            byte[] buffer = new byte[1024];
+            int n;
+            while (sb.indexOf("fast") == -1 && (n = in.read(buffer)) != -1) {
+                sb.append(new String(buffer, 0, n, "UTF-8"));
+            }
+            int slow = sb.indexOf("slow");
+            assertTrue(sb.toString(), slow != -1);
+            assertTrue(sb.toString(), slow < sb.indexOf("fast"));
+        }
+    }
+
+    private Future<String> getAsync(final String path) {
+        return clients.submit(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return TestWebUtils.get(URL + path);
+            }
+        });
+    }
+}
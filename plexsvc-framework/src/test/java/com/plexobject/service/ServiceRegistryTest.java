@@ -3,6 +3,8 @@ package com.plexobject.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -31,6 +33,7 @@ import com.plexobject.jms.JMSTestUtils;
 import com.plexobject.jms.impl.JMSUtils;
 import com.plexobject.security.AuthException;
 import com.plexobject.security.SecurityAuthorizer;
+import com.plexobject.service.impl.InvocationPlan;
 import com.plexobject.validation.ValidationException;
 
 public class ServiceRegistryTest {
@@ -429,6 +432,32 @@ public class ServiceRegistryTest {
         assertTrue(out.toString().contains("ValidationException"));
     }
 
+    @Test
+    public void testInvocationPlan() throws Exception {
+        final Configuration config = new Configuration(properties);
+        ServiceRegistry registry = new ServiceRegistry(config);
+        RequestHandler h = new WebService();
+        InvocationPlan plan = registry.getInvocationPlan(h);
+        assertSame(plan, registry.getInvocationPlan(h));
+        assertSame(h, plan.getHandler());
+        assertEquals("/w", plan.getConfig().endpoint());
+        assertTrue(plan.isPayloadRequired());
+        assertSame(registry.getServiceMetricsRegistry().getServiceMetrics(h),
+                plan.getMetrics());
+        assertEquals(CodecType.JSON, plan.getCodecType(null));
+        assertEquals(CodecType.XML, plan.getCodecType("application/xml"));
+        //
+        ServiceConfigDesc desc = ServiceConfigDesc.builder(plan.getConfig())
+                .setEndpoint("/w2").setContentsClass(Void.class).build();
+        registry.addRequestHandler(desc, h);
+        InvocationPlan changed = registry.getInvocationPlan(h);
+        assertNotSame(plan, changed);
+        assertEquals("/w2", changed.getConfig().endpoint());
+        assertFalse(changed.isPayloadRequired());
+        assertSame(plan.getMetrics(), changed.getMetrics());
+        registry.removeRequestHandler(h);
+    }
+
     @Test
     public void testInvokeWebWithException() throws Exception {
         final Configuration config = new Configuration(properties);
@@ -0,0 +1,73 @@
+package com.plexobject.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LazyMapTest {
+    private final Map<String, Object> source = new HashMap<>();
+    private int loads;
+    private final LazyMap<Object> map = new LazyMap<Object>() {
+        @Override
+        protected Object lookup(String key) {
+            return source.get(key);
+        }
+
+        @Override
+        protected void load(Map<String, Object> map) {
+            loads++;
+            map.putAll(source);
+        }
+    };
+
+    public LazyMapTest() {
+        source.put("one", "1");
+        source.put("two", "2");
+    }
+
+    @Test
+    public void testGetWithoutMaterializing() throws Exception {
+        assertEquals("1", map.get("one"));
+        assertTrue(map.containsKey("two"));
+        assertFalse(map.containsKey("three"));
+        assertNull(map.get(3));
+        assertFalse(map.isMaterialized());
+        assertEquals(0, loads);
+    }
+
+    @Test
+    public void testPutOverridesSource() throws Exception {
+        assertEquals("1", map.put("one", "one"));
+        assertNull(map.put("three", "3"));
+        assertEquals("one", map.get("one"));
+        assertEquals("3", map.get("three"));
+        assertFalse(map.isMaterialized());
+        assertEquals(3, map.size());
+        assertTrue(map.isMaterialized());
+        assertEquals("one", map.get("one"));
+        assertEquals("3", map.get("three"));
+        assertEquals("2", map.get("two"));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        assertEquals("1", map.remove("one"));
+        assertNull(map.get("one"));
+        assertEquals(1, map.size());
+        assertEquals(1, loads);
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        Map<String, Object> copy = new HashMap<>(map);
+        assertEquals(source, copy);
+        assertEquals(source, map);
+        assertEquals(1, loads);
+    }
+}
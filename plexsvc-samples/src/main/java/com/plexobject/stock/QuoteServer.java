@@ -10,6 +10,7 @@ import com.plexobject.deploy.AutoDeployer;
 import com.plexobject.encode.CodecType;
 import com.plexobject.handler.Request;
 import com.plexobject.handler.RequestHandler;
+import com.plexobject.http.netty.WebsocketSession;
 import com.plexobject.service.Protocol;
 import com.plexobject.service.RequestMethod;
 import com.plexobject.service.ServiceConfig;
@@ -32,9 +33,17 @@ public class QuoteServer implements RequestHandler {
         try {
             QuoteRequest quoteRequest = request.getContentsAs();
             log.info("Received " + request);
+            // subscriptions of each connection are tracked in its session
+            WebsocketSession session = WebsocketSession.get(request);
             if (quoteRequest.getAction() == Action.SUBSCRIBE) {
-                quoteStreamer.add(quoteRequest.getSymbol(), request);
+                if (session == null
+                        || session.subscribe(quoteRequest.getSymbol())) {
+                    quoteStreamer.add(quoteRequest.getSymbol(), request);
+                }
             } else {
+                if (session != null) {
+                    session.unsubscribe(quoteRequest.getSymbol());
+                }
                 quoteStreamer.remove(quoteRequest.getSymbol(), request);
             }
         } catch (Exception e) {
@@ -10,13 +10,16 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
+import com.plexobject.encode.CodecType;
 import com.plexobject.handler.Request;
+import com.plexobject.http.netty.WebsocketBroadcaster;
 
 public class QuoteStreamer extends TimerTask {
     private static final Logger log = Logger.getLogger(QuoteStreamer.class);
 
     private int delay = 1000;
     private Map<String, Collection<Request>> subscribers = new ConcurrentHashMap<>();
+    private Map<String, WebsocketBroadcaster> broadcasters = new ConcurrentHashMap<>();
     private QuoteCache quoteCache = new QuoteCache();
     private final Timer timer = new Timer(true);
 
@@ -27,6 +30,16 @@ public class QuoteStreamer extends TimerTask {
     public void add(String symbol, Request req) {
         symbol = symbol.toUpperCase();
         synchronized (symbol.intern()) {
+            WebsocketBroadcaster broadcaster = broadcasters.get(symbol);
+            if (broadcaster == null) {
+                broadcaster = new WebsocketBroadcaster(symbol);
+                broadcasters.put(symbol, broadcaster);
+            }
+            // websocket subscribers receive quotes that are encoded once
+            if (broadcaster.add(req)) {
+                log.info("Adding subscription for " + symbol + ", req " + req);
+                return;
+            }
             Collection<Request> requests = subscribers.get(symbol);
             if (requests == null) {
                 requests = new HashSet<Request>();
@@ -40,6 +53,12 @@ public class QuoteStreamer extends TimerTask {
     public void remove(String symbol, Request req) {
         symbol = symbol.toUpperCase();
         synchronized (symbol.intern()) {
+            WebsocketBroadcaster broadcaster = broadcasters.get(symbol);
+            if (broadcaster != null && broadcaster.remove(req)) {
+                log.info("Removing subscription for " + symbol + ", request "
+                        + req);
+                return;
+            }
             Collection<Request> requests = subscribers.get(symbol);
             if (requests != null) {
                 requests.remove(req);
@@ -51,6 +70,18 @@ public class QuoteStreamer extends TimerTask {
 
     @Override
     public void run() {
+        for (Map.Entry<String, WebsocketBroadcaster> e : broadcasters
+                .entrySet()) {
+            try {
+                if (e.getValue().size() > 0) {
+                    Quote q = quoteCache.getLatestQuote(e.getKey());
+                    int n = e.getValue().broadcast(q, CodecType.JSON);
+                    log.info("Broadcasting " + q + " to " + n);
+                }
+            } catch (Exception ex) {
+                log.error("Failed to broadcast quote for " + e.getKey(), ex);
+            }
+        }
         if (subscribers.size() == 0) {
             return;
         }